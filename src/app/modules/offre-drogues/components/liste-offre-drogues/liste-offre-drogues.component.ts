@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { AfterViewInit, Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { RouterModule } from '@angular/router';
 import { FormsModule } from '@angular/forms';
@@ -62,13 +62,13 @@ Chart.register(...registerables);
                   type="date"
                   class="form-input"
                   [(ngModel)]="selectedDate"
-                  (change)="filterData()"
+                  (change)="applyFilters()"
               >
             </div>
 
             <div class="filter-group">
               <label class="form-label">Période</label>
-              <select class="form-select" [(ngModel)]="selectedPeriod" (change)="filterData()">
+              <select class="form-select" [(ngModel)]="selectedPeriod" (change)="applyFilters()">
                 <option value="">Toutes les périodes</option>
                 <option value="today">Aujourd'hui</option>
                 <option value="week">Cette semaine</option>
@@ -117,7 +117,7 @@ Chart.register(...registerables);
       <div class="data-table-container card">
         <div class="card-header">
           <h3 class="card-title">
-            {{ isExterne() ? 'Mes saisies' : 'Toutes les saisies' }} ({{ filteredData.length }})
+            {{ isExterne() ? 'Mes saisies' : 'Toutes les saisies' }} ({{ totalElements }})
           </h3>
         </div>
 
@@ -191,6 +191,18 @@ Chart.register(...registerables);
               </tbody>
             </table>
           </div>
+
+          <div class="pager" *ngIf="totalPages > 1">
+            <button class="btn btn-sm btn-secondary" type="button"
+                    [disabled]="currentPage === 0" (click)="loadPage(currentPage - 1)">
+              ‹ Précédent
+            </button>
+            <span class="pager-info">Page {{ currentPage + 1 }} / {{ totalPages }}</span>
+            <button class="btn btn-sm btn-secondary" type="button"
+                    [disabled]="currentPage + 1 >= totalPages" (click)="loadPage(currentPage + 1)">
+              Suivant ›
+            </button>
+          </div>
         </div>
       </div>
 
@@ -501,6 +513,20 @@ Chart.register(...registerables);
       min-width: 32px;
     }
 
+    .pager {
+      display: flex;
+      align-items: center;
+      justify-content: flex-end;
+      gap: var(--spacing-3);
+      padding: var(--spacing-4);
+      border-top: 1px solid var(--gray-200);
+    }
+
+    .pager-info {
+      font-size: 14px;
+      color: var(--gray-600);
+    }
+
     /* Modal styles */
     .modal-overlay {
       position: fixed;
@@ -614,10 +640,16 @@ Chart.register(...registerables);
     }
   `]
 })
-export class ListeOffreDroguesComponent implements OnInit {
-  data: any[] = [];
+export class ListeOffreDroguesComponent implements OnInit, AfterViewInit {
+  data: OffreDroguesListItem[] = [];
   filteredData: OffreDroguesListItem[] = [];
 
+  // Pagination (côté serveur)
+  readonly pageSize = 20;
+  currentPage = 0;
+  totalElements = 0;
+  totalPages = 0;
+
   // Filtres
   searchTerm = '';
   selectedDate = '';
@@ -627,6 +659,15 @@ export class ListeOffreDroguesComponent implements OnInit {
   selectedMonth = new Date().getMonth();
 
   // Propriétés pour les graphiques
+  readonly substances = [
+    { name: 'Cannabis (kg)', key: 'cannabis' },
+    { name: 'Comprimés Tableau A', key: 'comprimesTableauA' },
+    { name: 'Ecstasy (comprimé)', key: 'ecstasyComprime' },
+    { name: 'Ecstasy (poudre)', key: 'ecstasyPoudre' },
+    { name: 'Subutex', key: 'subutex' },
+    { name: 'Cocaïne (g)', key: 'cocaine' },
+    { name: 'Héroïne (g)', key: 'heroine' }
+  ];
   monthlyChart: Chart | null = null;
   substancesChart: Chart | null = null;
   monthlySubstancesChart: Chart | null = null;
@@ -646,7 +687,6 @@ export class ListeOffreDroguesComponent implements OnInit {
     { value: 10, label: 'Novembre' },
     { value: 11, label: 'Décembre' }
   ];
-  chartData: any[] = [];
 
   // États
   isLoading = false;
@@ -662,20 +702,36 @@ export class ListeOffreDroguesComponent implements OnInit {
   ) {}
 
   ngOnInit(): void {
-    this.loadData();
     this.initializeYears();
+    this.loadPage(0);
+  }
+
+  ngAfterViewInit(): void {
+    // Les graphiques sont alimentés par les agrégats, indépendamment de la page affichée
+    this.initializeCharts();
   }
 
-  private loadData(): void {
+  loadPage(page: number): void {
     this.isLoading = true;
 
-    this.offreDroguesService.getAll().subscribe({
-      next: (data) => {
-        this.data = data;
+    const range = this.currentRange();
+    const request = range
+        ? this.offreDroguesService.getByPeriod(range.start, range.end, page, this.pageSize)
+        : this.offreDroguesService.getAll(page, this.pageSize);
+
+    request.subscribe({
+      next: (result) => {
+        // Revenir à la page précédente si la page courante est devenue vide (après une suppression)
+        if ((result.content || []).length === 0 && page > 0) {
+          this.loadPage(page - 1);
+          return;
+        }
+        this.data = result.content || [];
+        this.currentPage = result.number ?? page;
+        this.totalElements = result.totalElements ?? this.data.length;
+        this.totalPages = result.totalPages ?? 1;
         this.filterData();
-        this.chartData = data;
         this.isLoading = false;
-        this.initializeCharts();
       },
       error: (error) => {
         console.error('Erreur lors du chargement des données:', error);
@@ -684,6 +740,49 @@ export class ListeOffreDroguesComponent implements OnInit {
     });
   }
 
+  applyFilters(): void {
+    this.loadPage(0);
+  }
+
+  // Période envoyée au serveur : date exacte, sinon période personnalisée, sinon période prédéfinie
+  private currentRange(): { start: string, end: string } | null {
+    if (this.selectedDate) {
+      return { start: this.selectedDate, end: this.selectedDate };
+    }
+    if (this.startDate && this.endDate) {
+      return { start: this.startDate, end: this.endDate };
+    }
+
+    const now = new Date();
+    const year = now.getFullYear();
+    const month = now.getMonth();
+
+    switch (this.selectedPeriod) {
+      case 'today':
+        return { start: this.toIsoDate(now), end: this.toIsoDate(now) };
+      case 'week':
+        return { start: this.toIsoDate(new Date(year, month, now.getDate() - 7)), end: this.toIsoDate(now) };
+      case 'month':
+        return { start: this.toIsoDate(new Date(year, month, 1)), end: this.toIsoDate(new Date(year, month + 1, 0)) };
+      case 'quarter':
+        const quarterStart = Math.floor(month / 3) * 3;
+        return {
+          start: this.toIsoDate(new Date(year, quarterStart, 1)),
+          end: this.toIsoDate(new Date(year, quarterStart + 3, 0))
+        };
+      case 'year':
+        return { start: `${year}-01-01`, end: `${year}-12-31` };
+      default:
+        return null;
+    }
+  }
+
+  private toIsoDate(date: Date): string {
+    const month = String(date.getMonth() + 1).padStart(2, '0');
+    const day = String(date.getDate()).padStart(2, '0');
+    return `${date.getFullYear()}-${month}-${day}`;
+  }
+
   private initializeYears(): void {
     const currentYear = new Date().getFullYear();
     this.availableYears = [];
@@ -699,52 +798,56 @@ export class ListeOffreDroguesComponent implements OnInit {
   }
 
   private createMonthlyChart(): void {
-    if (this.monthlyChart) {
-      this.monthlyChart.destroy();
-    }
-
     const ctx = document.getElementById('monthlyChart') as HTMLCanvasElement;
     if (!ctx) return;
 
-    // Préparer les données par mois pour l'année sélectionnée
-    const monthlyData = this.prepareMonthlyData(this.selectedYear);
-
-    this.monthlyChart = new Chart(ctx, {
-      type: 'line',
-      data: {
-        labels: monthlyData.labels,
-        datasets: [{
-          label: 'Nombre de saisies',
-          data: monthlyData.data,
-          backgroundColor: 'rgba(59, 130, 246, 0.2)',
-          borderColor: 'rgba(59, 130, 246, 1)',
-          borderWidth: 2,
-          tension: 0.3,
-          fill: true
-        }]
-      },
-      options: {
-        responsive: true,
-        maintainAspectRatio: false,
-        scales: {
-          y: {
-            beginAtZero: true,
-            ticks: {
-              precision: 0
-            }
+    // Nombre de saisies par mois pour l'année sélectionnée, agrégé côté serveur
+    const year = this.selectedYear;
+    this.offreDroguesService.getSeries('month', 'none', `${year}-01-01`, `${year}-12-31`, ['saisies'])
+        .subscribe(series => {
+          if (this.monthlyChart) {
+            this.monthlyChart.destroy();
           }
-        },
-        plugins: {
-          tooltip: {
-            mode: 'index',
-            intersect: false
-          },
-          legend: {
-            position: 'top',
-          }
-        }
-      }
-    });
+
+          const monthlyData = this.prepareMonthlyData(series);
+
+          this.monthlyChart = new Chart(ctx, {
+            type: 'line',
+            data: {
+              labels: monthlyData.labels,
+              datasets: [{
+                label: 'Nombre de saisies',
+                data: monthlyData.data,
+                backgroundColor: 'rgba(59, 130, 246, 0.2)',
+                borderColor: 'rgba(59, 130, 246, 1)',
+                borderWidth: 2,
+                tension: 0.3,
+                fill: true
+              }]
+            },
+            options: {
+              responsive: true,
+              maintainAspectRatio: false,
+              scales: {
+                y: {
+                  beginAtZero: true,
+                  ticks: {
+                    precision: 0
+                  }
+                }
+              },
+              plugins: {
+                tooltip: {
+                  mode: 'index',
+                  intersect: false
+                },
+                legend: {
+                  position: 'top',
+                }
+              }
+            }
+          });
+        });
   }
 
   private createMonthlySubstancesChart(): void {
@@ -832,77 +935,79 @@ export class ListeOffreDroguesComponent implements OnInit {
   }
 
   private createSubstancesChart(): void {
-    if (this.substancesChart) {
-      this.substancesChart.destroy();
-    }
-
     const ctx = document.getElementById('substancesChart') as HTMLCanvasElement;
     if (!ctx) return;
 
-    // Préparer les données par substance
-    const substancesData = this.prepareSubstancesData(this.selectedYear);
-
-    this.substancesChart = new Chart(ctx, {
-      type: 'bar',
-      data: {
-        labels: substancesData.labels,
-        datasets: [{
-          label: 'Quantités saisies',
-          data: substancesData.data,
-          backgroundColor: [
-            'rgba(255, 99, 132, 0.7)',
-            'rgba(54, 162, 235, 0.7)',
-            'rgba(255, 206, 86, 0.7)',
-            'rgba(75, 192, 192, 0.7)',
-            'rgba(153, 102, 255, 0.7)',
-            'rgba(255, 159, 64, 0.7)',
-            'rgba(199, 199, 199, 0.7)'
-          ],
-          borderColor: [
-            'rgba(255, 99, 132, 1)',
-            'rgba(54, 162, 235, 1)',
-            'rgba(255, 206, 86, 1)',
-            'rgba(75, 192, 192, 1)',
-            'rgba(153, 102, 255, 1)',
-            'rgba(255, 159, 64, 1)',
-            'rgba(199, 199, 199, 1)'
-          ],
-          borderWidth: 1
-        }]
-      },
-      options: {
-        responsive: true,
-        maintainAspectRatio: false,
-        scales: {
-          y: {
-            beginAtZero: true
+    // Totaux par substance pour l'année sélectionnée, agrégés côté serveur
+    const year = this.selectedYear;
+    this.offreDroguesService.getTotals('none', `${year}-01-01`, `${year}-12-31`, this.substances.map(s => s.key))
+        .subscribe(aggregate => {
+          if (this.substancesChart) {
+            this.substancesChart.destroy();
           }
-        },
-        plugins: {
-          tooltip: {
-            mode: 'index',
-            intersect: false
-          },
-          legend: {
-            position: 'top',
-          }
-        }
-      }
-    });
+
+          const substancesData = this.prepareSubstancesData(aggregate);
+
+          this.substancesChart = new Chart(ctx, {
+            type: 'bar',
+            data: {
+              labels: substancesData.labels,
+              datasets: [{
+                label: 'Quantités saisies',
+                data: substancesData.data,
+                backgroundColor: [
+                  'rgba(255, 99, 132, 0.7)',
+                  'rgba(54, 162, 235, 0.7)',
+                  'rgba(255, 206, 86, 0.7)',
+                  'rgba(75, 192, 192, 0.7)',
+                  'rgba(153, 102, 255, 0.7)',
+                  'rgba(255, 159, 64, 0.7)',
+                  'rgba(199, 199, 199, 0.7)'
+                ],
+                borderColor: [
+                  'rgba(255, 99, 132, 1)',
+                  'rgba(54, 162, 235, 1)',
+                  'rgba(255, 206, 86, 1)',
+                  'rgba(75, 192, 192, 1)',
+                  'rgba(153, 102, 255, 1)',
+                  'rgba(255, 159, 64, 1)',
+                  'rgba(199, 199, 199, 1)'
+                ],
+                borderWidth: 1
+              }]
+            },
+            options: {
+              responsive: true,
+              maintainAspectRatio: false,
+              scales: {
+                y: {
+                  beginAtZero: true
+                }
+              },
+              plugins: {
+                tooltip: {
+                  mode: 'index',
+                  intersect: false
+                },
+                legend: {
+                  position: 'top',
+                }
+              }
+            }
+          });
+        });
   }
 
-  private prepareMonthlyData(year: number): { labels: string[], data: number[] } {
-    // Créer un tableau pour chaque mois de l'année en cours
+  private prepareMonthlyData(series: any): { labels: string[], data: number[] } {
+    // Créer un tableau pour chaque mois de l'année
     const months = ['Janvier', 'Février', 'Mars', 'Avril', 'Mai', 'Juin',
       'Juillet', 'Août', 'Septembre', 'Octobre', 'Novembre', 'Décembre'];
     const monthlyCounts = new Array(12).fill(0);
 
-    // Compter les saisies par mois pour l'année sélectionnée
-    this.data.forEach(item => {
-      const date = new Date(item.dateSaisie);
-      if (date.getFullYear() === year) {
-        monthlyCounts[date.getMonth()]++;
-      }
+    // Les mois sans saisie sont absents de la série ; chaque période est le 1er du mois (yyyy-MM-dd)
+    const counts: number[] = series?.valeurs?.saisies || [];
+    (series?.periodes || []).forEach((periode: string, index: number) => {
+      monthlyCounts[parseInt(periode.substring(5, 7), 10) - 1] = counts[index] || 0;
     });
 
     return {
@@ -911,43 +1016,12 @@ export class ListeOffreDroguesComponent implements OnInit {
     };
   }
 
-  private prepareSubstancesData(year: number): { labels: string[], data: number[] } {
-    // Définir les substances à afficher
-    const substances = [
-      { name: 'Cannabis (kg)', key: 'cannabis' },
-      { name: 'Comprimés Tableau A', key: 'comprimesTableauA' },
-      { name: 'Ecstasy (comprimé)', key: 'ecstasyComprime' },
-      { name: 'Ecstasy (poudre)', key: 'ecstasyPoudre' },
-      { name: 'Subutex', key: 'subutex' },
-      { name: 'Cocaïne (g)', key: 'cocaine' },
-      { name: 'Héroïne (g)', key: 'heroine' }
-    ];
-
-    // Filtrer les données par année
-    const filteredData = this.offreDroguesService.getDetailedDataForYear(year);
-
-    // Initialiser les totaux à zéro
-    const totals = substances.map(() => 0);
-
-    // Calculer les totaux pour chaque substance
-    filteredData.subscribe(data => {
-      data.forEach(item => {
-        substances.forEach((substance, index) => {
-          if (item.quantitesDrogues && item.quantitesDrogues[substance.key] !== null) {
-            totals[index] += item.quantitesDrogues[substance.key] || 0;
-          }
-        });
-      });
-
-      // Mettre à jour le graphique avec les nouvelles données
-      if (this.substancesChart) {
-        this.substancesChart.data.datasets[0].data = totals;
-        this.substancesChart.update();
-      }
-    });
+  private prepareSubstancesData(aggregate: any): { labels: string[], data: number[] } {
+    // Sans regroupement, chaque colonne de totaux contient une seule valeur
+    const totals = this.substances.map(substance => (aggregate?.valeurs?.[substance.key] || [])[0] || 0);
 
     return {
-      labels: substances.map(s => s.name),
+      labels: this.substances.map(s => s.name),
       data: totals
     };
   }
@@ -967,61 +1041,17 @@ export class ListeOffreDroguesComponent implements OnInit {
       return;
     }
 
-    this.isLoading = true;
-
-    this.offreDroguesService.getByPeriod(this.startDate, this.endDate).subscribe({
-      next: (data) => {
-        this.data = data;
-        this.filterData();
-        this.chartData = data;
-        this.isLoading = false;
-        this.initializeCharts();
-      },
-      error: (error) => {
-        console.error('Erreur lors du chargement des données par période:', error);
-        this.isLoading = false;
-      }
-    });
+    this.loadPage(0);
   }
 
+  // La recherche textuelle porte sur la page affichée ; les filtres de date sont appliqués par le serveur
   filterData(): void {
-    this.filteredData = this.data.filter(item => {
-      const matchesSearch = !this.searchTerm ||
-          item.structure.nom.toLowerCase().includes(this.searchTerm.toLowerCase()) ||
-          `${item.utilisateur.prenom} ${item.utilisateur.nom}`.toLowerCase().includes(this.searchTerm.toLowerCase());
-
-      const matchesDate = !this.selectedDate ||
-          item.dateSaisie.toISOString().split('T')[0] === this.selectedDate;
-
-      const matchesPeriod = this.matchesPeriod(item.dateSaisie);
-
-      return matchesSearch && matchesDate && matchesPeriod;
-    });
-  }
-
-  private matchesPeriod(date: Date): boolean {
-    if (!this.selectedPeriod) return true;
-
-    const now = new Date();
-    const itemDate = new Date(date);
-
-    switch (this.selectedPeriod) {
-      case 'today':
-        return itemDate.toDateString() === now.toDateString();
-      case 'week':
-        const weekAgo = new Date(now.getTime() - 7 * 24 * 60 * 60 * 1000);
-        return itemDate >= weekAgo;
-      case 'month':
-        return itemDate.getMonth() === now.getMonth() && itemDate.getFullYear() === now.getFullYear();
-      case 'quarter':
-        const quarter = Math.floor(now.getMonth() / 3);
-        const itemQuarter = Math.floor(itemDate.getMonth() / 3);
-        return itemQuarter === quarter && itemDate.getFullYear() === now.getFullYear();
-      case 'year':
-        return itemDate.getFullYear() === now.getFullYear();
-      default:
-        return true;
-    }
+    const term = this.searchTerm.toLowerCase();
+    this.filteredData = this.data.filter(item =>
+        !term ||
+        (item.structure?.nom || '').toLowerCase().includes(term) ||
+        `${item.utilisateur.prenom} ${item.utilisateur.nom}`.toLowerCase().includes(term)
+    );
   }
 
   isExterne(): boolean {
@@ -1047,7 +1077,7 @@ export class ListeOffreDroguesComponent implements OnInit {
       next: () => {
         this.isDeleting = false;
         this.closeDeleteModal();
-        this.loadData();
+        this.loadPage(this.currentPage);
       },
       error: (error) => {
         this.isDeleting = false;
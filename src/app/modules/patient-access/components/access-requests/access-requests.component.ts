@@ -52,7 +52,7 @@ import { AuthService } from '../../../../services/auth.service';
       <div class="tab-content" *ngIf="activeTab === 'sent'">
         <div class="card" *ngIf="!isLoading && sentRequests.length > 0">
           <div class="card-header">
-            <h3 class="card-title">Mes demandes d'accès ({{ sentRequests.length }})</h3>
+            <h3 class="card-title">Mes demandes d'accès ({{ sentTotal }})</h3>
           </div>
           <div class="card-body p-0">
             <div class="table-responsive">
@@ -111,6 +111,17 @@ import { AuthService } from '../../../../services/auth.service';
               </table>
             </div>
           </div>
+          <div class="pager" *ngIf="sentTotalPages > 1">
+            <button class="btn btn-sm btn-secondary" type="button"
+                    [disabled]="sentPage === 0" (click)="loadSentRequests(sentPage - 1)">
+              ‹ Précédent
+            </button>
+            <span class="pager-info">Page {{ sentPage + 1 }} / {{ sentTotalPages }}</span>
+            <button class="btn btn-sm btn-secondary" type="button"
+                    [disabled]="sentPage + 1 >= sentTotalPages" (click)="loadSentRequests(sentPage + 1)">
+              Suivant ›
+            </button>
+          </div>
         </div>
 
         <div class="no-results card" *ngIf="!isLoading && sentRequests.length === 0">
@@ -137,7 +148,7 @@ import { AuthService } from '../../../../services/auth.service';
       <div class="tab-content" *ngIf="activeTab === 'received'">
         <div class="card" *ngIf="!isLoading && receivedRequests.length > 0">
           <div class="card-header">
-            <h3 class="card-title">Demandes d'accès reçues ({{ receivedRequests.length }})</h3>
+            <h3 class="card-title">Demandes d'accès reçues ({{ receivedTotal }})</h3>
           </div>
           <div class="card-body p-0">
             <div class="table-responsive">
@@ -205,6 +216,17 @@ import { AuthService } from '../../../../services/auth.service';
               </table>
             </div>
           </div>
+          <div class="pager" *ngIf="receivedTotalPages > 1">
+            <button class="btn btn-sm btn-secondary" type="button"
+                    [disabled]="receivedPage === 0" (click)="loadReceivedRequests(receivedPage - 1)">
+              ‹ Précédent
+            </button>
+            <span class="pager-info">Page {{ receivedPage + 1 }} / {{ receivedTotalPages }}</span>
+            <button class="btn btn-sm btn-secondary" type="button"
+                    [disabled]="receivedPage + 1 >= receivedTotalPages" (click)="loadReceivedRequests(receivedPage + 1)">
+              Suivant ›
+            </button>
+          </div>
         </div>
 
         <div class="no-results card" *ngIf="!isLoading && receivedRequests.length === 0">
@@ -398,6 +420,20 @@ import { AuthService } from '../../../../services/auth.service';
       gap: var(--spacing-2);
     }
 
+    .pager {
+      display: flex;
+      align-items: center;
+      justify-content: flex-end;
+      gap: var(--spacing-3);
+      padding: var(--spacing-4);
+      border-top: 1px solid var(--gray-200);
+    }
+
+    .pager-info {
+      font-size: 14px;
+      color: var(--gray-600);
+    }
+
     .no-results {
       max-width: 600px;
       margin: 0 auto;
@@ -472,6 +508,13 @@ export class AccessRequestsComponent implements OnInit {
   activeTab = 'sent';
   sentRequests: any[] = [];
   receivedRequests: any[] = [];
+  readonly pageSize = 20;
+  sentPage = 0;
+  sentTotal = 0;
+  sentTotalPages = 0;
+  receivedPage = 0;
+  receivedTotal = 0;
+  receivedTotalPages = 0;
   isLoading = false;
   isProcessing = false;
   isCancelling = false;
@@ -490,12 +533,24 @@ export class AccessRequestsComponent implements OnInit {
   }
 
   loadRequests(): void {
+    this.loadSentRequests(this.sentPage);
+    this.loadReceivedRequests(this.receivedPage);
+  }
+
+  loadSentRequests(page: number): void {
     this.isLoading = true;
 
-    // Load sent requests
-    this.patientAccessService.getMyRequests().subscribe({
-      next: (data) => {
-        this.sentRequests = data;
+    this.patientAccessService.getMyRequests(undefined, page, this.pageSize).subscribe({
+      next: (result) => {
+        // Step back if the current page became empty (e.g. after a cancellation)
+        if ((result.content || []).length === 0 && page > 0) {
+          this.loadSentRequests(page - 1);
+          return;
+        }
+        this.sentRequests = result.content || [];
+        this.sentPage = result.number ?? page;
+        this.sentTotal = result.totalElements ?? this.sentRequests.length;
+        this.sentTotalPages = result.totalPages ?? 1;
         this.isLoading = false;
       },
       error: (error) => {
@@ -503,11 +558,19 @@ export class AccessRequestsComponent implements OnInit {
         this.isLoading = false;
       }
     });
+  }
 
-    // Load received requests
-    this.patientAccessService.getReceivedRequests().subscribe({
-      next: (data) => {
-        this.receivedRequests = data;
+  loadReceivedRequests(page: number): void {
+    this.patientAccessService.getReceivedRequests(undefined, page, this.pageSize).subscribe({
+      next: (result) => {
+        if ((result.content || []).length === 0 && page > 0) {
+          this.loadReceivedRequests(page - 1);
+          return;
+        }
+        this.receivedRequests = result.content || [];
+        this.receivedPage = result.number ?? page;
+        this.receivedTotal = result.totalElements ?? this.receivedRequests.length;
+        this.receivedTotalPages = result.totalPages ?? 1;
       },
       error: (error) => {
         console.error('Erreur lors du chargement des demandes reçues:', error);
@@ -62,7 +62,7 @@ import { AuthService } from '../../../../services/auth.service';
               <label class="form-label">&nbsp;</label>
               <button
                   class="btn btn-primary w-full"
-                  (click)="searchPatients()"
+                  (click)="searchPatients(0)"
                   [disabled]="isLoading"
                   type="button"
               >
@@ -80,7 +80,7 @@ import { AuthService } from '../../../../services/auth.service';
       <!-- Résultats de recherche -->
       <div class="search-results card" *ngIf="!isLoading && patients.length > 0">
         <div class="card-header">
-          <h3 class="card-title">Résultats ({{ patients.length }})</h3>
+          <h3 class="card-title">Résultats ({{ totalElements }})</h3>
         </div>
         <div class="card-body p-0">
           <div class="table-responsive">
@@ -144,6 +144,17 @@ import { AuthService } from '../../../../services/auth.service';
             </table>
           </div>
         </div>
+        <div class="pager" *ngIf="totalPages > 1">
+          <button class="btn btn-sm btn-secondary" type="button"
+                  [disabled]="currentPage === 0" (click)="searchPatients(currentPage - 1)">
+            ‹ Précédent
+          </button>
+          <span class="pager-info">Page {{ currentPage + 1 }} / {{ totalPages }}</span>
+          <button class="btn btn-sm btn-secondary" type="button"
+                  [disabled]="currentPage + 1 >= totalPages" (click)="searchPatients(currentPage + 1)">
+            Suivant ›
+          </button>
+        </div>
       </div>
 
       <!-- Message si aucun résultat -->
@@ -323,6 +334,20 @@ import { AuthService } from '../../../../services/auth.service';
       font-style: italic;
     }
 
+    .pager {
+      display: flex;
+      align-items: center;
+      justify-content: flex-end;
+      gap: var(--spacing-3);
+      padding: var(--spacing-4);
+      border-top: 1px solid var(--gray-200);
+    }
+
+    .pager-info {
+      font-size: 14px;
+      color: var(--gray-600);
+    }
+
     .no-results, .info-card {
       max-width: 600px;
       margin: 0 auto;
@@ -394,6 +419,10 @@ export class PatientSearchComponent implements OnInit {
   searchCode = '';
   selectedStructureId = '';
   patients: any[] = [];
+  readonly pageSize = 20;
+  currentPage = 0;
+  totalElements = 0;
+  totalPages = 0;
   structures: any[] = [];
   isLoading = false;
   isRequestingAccess = false;
@@ -411,7 +440,6 @@ export class PatientSearchComponent implements OnInit {
 
   ngOnInit(): void {
     this.loadStructures();
-    this.loadMyAccessRequests();
   }
 
   private loadStructures(): void {
@@ -425,19 +453,18 @@ export class PatientSearchComponent implements OnInit {
     });
   }
 
-  private loadMyAccessRequests(): void {
-    this.patientAccessService.getMyRequests().subscribe({
-      next: (requests) => {
-        // Update the access status map
-        requests.forEach(request => {
-          this.patientAccessStatus.set(
-            request.patientId, 
-            request.status
-          );
+  private loadAccessStatuses(patients: any[]): void {
+    const patientIds = patients.map(patient => patient.id);
+    this.patientAccessService.getAccessStatuses(patientIds).subscribe({
+      next: (statuses) => {
+        // Update the access status map for the displayed patients only
+        this.patientAccessStatus.clear();
+        Object.entries(statuses).forEach(([patientId, status]) => {
+          this.patientAccessStatus.set(Number(patientId), status);
         });
       },
       error: (error) => {
-        console.error('Erreur lors du chargement des demandes d\'accès:', error);
+        console.error('Erreur lors du chargement des statuts d\'accès:', error);
       }
     });
   }
@@ -446,11 +473,13 @@ export class PatientSearchComponent implements OnInit {
     // Reset results if search criteria are cleared
     if (!this.searchCode && !this.selectedStructureId) {
       this.patients = [];
+      this.totalElements = 0;
+      this.totalPages = 0;
       this.hasSearched = false;
     }
   }
 
-  searchPatients(): void {
+  searchPatients(page: number = this.currentPage): void {
     if (!this.searchCode && !this.selectedStructureId) {
       return;
     }
@@ -458,15 +487,26 @@ export class PatientSearchComponent implements OnInit {
     this.isLoading = true;
     this.hasSearched = true;
 
-    this.patientService.searchPatientsExternal(this.searchCode, this.selectedStructureId).subscribe({
-      next: (data) => {
-        this.patients = data;
+    this.patientService.searchPatientsExternal(this.searchCode, this.selectedStructureId, page, this.pageSize).subscribe({
+      next: (result) => {
+        // Step back if the current page became empty
+        if ((result.content || []).length === 0 && page > 0) {
+          this.searchPatients(page - 1);
+          return;
+        }
+        this.patients = result.content || [];
+        this.currentPage = result.number ?? page;
+        this.totalElements = result.totalElements ?? this.patients.length;
+        this.totalPages = result.totalPages ?? 1;
         this.isLoading = false;
+        this.loadAccessStatuses(this.patients);
       },
       error: (error) => {
         console.error('Erreur lors de la recherche des patients:', error);
         this.isLoading = false;
         this.patients = [];
+        this.totalElements = 0;
+        this.totalPages = 0;
       }
     });
   }
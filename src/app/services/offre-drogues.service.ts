@@ -2,7 +2,6 @@ import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
 import { catchError } from 'rxjs/operators';
-import { map } from 'rxjs/operators';
 import {environment} from "../../environments/environment";
 import {AuthService} from "./auth.service";
 
@@ -90,9 +89,89 @@ export class OffreDroguesService {
     );
   }
 
-  // Get all offre-drogues
-  getAll(): Observable<OffreDroguesListItem[]> {
-    return this.http.get<OffreDroguesListItem[]>(`${this.apiUrl}/offre-drogues`, {
+  // Get aggregated time series (columnar: one array per metric, aligned on periodes)
+  getSeries(granularity: 'week' | 'month' | 'quarter' | 'year', groupBy: 'none' | 'structure' | 'gouvernorat',
+            from: string, to: string, metrics: string[] = []): Observable<any> {
+    const metricsParam = metrics.length ? `&metrics=${metrics.join(',')}` : '';
+    return this.http.get<any>(
+        `${this.apiUrl}/offre-drogues/series?granularity=${granularity}&groupBy=${groupBy}&from=${from}&to=${to}${metricsParam}`, {
+          headers: this.authService.getAuthHeaders()
+        }
+    ).pipe(
+        catchError(error => {
+          console.error('Erreur lors du chargement de la série:', error);
+          return throwError(() => error);
+        })
+    );
+  }
+
+  // Compare each period with the previous one (values and deltas per metric)
+  getComparison(granularity: 'week' | 'month' | 'quarter' | 'year', from: string, to: string,
+                metrics: string[] = []): Observable<any> {
+    const metricsParam = metrics.length ? `&metrics=${metrics.join(',')}` : '';
+    return this.http.get<any>(
+        `${this.apiUrl}/offre-drogues/comparison?granularity=${granularity}&from=${from}&to=${to}${metricsParam}`, {
+          headers: this.authService.getAuthHeaders()
+        }
+    ).pipe(
+        catchError(error => {
+          console.error('Erreur lors du chargement de la comparaison:', error);
+          return throwError(() => error);
+        })
+    );
+  }
+
+  // Get summed sociodemographic counts with count-weighted percentages per period and group
+  getSociodemographics(granularity: 'week' | 'month' | 'quarter' | 'year', from: string, to: string,
+                       groupBy: 'none' | 'structure' | 'gouvernorat' = 'gouvernorat',
+                       breakdowns: string[] = []): Observable<any> {
+    const breakdownsParam = breakdowns.length ? `&breakdowns=${breakdowns.join(',')}` : '';
+    return this.http.get<any>(
+        `${this.apiUrl}/offre-drogues/sociodemographics?granularity=${granularity}&groupBy=${groupBy}` +
+        `&from=${from}&to=${to}${breakdownsParam}`, {
+          headers: this.authService.getAuthHeaders()
+        }
+    ).pipe(
+        catchError(error => {
+          console.error('Erreur lors du chargement des répartitions sociodémographiques:', error);
+          return throwError(() => error);
+        })
+    );
+  }
+
+  // Get per-group totals over a period (served from the in-memory columnar snapshot)
+  getTotals(groupBy: 'none' | 'structure' | 'gouvernorat', from: string, to: string,
+            metrics: string[] = []): Observable<any> {
+    const metricsParam = metrics.length ? `&metrics=${metrics.join(',')}` : '';
+    return this.http.get<any>(
+        `${this.apiUrl}/offre-drogues/totals?groupBy=${groupBy}&from=${from}&to=${to}${metricsParam}`, {
+          headers: this.authService.getAuthHeaders()
+        }
+    ).pipe(
+        catchError(error => {
+          console.error('Erreur lors du chargement des totaux:', error);
+          return throwError(() => error);
+        })
+    );
+  }
+
+  // Get missing reporting days per reporter over a period (computed from per-user day bitsets)
+  getCompliance(from: string, to: string, onlyMissing: boolean = true): Observable<any[]> {
+    return this.http.get<any[]>(
+        `${this.apiUrl}/offre-drogues/compliance?from=${from}&to=${to}&onlyMissing=${onlyMissing}`, {
+          headers: this.authService.getAuthHeaders()
+        }
+    ).pipe(
+        catchError(error => {
+          console.error('Erreur lors du chargement de la complétude:', error);
+          return throwError(() => error);
+        })
+    );
+  }
+
+  // Get one page of offre-drogues (most recent first); returns the page object (content, totalElements, totalPages)
+  getAll(page: number = 0, size: number = 20): Observable<any> {
+    return this.http.get<any>(`${this.apiUrl}/offre-drogues?page=${page}&size=${size}`, {
       headers: this.authService.getAuthHeaders()
     }).pipe(
         catchError(error => {
@@ -114,10 +193,10 @@ export class OffreDroguesService {
     );
   }
 
-  // Get by period
-  getByPeriod(startDate: string, endDate: string): Observable<OffreDroguesListItem[]> {
-    return this.http.get<OffreDroguesListItem[]>(
-        `${this.apiUrl}/offre-drogues?startDate=${startDate}&endDate=${endDate}`, {
+  // Get one page of offre-drogues over a period; returns the page object (content, totalElements, totalPages)
+  getByPeriod(startDate: string, endDate: string, page: number = 0, size: number = 20): Observable<any> {
+    return this.http.get<any>(
+        `${this.apiUrl}/offre-drogues?startDate=${startDate}&endDate=${endDate}&page=${page}&size=${size}`, {
           headers: this.authService.getAuthHeaders()
         }
     ).pipe(
@@ -208,6 +287,20 @@ export class OffreDroguesService {
     );
   }
 
+  // Create entries for several days in one request (one entry per day)
+  createBatch(entries: Parameters<OffreDroguesService['create']>[0][]): Observable<OffreDrogues[]> {
+    const batchRequest = { saisies: entries.map(entry => this.mapToCreateRequest(entry)) };
+
+    return this.http.post<OffreDrogues[]>(`${this.apiUrl}/offre-drogues/batch`, batchRequest, {
+      headers: this.authService.getAuthHeaders()
+    }).pipe(
+        catchError(error => {
+          console.error('Erreur lors de la création groupée:', error);
+          return throwError(() => error);
+        })
+    );
+  }
+
   // Update existing offre-drogues
   update(id: number, data: {
     id?: number;
@@ -274,6 +367,35 @@ export class OffreDroguesService {
     );
   }
 
+  // Import entries from a CSV or XLSX file (row-level error report)
+  importFile(file: File): Observable<any> {
+    const formData = new FormData();
+    formData.append('file', file);
+
+    return this.http.post<any>(`${this.apiUrl}/offre-drogues/import`, formData, {
+      headers: this.authService.getAuthHeaders()
+    }).pipe(
+        catchError(error => {
+          console.error("Erreur lors de l'import:", error);
+          return throwError(() => error);
+        })
+    );
+  }
+
+  // Download the offre-drogues entries as an Excel workbook (streamed by the backend)
+  exportXlsx(startDate?: string, endDate?: string): Observable<Blob> {
+    const params = startDate && endDate ? `?startDate=${startDate}&endDate=${endDate}` : '';
+    return this.http.get(`${this.apiUrl}/offre-drogues/export.xlsx${params}`, {
+      headers: this.authService.getAuthHeaders(),
+      responseType: 'blob'
+    }).pipe(
+        catchError(error => {
+          console.error("Erreur lors de l'export:", error);
+          return throwError(() => error);
+        })
+    );
+  }
+
   // Delete offre-drogues
   delete(id: number): Observable<boolean> {
     return this.http.delete<boolean>(`${this.apiUrl}/offre-drogues/${id}`, {
@@ -298,23 +420,6 @@ export class OffreDroguesService {
     );
   }
 
-  /**
-   * Récupère les données détaillées pour une année spécifique
-   */
-  getDetailedDataForYear(year: number): Observable<any[]> {
-    const startDate = `${year}-01-01`;
-    const endDate = `${year}-12-31`;
-
-    return this.getByPeriod(startDate, endDate).pipe(
-        map(data => {
-          // Convertir les données en format détaillé pour les graphiques
-          return data.map(item => {
-            return this.getById(item.id).toPromise();
-          });
-        })
-    );
-  }
-
   private mapToCreateRequest(data: {
     id?: number;
     dateSaisie: string;
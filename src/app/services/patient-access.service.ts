@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable, throwError } from 'rxjs';
-import { catchError } from 'rxjs/operators';
+import { Observable, of, throwError } from 'rxjs';
+import { catchError, map } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
 import { AuthService } from './auth.service';
 
@@ -31,10 +31,12 @@ export class PatientAccessService {
   }
 
   /**
-   * Récupère les demandes d'accès envoyées par l'utilisateur courant
+   * Récupère une page des demandes d'accès envoyées par l'utilisateur courant
+   * (content, totalElements, totalPages, number)
    */
-  getMyRequests(): Observable<any[]> {
-    return this.http.get<any[]>(`${this.apiUrl}/patient-access/my-requests`, {
+  getMyRequests(status?: string, page: number = 0, size: number = 20): Observable<any> {
+    const statusParam = status ? `&status=${status}` : '';
+    return this.http.get<any>(`${this.apiUrl}/patient-access/my-requests?page=${page}&size=${size}${statusParam}`, {
       headers: this.authService.getAuthHeaders()
     }).pipe(
       catchError(error => {
@@ -45,10 +47,12 @@ export class PatientAccessService {
   }
 
   /**
-   * Récupère les demandes d'accès reçues par l'utilisateur courant
+   * Récupère une page des demandes d'accès reçues par l'utilisateur courant
+   * (content, totalElements, totalPages, number)
    */
-  getReceivedRequests(): Observable<any[]> {
-    return this.http.get<any[]>(`${this.apiUrl}/patient-access/received-requests`, {
+  getReceivedRequests(status?: string, page: number = 0, size: number = 20): Observable<any> {
+    const statusParam = status ? `&status=${status}` : '';
+    return this.http.get<any>(`${this.apiUrl}/patient-access/received-requests?page=${page}&size=${size}${statusParam}`, {
       headers: this.authService.getAuthHeaders()
     }).pipe(
       catchError(error => {
@@ -58,6 +62,39 @@ export class PatientAccessService {
     );
   }
 
+  /**
+   * Statut de la dernière demande d'accès de l'utilisateur courant pour chacun des patients donnés
+   */
+  getAccessStatuses(patientIds: number[]): Observable<{ [patientId: number]: string }> {
+    if (patientIds.length === 0) {
+      return of({});
+    }
+    return this.http.get<{ [patientId: number]: string }>(
+      `${this.apiUrl}/patient-access/statuses?patientIds=${patientIds.join(',')}`, {
+      headers: this.authService.getAuthHeaders()
+    }).pipe(
+      catchError(error => {
+        console.error('Erreur lors du chargement des statuts d\'accès:', error);
+        return throwError(() => error);
+      })
+    );
+  }
+
+  /**
+   * Nombre de demandes d'accès reçues en attente (badge)
+   */
+  getPendingCount(): Observable<number> {
+    return this.http.get<any>(`${this.apiUrl}/patient-access/received-requests/pending-count`, {
+      headers: this.authService.getAuthHeaders()
+    }).pipe(
+      map(result => result.count),
+      catchError(error => {
+        console.error('Erreur lors du chargement du nombre de demandes en attente:', error);
+        return throwError(() => error);
+      })
+    );
+  }
+
   /**
    * Approuve une demande d'accès
    */
@@ -52,21 +52,20 @@ export class PatientService {
     }
 
     /**
-     * Recherche des patients dans d'autres structures (accès limité)
+     * Recherche des patients dans d'autres structures (accès limité) ; renvoie une page
+     * (content, totalElements, totalPages, number)
      */
-    searchPatientsExternal(codePatient?: string, structureId?: string): Observable<any[]> {
+    searchPatientsExternal(codePatient?: string, structureId?: string, page: number = 0, size: number = 20): Observable<any> {
         let url = `${this.apiUrl}/patients/external-search`;
         
         // Ajouter les paramètres de recherche
-        const params: string[] = [];
+        const params: string[] = [`page=${page}`, `size=${size}`];
         if (codePatient) params.push(`codePatient=${encodeURIComponent(codePatient)}`);
         if (structureId) params.push(`structureId=${structureId}`);
         
-        if (params.length > 0) {
-            url += `?${params.join('&')}`;
-        }
+        url += `?${params.join('&')}`;
 
-        return this.http.get<any[]>(url, {
+        return this.http.get<any>(url, {
             headers: this.authService.getAuthHeaders()
         }).pipe(
             catchError(error => {
@@ -76,6 +75,20 @@ export class PatientService {
         );
     }
 
+    /**
+     * Récupère les champs stables de la dernière visite du patient (pré-remplissage)
+     */
+    getPrefill(patientId: number): Observable<any> {
+        return this.http.get<any>(`${this.apiUrl}/patients/${patientId}/prefill`, {
+            headers: this.authService.getAuthHeaders()
+        }).pipe(
+            catchError(error => {
+                console.error('Erreur lors du pré-remplissage du formulaire:', error);
+                return throwError(() => error);
+            })
+        );
+    }
+
     /**
      * Crée un nouveau patient dans la structure actuelle en référençant un patient d'une autre structure
      */
@@ -22,6 +22,10 @@ import java.util.Map;
 import java.util.List;
 import tn.gov.ms.sidra.security.JwtTokenProvider;
 import tn.gov.ms.sidra.security.CustomUserDetailsService;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.security.TokenRevocationList;
+import tn.gov.ms.sidra.security.UserSnapshotCache;
+import tn.gov.ms.sidra.security.VerifiedToken;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -29,10 +33,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final UserSnapshotCache userSnapshotCache;
+    private final TokenRevocationList tokenRevocationList;
 
-    public WebSocketConfig(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService userDetailsService) {
+    public WebSocketConfig(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService userDetailsService,
+                           UserSnapshotCache userSnapshotCache, TokenRevocationList tokenRevocationList) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.userSnapshotCache = userSnapshotCache;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @Override
@@ -65,13 +74,22 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
             String token = extractTokenFromRequest(request);
 
-            if (token != null && jwtTokenProvider.validateToken(token)) {
+            // Une seule vérification du token pour toute la poignée de main
+            VerifiedToken verified = token != null ? jwtTokenProvider.verify(token) : null;
+
+            if (verified != null) {
                 try {
-                    String username = jwtTokenProvider.getUsernameFromToken(token);
-                    Long userId = jwtTokenProvider.getUserIdFromToken(token);
+                    String username = verified.username();
+                    Long userId = verified.userId();
 
                     // Load user details to get roles/authorities
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    User userDetails = userId != null
+                            ? userSnapshotCache.get(userId)
+                            : (User) userDetailsService.loadUserByUsername(username);
+                    if (userDetails == null || !userDetails.getUsername().equals(username) || !userDetails.isEnabled()
+                            || tokenRevocationList.isRevoked(verified, userDetails)) {
+                        return false;
+                    }
 
                     // 🔐 Vérifie si l'utilisateur a le rôle SUPER_ADMINISTRATEUR
                     boolean hasSuperAdminRole = userDetails.getAuthorities().stream()
@@ -91,6 +109,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                     attributes.put("username", username);
                     attributes.put("userId", userId);
+                    attributes.put("userDetails", userDetails);
                     attributes.put("authenticated", true);
 
                     return true;
@@ -140,18 +159,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         @Override
         protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
                                           Map<String, Object> attributes) {
-            String username = (String) attributes.get("username");
+            UserDetails userDetails = (UserDetails) attributes.get("userDetails");
             Boolean authenticated = (Boolean) attributes.get("authenticated");
 
-            if (username != null && Boolean.TRUE.equals(authenticated)) {
-                try {
-                    // Load user details to get proper authorities
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                    return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                } catch (Exception e) {
-                    System.err.println("Error loading user details in handshake: " + e.getMessage());
-                }
+            if (userDetails != null && Boolean.TRUE.equals(authenticated)) {
+                // Utilisateur déjà chargé par l'intercepteur
+                return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             }
             return null;
         }
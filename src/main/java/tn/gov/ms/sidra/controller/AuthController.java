@@ -119,19 +119,11 @@ public class AuthController {
     }
 
     /**
-     * Extrait l'adresse IP du client
+     * Adresse IP du client. Les en-têtes X-Forwarded-For / X-Real-IP ne sont pas lus ici : le client
+     * les choisit librement. Derrière un proxy de confiance, Tomcat remplace l'adresse distante par
+     * celle qu'il transmet (server.forward-headers-strategy).
      */
     private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-
         return request.getRemoteAddr();
     }
 
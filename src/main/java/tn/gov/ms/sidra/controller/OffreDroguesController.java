@@ -1,20 +1,41 @@
 package tn.gov.ms.sidra.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.gov.ms.sidra.config.AsyncTimeoutConfig;
 import tn.gov.ms.sidra.dto.offredrogues.MonthlySubstancesDto;
+import tn.gov.ms.sidra.dto.offredrogues.ColumnarSnapshotStatsDto;
+import tn.gov.ms.sidra.dto.offredrogues.ComplianceReportDto;
+import tn.gov.ms.sidra.dto.offredrogues.CreateOffreDroguesBatchRequest;
 import tn.gov.ms.sidra.dto.offredrogues.CreateOffreDroguesRequest;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesAggregateDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesComparisonDto;
 import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesImportResultDto;
 import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesListDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesSeriesDto;
+import tn.gov.ms.sidra.dto.offredrogues.SociodemographicAggregateDto;
 import tn.gov.ms.sidra.dto.offredrogues.UpdateOffreDroguesRequest;
 import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.service.OffreDroguesComplianceService;
+import tn.gov.ms.sidra.service.OffreDroguesExportService;
+import tn.gov.ms.sidra.service.OffreDroguesImportService;
+import tn.gov.ms.sidra.service.OffreDroguesSeriesService;
 import tn.gov.ms.sidra.service.OffreDroguesService;
 
 import java.time.LocalDate;
@@ -28,27 +49,36 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200/", maxAge = 3600)
 public class OffreDroguesController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OffreDroguesService offreDroguesService;
+    private final OffreDroguesSeriesService offreDroguesSeriesService;
+    private final OffreDroguesImportService offreDroguesImportService;
+    private final OffreDroguesComplianceService offreDroguesComplianceService;
+    private final OffreDroguesExportService offreDroguesExportService;
 
     /**
      * Récupère toutes les données d'offre de drogues selon les permissions
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR', 'EXTERNE')")
-    public ResponseEntity<List<OffreDroguesListDto>> getAllOffresDrogues(
+    public ResponseEntity<Page<OffreDroguesListDto>> getAllOffresDrogues(
             @AuthenticationPrincipal User currentUser,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
 
-        log.info("Récupération des données d'offre de drogues - utilisateur: {}, période: {} - {}",
-                currentUser.getEmail(), startDate, endDate);
+        log.info("Récupération des données d'offre de drogues - utilisateur: {}, période: {} - {}, page: {}",
+                currentUser.getEmail(), startDate, endDate, page);
 
-        List<OffreDroguesListDto> offresDrogues;
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        Page<OffreDroguesListDto> offresDrogues;
 
         if (startDate != null && endDate != null) {
-            offresDrogues = offreDroguesService.getOffresDroguesByPeriod(startDate, endDate, currentUser);
+            offresDrogues = offreDroguesService.getOffresDroguesByPeriod(startDate, endDate, currentUser, pageable);
         } else {
-            offresDrogues = offreDroguesService.getAllOffresDrogues(currentUser);
+            offresDrogues = offreDroguesService.getAllOffresDrogues(currentUser, pageable);
         }
 
         return ResponseEntity.ok(offresDrogues);
@@ -99,6 +129,34 @@ public class OffreDroguesController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOffreDrogues);
     }
 
+    /**
+     * Crée en une seule requête les données d'offre de drogues de plusieurs jours
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('EXTERNE')")
+    public ResponseEntity<List<OffreDroguesDto>> createOffresDroguesBatch(
+            @Valid @RequestBody CreateOffreDroguesBatchRequest request,
+            @AuthenticationPrincipal User currentUser) {
+        log.info("Création groupée de données d'offre de drogues par l'utilisateur: {}", currentUser.getEmail());
+
+        List<OffreDroguesDto> createdOffresDrogues = offreDroguesService.createOffresDroguesBatch(request, currentUser);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdOffresDrogues);
+    }
+
+    /**
+     * Importe des saisies depuis un fichier CSV ou XLSX et renvoie le rapport ligne par ligne
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('EXTERNE')")
+    public ResponseEntity<OffreDroguesImportResultDto> importOffresDrogues(@RequestParam("file") MultipartFile file,
+                                                                           @AuthenticationPrincipal User currentUser) {
+        log.info("Import de données d'offre de drogues depuis le fichier {} par l'utilisateur: {}",
+                file.getOriginalFilename(), currentUser.getEmail());
+
+        OffreDroguesImportResultDto result = offreDroguesImportService.importFile(file, currentUser);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Met à jour une donnée d'offre de drogues existante
      */
@@ -152,4 +210,126 @@ public class OffreDroguesController {
         List<MonthlySubstancesDto> data = offreDroguesService.getMonthlySubstancesData(year, month, currentUser);
         return ResponseEntity.ok(data);
     }
+
+    /**
+     * Récupère une série temporelle agrégée (semaine, mois, trimestre, année) au format colonnes
+     */
+    @GetMapping("/series")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR', 'EXTERNE')")
+    public ResponseEntity<OffreDroguesSeriesDto> getSeries(
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(defaultValue = "none") String groupBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<String> metrics,
+            @AuthenticationPrincipal User currentUser) {
+
+        log.info("Récupération de la série {} par {} du {} au {} par l'utilisateur: {}",
+                granularity, groupBy, from, to, currentUser.getEmail());
+
+        OffreDroguesSeriesDto series = offreDroguesSeriesService.getSeries(granularity, groupBy, from, to, metrics, currentUser);
+        return ResponseEntity.ok(series);
+    }
+
+    /**
+     * Compare chaque période à la précédente (valeurs et variations de toutes les mesures)
+     */
+    @GetMapping("/comparison")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR', 'EXTERNE')")
+    public ResponseEntity<OffreDroguesComparisonDto> getComparison(
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<String> metrics,
+            @AuthenticationPrincipal User currentUser) {
+
+        log.info("Comparaison {} du {} au {} par l'utilisateur: {}", granularity, from, to, currentUser.getEmail());
+
+        return ResponseEntity.ok(offreDroguesSeriesService.getComparison(granularity, from, to, metrics, currentUser));
+    }
+
+    /**
+     * Récupère les répartitions sociodémographiques agrégées par période et par gouvernorat (pourcentages pondérés)
+     */
+    @GetMapping("/sociodemographics")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR', 'EXTERNE')")
+    public ResponseEntity<SociodemographicAggregateDto> getSociodemographics(
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(defaultValue = "gouvernorat") String groupBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<String> breakdowns,
+            @AuthenticationPrincipal User currentUser) {
+
+        log.info("Répartitions sociodémographiques {} par {} du {} au {} par l'utilisateur: {}",
+                granularity, groupBy, from, to, currentUser.getEmail());
+
+        return ResponseEntity.ok(offreDroguesSeriesService.getSociodemographics(
+                granularity, groupBy, from, to, breakdowns, currentUser));
+    }
+
+    /**
+     * Récupère les totaux par groupe sur une période, calculés sur la copie mémoire en colonnes
+     */
+    @GetMapping("/totals")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR', 'EXTERNE')")
+    public ResponseEntity<OffreDroguesAggregateDto> getTotals(
+            @RequestParam(defaultValue = "none") String groupBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<String> metrics,
+            @AuthenticationPrincipal User currentUser) {
+
+        log.info("Récupération des totaux par {} du {} au {} par l'utilisateur: {}",
+                groupBy, from, to, currentUser.getEmail());
+
+        return ResponseEntity.ok(offreDroguesSeriesService.getTotals(groupBy, from, to, metrics, currentUser));
+    }
+
+    /**
+     * Exporte les données d'offre de drogues selon les permissions au format Excel, en flux
+     */
+    @GetMapping("/export.xlsx")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR', 'EXTERNE')")
+    public ResponseEntity<StreamingResponseBody> exportXlsx(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            HttpServletRequest request) {
+
+        log.info("Export Excel de l'offre de drogues - utilisateur: {}, période: {} - {}",
+                currentUser.getEmail(), startDate, endDate);
+
+        StreamingResponseBody body = offreDroguesExportService.exportXlsx(startDate, endDate, currentUser);
+        request.setAttribute(AsyncTimeoutConfig.TIMEOUT_ATTRIBUTE, offreDroguesExportService.getTimeoutMillis());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"offre-drogues.xlsx\"")
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
+
+    /**
+     * Liste les jours sans saisie de chaque déclarant sur une période
+     */
+    @GetMapping("/compliance")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR', 'EXTERNE')")
+    public ResponseEntity<List<ComplianceReportDto>> getCompliance(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "true") boolean onlyMissing,
+            @AuthenticationPrincipal User currentUser) {
+
+        log.info("Complétude des déclarations du {} au {} par l'utilisateur: {}", from, to, currentUser.getEmail());
+
+        return ResponseEntity.ok(offreDroguesComplianceService.getCompliance(from, to, onlyMissing, currentUser));
+    }
+
+    /**
+     * Récupère la taille et l'empreinte mémoire de la copie en colonnes
+     */
+    @GetMapping("/snapshot-stats")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ColumnarSnapshotStatsDto> getSnapshotStats() {
+        return ResponseEntity.ok(offreDroguesSeriesService.getSnapshotStats());
+    }
 }
@@ -1,12 +1,18 @@
 package tn.gov.ms.sidra.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import tn.gov.ms.sidra.dto.patientaccess.AccessRequestDto;
+import tn.gov.ms.sidra.dto.patientaccess.BulkAccessRequestResultDto;
+import tn.gov.ms.sidra.dto.patientaccess.BulkPatientAccessRequestDto;
 import tn.gov.ms.sidra.dto.patientaccess.PatientAccessRequestDto;
 import tn.gov.ms.sidra.entity.User;
 import tn.gov.ms.sidra.service.PatientAccessService;
@@ -21,6 +27,8 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200/", maxAge = 3600)
 public class PatientAccessController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PatientAccessService patientAccessService;
 
     /**
@@ -39,15 +47,35 @@ public class PatientAccessController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Demande l'accès à plusieurs patients en une seule fois
+     */
+    @PostMapping("/request/bulk")
+    @PreAuthorize("hasRole('UTILISATEUR')")
+    public ResponseEntity<BulkAccessRequestResultDto> requestAccessBulk(
+            @Valid @RequestBody BulkPatientAccessRequestDto request,
+            @AuthenticationPrincipal User currentUser) {
+
+        log.info("Demande d'accès groupée à {} patient(s) par l'utilisateur: {}",
+                request.getPatientIds().size(), currentUser.getEmail());
+
+        BulkAccessRequestResultDto result = patientAccessService.requestAccessBulk(request.getPatientIds(), currentUser);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Récupère les demandes d'accès envoyées par l'utilisateur courant
      */
     @GetMapping("/my-requests")
     @PreAuthorize("hasRole('UTILISATEUR')")
-    public ResponseEntity<List<AccessRequestDto>> getMyRequests(@AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<Page<AccessRequestDto>> getMyRequests(
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal User currentUser) {
         log.info("Récupération des demandes d'accès envoyées par l'utilisateur: {}", currentUser.getEmail());
         
-        List<AccessRequestDto> requests = patientAccessService.getRequestsByUser(currentUser);
+        Page<AccessRequestDto> requests = patientAccessService.getRequestsByUser(currentUser, status, pageRequest(page, size));
         return ResponseEntity.ok(requests);
     }
 
@@ -56,13 +84,38 @@ public class PatientAccessController {
      */
     @GetMapping("/received-requests")
     @PreAuthorize("hasRole('UTILISATEUR')")
-    public ResponseEntity<List<AccessRequestDto>> getReceivedRequests(@AuthenticationPrincipal User currentUser) {
+    public ResponseEntity<Page<AccessRequestDto>> getReceivedRequests(
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal User currentUser) {
         log.info("Récupération des demandes d'accès reçues par l'utilisateur: {}", currentUser.getEmail());
         
-        List<AccessRequestDto> requests = patientAccessService.getReceivedRequests(currentUser);
+        Page<AccessRequestDto> requests = patientAccessService.getReceivedRequests(currentUser, status, pageRequest(page, size));
         return ResponseEntity.ok(requests);
     }
 
+    /**
+     * Nombre de demandes d'accès reçues en attente (badge)
+     */
+    @GetMapping("/received-requests/pending-count")
+    @PreAuthorize("hasRole('UTILISATEUR')")
+    public ResponseEntity<Map<String, Long>> getPendingCount(@AuthenticationPrincipal User currentUser) {
+        long count = patientAccessService.countPendingReceivedRequests(currentUser);
+        return ResponseEntity.ok(Map.of("count", count));
+    }
+
+    /**
+     * Statut des demandes d'accès de l'utilisateur courant pour une liste de patients (résultats de recherche)
+     */
+    @GetMapping("/statuses")
+    @PreAuthorize("hasRole('UTILISATEUR')")
+    public ResponseEntity<Map<Long, String>> getAccessStatuses(
+            @RequestParam List<Long> patientIds,
+            @AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(patientAccessService.getAccessStatuses(currentUser, patientIds));
+    }
+
     /**
      * Approuve une demande d'accès
      */
@@ -126,4 +179,8 @@ public class PatientAccessController {
         Map<String, Object> result = patientAccessService.checkAccess(patientId, currentUser);
         return ResponseEntity.ok(result);
     }
+
+    private Pageable pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
 }
\ No newline at end of file
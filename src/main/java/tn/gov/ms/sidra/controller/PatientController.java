@@ -2,11 +2,15 @@ package tn.gov.ms.sidra.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
   import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.service.FormulairePrefillDto;
 import tn.gov.ms.sidra.service.PatientDto;
 import tn.gov.ms.sidra.service.PatientService;
 
@@ -20,6 +24,8 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200/", maxAge = 3600)
 public class PatientController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PatientService patientService;
 
     /**
@@ -46,19 +52,22 @@ public class PatientController {
     }
 
     /**
-     * Recherche des patients dans d'autres structures (accès limité)
+     * Recherche des patients dans d'autres structures (accès limité, paginé)
      */
     @GetMapping("/external-search")
     @PreAuthorize("hasRole('UTILISATEUR')")
-    public ResponseEntity<List<PatientDto>> searchPatientsExternal(
+    public ResponseEntity<Page<PatientDto>> searchPatientsExternal(
             @RequestParam(required = false) String codePatient,
             @RequestParam(required = false) Long structureId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal User currentUser) {
         
-        log.info("Recherche externe de patients - utilisateur: {}, code: {}, structureId: {}", 
-                currentUser.getEmail(), codePatient, structureId);
+        log.info("Recherche externe de patients - utilisateur: {}, code: {}, structureId: {}, page: {}, size: {}", 
+                currentUser.getEmail(), codePatient, structureId, page, size);
 
-        List<PatientDto> patients = patientService.searchPatientsExternal(codePatient, structureId, currentUser);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        Page<PatientDto> patients = patientService.searchPatientsExternal(codePatient, structureId, currentUser, pageable);
         return ResponseEntity.ok(patients);
     }
 
@@ -94,4 +103,21 @@ public class PatientController {
         PatientDto patient = patientService.getPatientById(id, currentUser);
         return ResponseEntity.ok(patient);
     }
+
+    /**
+     * Récupère les champs stables de la dernière visite d'un patient (pré-remplissage d'un nouveau formulaire)
+     */
+    @GetMapping("/{id}/prefill")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN_STRUCTURE', 'UTILISATEUR')")
+    public ResponseEntity<FormulairePrefillDto> getPrefill(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User currentUser) {
+
+        log.info("Pré-remplissage pour le patient ID: {} par l'utilisateur: {}",
+                id, currentUser.getEmail());
+
+        return patientService.getPrefill(id, currentUser)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
 }
\ No newline at end of file
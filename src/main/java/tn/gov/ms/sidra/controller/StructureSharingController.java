@@ -0,0 +1,61 @@
+package tn.gov.ms.sidra.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import tn.gov.ms.sidra.dto.sharing.CreateStructureSharingRequest;
+import tn.gov.ms.sidra.dto.sharing.StructureSharingAgreementDto;
+import tn.gov.ms.sidra.service.StructureSharingService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/structure-sharing")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "http://localhost:4200/", maxAge = 3600)
+public class StructureSharingController {
+
+    private final StructureSharingService structureSharingService;
+
+    /**
+     * Récupère les conventions de partage actives
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<StructureSharingAgreementDto>> getActiveAgreements() {
+        log.info("Récupération des conventions de partage entre structures");
+
+        return ResponseEntity.ok(structureSharingService.getActiveAgreements());
+    }
+
+    /**
+     * Crée une convention de partage entre deux structures
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<StructureSharingAgreementDto>> createAgreement(
+            @Valid @RequestBody CreateStructureSharingRequest request) {
+        log.info("Création d'une convention de partage: {} -> {}",
+                request.getStructureProprietaireId(), request.getStructureBeneficiaireId());
+
+        List<StructureSharingAgreementDto> created = structureSharingService.createAgreement(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+
+    /**
+     * Révoque une convention de partage
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Void> revokeAgreement(@PathVariable Long id) {
+        log.info("Révocation de la convention de partage ID: {}", id);
+
+        structureSharingService.revokeAgreement(id);
+        return ResponseEntity.noContent().build();
+    }
+}
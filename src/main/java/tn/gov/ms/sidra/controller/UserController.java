@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import tn.gov.ms.sidra.dto.auth.PasswordHashingStatsDto;
 import tn.gov.ms.sidra.dto.user.CreateUserRequest;
 import tn.gov.ms.sidra.dto.user.UpdateUserRequest;
 import tn.gov.ms.sidra.dto.user.UserDto;
@@ -128,6 +129,15 @@ public class UserController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Récupère les statistiques du pool de hachage des mots de passe
+     */
+    @GetMapping("/password-hashing-stats")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<PasswordHashingStatsDto> getPasswordHashingStats() {
+        return ResponseEntity.ok(userService.getPasswordHashingStats());
+    }
+
     /**
      * Récupère les informations de structure de l'utilisateur connecté
      */
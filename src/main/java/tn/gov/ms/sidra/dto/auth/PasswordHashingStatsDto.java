@@ -0,0 +1,18 @@
+package tn.gov.ms.sidra.dto.auth;
+
+import lombok.Data;
+
+@Data
+public class PasswordHashingStatsDto {
+    private int bcryptStrength;
+    private int threads;
+    private int queueCapacity;
+    private int queued;
+    private int active;
+    private long completed;
+    private long rejected;
+    private long failed;
+    private double averageHashMillis;
+    private double maxHashMillis;
+    private double averageWaitMillis;
+}
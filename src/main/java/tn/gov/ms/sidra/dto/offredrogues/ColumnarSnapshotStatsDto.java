@@ -0,0 +1,17 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ColumnarSnapshotStatsDto {
+    private int rows;
+    private int columns;
+    private int structures;
+    private int gouvernorats;
+    private int pendingChanges;
+    private long heapBytes;
+    private LocalDateTime loadedAt;
+    private LocalDateTime mergedAt;
+}
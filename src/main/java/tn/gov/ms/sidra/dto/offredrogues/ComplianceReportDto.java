@@ -0,0 +1,39 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ComplianceReportDto {
+    private Long utilisateurId;
+    private String nom;
+    private String prenom;
+    private Long structureId;
+    private String structureNom;
+    private int joursAttendus;
+    private int nombreJoursManquants;
+    private List<LocalDate> joursManquants = new ArrayList<>();
+
+    @JsonIgnore
+    private LocalDate debutDeclaration;
+
+    /**
+     * Constructeur de projection JPQL des déclarants
+     */
+    public ComplianceReportDto(Long utilisateurId, String nom, String prenom, LocalDateTime dateCreation,
+                               Long structureId, String structureNom) {
+        this.utilisateurId = utilisateurId;
+        this.nom = nom;
+        this.prenom = prenom;
+        this.debutDeclaration = dateCreation != null ? dateCreation.toLocalDate() : null;
+        this.structureId = structureId;
+        this.structureNom = structureNom;
+    }
+}
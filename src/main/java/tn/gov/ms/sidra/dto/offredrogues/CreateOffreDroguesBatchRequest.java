@@ -0,0 +1,16 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CreateOffreDroguesBatchRequest {
+
+    // Une saisie par jour de la période à rattraper
+    @NotEmpty(message = "Au moins une saisie est obligatoire")
+    @Valid
+    private List<CreateOffreDroguesRequest> saisies;
+}
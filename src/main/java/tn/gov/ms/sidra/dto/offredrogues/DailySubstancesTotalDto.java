@@ -0,0 +1,24 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totaux d'une journée lus depuis les agrégats journaliers
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySubstancesTotalDto {
+    private LocalDate jour;
+    private Double cannabis;
+    private Long comprimesTableauA;
+    private Long ecstasyComprime;
+    private Double ecstasyPoudre;
+    private Long subutex;
+    private Double cocaine;
+    private Double heroine;
+}
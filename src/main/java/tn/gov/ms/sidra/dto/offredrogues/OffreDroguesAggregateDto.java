@@ -0,0 +1,27 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totaux par groupe sur une période, au format colonnes : la i-ème valeur de chaque
+ * colonne correspond au i-ème groupe (une seule valeur sans regroupement)
+ */
+@Data
+public class OffreDroguesAggregateDto {
+
+    private SeriesGroupBy groupBy;
+    private LocalDate from;
+    private LocalDate to;
+    private List<Long> groupes;
+    private Map<Long, String> libelles;
+
+    /**
+     * Une colonne par mesure : long[] pour les effectifs, double[] pour les quantités
+     */
+    private Map<String, Object> valeurs = new LinkedHashMap<>();
+}
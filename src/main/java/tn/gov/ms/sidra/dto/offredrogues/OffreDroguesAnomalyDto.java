@@ -0,0 +1,23 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OffreDroguesAnomalyDto {
+    private Long offreDroguesId;
+    private Long utilisateurId;
+    private Long structureId;
+    private String structureNom;
+    private LocalDate dateSaisie;
+    private String substance;
+    private double valeur;
+    private double moyenne;
+    private double ecartType;
+    private double score;
+}
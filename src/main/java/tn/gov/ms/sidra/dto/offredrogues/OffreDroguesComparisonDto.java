@@ -0,0 +1,29 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparaison de périodes consécutives au format colonnes : pour chaque période complète,
+ * la valeur de chaque mesure et sa variation par rapport à la période précédente.
+ * Les périodes sans saisie sont présentes avec des valeurs nulles.
+ */
+@Data
+public class OffreDroguesComparisonDto {
+
+    private SeriesGranularity granularity;
+    private LocalDate from;
+    private LocalDate to;
+    private List<LocalDate> periodes = new ArrayList<>();
+
+    /**
+     * Une colonne par mesure : long[] pour les effectifs, double[] pour les quantités
+     */
+    private Map<String, Object> valeurs = new LinkedHashMap<>();
+    private Map<String, Object> variations = new LinkedHashMap<>();
+}
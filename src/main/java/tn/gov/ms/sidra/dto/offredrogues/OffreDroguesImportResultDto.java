@@ -0,0 +1,27 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class OffreDroguesImportResultDto {
+    private int lignesLues;
+    private int importees;
+    private int rejetees;
+    private List<RowErrorDto> erreurs = new ArrayList<>();
+    private boolean erreursTronquees;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowErrorDto {
+        private int ligne;
+        private String colonne;
+        private String message;
+    }
+}
@@ -1,11 +1,14 @@
 package tn.gov.ms.sidra.dto.offredrogues;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.gov.ms.sidra.entity.TypeStructure;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class OffreDroguesListDto {
 
     private Long id;
@@ -14,6 +17,27 @@ public class OffreDroguesListDto {
     private UtilisateurDto utilisateur;
     private LocalDateTime dateCreation;
 
+    /**
+     * Constructeur de projection JPQL pour la liste paginée
+     */
+    public OffreDroguesListDto(Long id, LocalDate dateSaisie, Long structureId, String structureNom,
+                               TypeStructure structureType, Long utilisateurId, String utilisateurNom,
+                               String utilisateurPrenom, LocalDateTime dateCreation) {
+        this.id = id;
+        this.dateSaisie = dateSaisie;
+        this.dateCreation = dateCreation;
+        if (structureId != null) {
+            this.structure = new StructureDto();
+            this.structure.setId(structureId);
+            this.structure.setNom(structureNom);
+            this.structure.setType(structureType != null ? structureType.getLabel() : null);
+        }
+        this.utilisateur = new UtilisateurDto();
+        this.utilisateur.setId(utilisateurId);
+        this.utilisateur.setNom(utilisateurNom);
+        this.utilisateur.setPrenom(utilisateurPrenom);
+    }
+
     @Data
     public static class StructureDto {
         private Long id;
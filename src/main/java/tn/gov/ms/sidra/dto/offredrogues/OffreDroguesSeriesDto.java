@@ -0,0 +1,31 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Série temporelle au format colonnes : la i-ème valeur de chaque colonne correspond
+ * à la i-ème période (et au i-ème groupe si un regroupement est demandé).
+ * Les périodes sans saisie sont absentes.
+ */
+@Data
+public class OffreDroguesSeriesDto {
+
+    private SeriesGranularity granularity;
+    private SeriesGroupBy groupBy;
+    private LocalDate from;
+    private LocalDate to;
+    private List<LocalDate> periodes = new ArrayList<>();
+    private List<Long> groupes;
+    private Map<Long, String> libelles;
+
+    /**
+     * Une colonne par mesure : long[] pour les effectifs, double[] pour les quantités
+     */
+    private Map<String, Object> valeurs = new LinkedHashMap<>();
+}
@@ -0,0 +1,54 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Granularité temporelle des séries, alignée sur {@code date_trunc} de PostgreSQL
+ */
+public enum SeriesGranularity {
+    WEEK("week", "1 week"),
+    MONTH("month", "1 month"),
+    QUARTER("quarter", "3 months"),
+    YEAR("year", "1 year");
+
+    private final String sqlUnit;
+    private final String sqlInterval;
+
+    SeriesGranularity(String sqlUnit, String sqlInterval) {
+        this.sqlUnit = sqlUnit;
+        this.sqlInterval = sqlInterval;
+    }
+
+    public String getSqlUnit() {
+        return sqlUnit;
+    }
+
+    public String getSqlInterval() {
+        return sqlInterval;
+    }
+
+    /**
+     * Début de la période contenant la date (semaine ISO commençant le lundi)
+     */
+    public LocalDate truncate(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+            case QUARTER -> date.withMonth(((date.getMonthValue() - 1) / 3) * 3 + 1).withDayOfMonth(1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+
+    /**
+     * Début de la période suivante (ou précédente avec un pas négatif)
+     */
+    public LocalDate shift(LocalDate periodStart, int periods) {
+        return switch (this) {
+            case WEEK -> periodStart.plusWeeks(periods);
+            case MONTH -> periodStart.plusMonths(periods);
+            case QUARTER -> periodStart.plusMonths(3L * periods);
+            case YEAR -> periodStart.plusYears(periods);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+/**
+ * Dimension de regroupement des séries
+ */
+public enum SeriesGroupBy {
+    NONE,
+    STRUCTURE,
+    GOUVERNORAT
+}
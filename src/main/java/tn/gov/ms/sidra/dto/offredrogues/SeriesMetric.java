@@ -0,0 +1,83 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mesures agrégeables des saisies d'offre de drogues et colonnes SQL correspondantes
+ */
+public enum SeriesMetric {
+    SAISIES("saisies", null, true),
+    CANNABIS("cannabis", "cannabis", false),
+    COMPRIMES_TABLEAU_A("comprimesTableauA", "comprimes_tableau_a", true),
+    ECSTASY_COMPRIME("ecstasyComprime", "ecstasy_comprime", true),
+    ECSTASY_POUDRE("ecstasyPoudre", "ecstasy_poudre", false),
+    SUBUTEX("subutex", "subutex", true),
+    COCAINE("cocaine", "cocaine", false),
+    HEROINE("heroine", "heroine", false),
+    CONSOMMATEUR("consommateurNombre", "consommateur_nombre", true),
+    VENDEUR("vendeurNombre", "vendeur_nombre", true),
+    TRAFIQUANT("trafiquantNombre", "trafiquant_nombre", true),
+    MASCULIN("masculinNombre", "masculin_nombre", true),
+    FEMININ("femininNombre", "feminin_nombre", true),
+    MOINS_12_ANS("moins12ansNombre", "moins12ans_nombre", true),
+    MOINS_18_ANS("moins18ansNombre", "moins18ans_nombre", true),
+    ENTRE_18_ET_40("entre18et40Nombre", "entre18et40_nombre", true),
+    PLUS_40_ANS("plus40ansNombre", "plus40ans_nombre", true),
+    TUNISIENNE("tunisienneNombre", "tunisienne_nombre", true),
+    MAGHREBINE("maghrebineNombre", "maghrebine_nombre", true),
+    AUTRES_NATIONALITE("autresNationaliteNombre", "autres_nationalite_nombre", true),
+    CELIBATAIRE("celibataireNombre", "celibataire_nombre", true),
+    MARIE("marieNombre", "marie_nombre", true),
+    DIVORCE("divorceNombre", "divorce_nombre", true),
+    VEUF("veufNombre", "veuf_nombre", true),
+    ELEVE("eleveNombre", "eleve_nombre", true),
+    ETUDIANT("etudiantNombre", "etudiant_nombre", true),
+    OUVRIER("ouvrierNombre", "ouvrier_nombre", true),
+    FONCTIONNAIRE("fonctionnaireNombre", "fonctionnaire_nombre", true),
+    CARTE_INDIGENT("carteIndigentNombre", "carte_indigent_nombre", true),
+    CARNET_CNAM_PUBLIQUE("carnetCnamPubliqueNombre", "carnet_cnam_publique_nombre", true),
+    CARNET_CNAM_FAMILLE("carnetCnamFamilleNombre", "carnet_cnam_famille_nombre", true),
+    CARNET_CNAM_REMBOURSEMENT("carnetCnamRemboursementNombre", "carnet_cnam_remboursement_nombre", true);
+
+    private static final Map<String, SeriesMetric> BY_KEY = Arrays.stream(values())
+            .collect(Collectors.toMap(SeriesMetric::getKey, Function.identity()));
+
+    private final String key;
+    private final String column;
+    private final boolean integral;
+
+    SeriesMetric(String key, String column, boolean integral) {
+        this.key = key;
+        this.column = column;
+        this.integral = integral;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Colonne de la table offre_drogues, ou null pour le nombre de saisies
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    /**
+     * Expression SQL d'agrégation de la mesure
+     */
+    public String sqlAggregate() {
+        return column == null ? "COUNT(*)" : "COALESCE(SUM(o." + column + "), 0)";
+    }
+
+    public static SeriesMetric fromKey(String key) {
+        return BY_KEY.get(key);
+    }
+}
@@ -0,0 +1,39 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Répartitions sociodémographiques agrégées au format colonnes : une ligne par (période, groupe),
+ * puis pour chaque répartition les effectifs sommés et les pourcentages pondérés recalculés
+ * (effectif de la catégorie / total de la répartition), alignés sur ces lignes.
+ */
+@Data
+public class SociodemographicAggregateDto {
+
+    private SeriesGranularity granularity;
+    private SeriesGroupBy groupBy;
+    private LocalDate from;
+    private LocalDate to;
+    private List<LocalDate> periodes = new ArrayList<>();
+
+    /**
+     * Identifiant du groupe de chaque ligne (null sans regroupement ou pour les saisies sans structure)
+     */
+    private List<Long> groupes;
+    private Map<Long, String> libelles;
+
+    private Map<String, RepartitionDto> repartitions = new LinkedHashMap<>();
+
+    @Data
+    public static class RepartitionDto {
+        private long[] totaux;
+        private Map<String, long[]> nombres = new LinkedHashMap<>();
+        private Map<String, double[]> pourcentages = new LinkedHashMap<>();
+    }
+}
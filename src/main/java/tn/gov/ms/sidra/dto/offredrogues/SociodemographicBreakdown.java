@@ -0,0 +1,47 @@
+package tn.gov.ms.sidra.dto.offredrogues;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Répartitions des personnes inculpées : chaque répartition regroupe les effectifs de ses catégories,
+ * dont la somme sert de dénominateur aux pourcentages pondérés
+ */
+public enum SociodemographicBreakdown {
+    PERSONNES_INCULPEES("personnesInculpees",
+            SeriesMetric.CONSOMMATEUR, SeriesMetric.VENDEUR, SeriesMetric.TRAFIQUANT),
+    GENRE("genre", SeriesMetric.MASCULIN, SeriesMetric.FEMININ),
+    AGE("age", SeriesMetric.MOINS_12_ANS, SeriesMetric.MOINS_18_ANS, SeriesMetric.ENTRE_18_ET_40, SeriesMetric.PLUS_40_ANS),
+    NATIONALITE("nationalite", SeriesMetric.TUNISIENNE, SeriesMetric.MAGHREBINE, SeriesMetric.AUTRES_NATIONALITE),
+    ETAT_CIVIL("etatCivil", SeriesMetric.CELIBATAIRE, SeriesMetric.MARIE, SeriesMetric.DIVORCE, SeriesMetric.VEUF),
+    ETAT_PROFESSIONNEL("etatProfessionnel",
+            SeriesMetric.ELEVE, SeriesMetric.ETUDIANT, SeriesMetric.OUVRIER, SeriesMetric.FONCTIONNAIRE),
+    NIVEAU_SOCIOECONOMIQUE("niveauSocioeconomique", SeriesMetric.CARTE_INDIGENT, SeriesMetric.CARNET_CNAM_PUBLIQUE,
+            SeriesMetric.CARNET_CNAM_FAMILLE, SeriesMetric.CARNET_CNAM_REMBOURSEMENT);
+
+    private static final Map<String, SociodemographicBreakdown> BY_KEY = Arrays.stream(values())
+            .collect(Collectors.toMap(SociodemographicBreakdown::getKey, Function.identity()));
+
+    private final String key;
+    private final List<SeriesMetric> categories;
+
+    SociodemographicBreakdown(String key, SeriesMetric... categories) {
+        this.key = key;
+        this.categories = List.of(categories);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public List<SeriesMetric> getCategories() {
+        return categories;
+    }
+
+    public static SociodemographicBreakdown fromKey(String key) {
+        return BY_KEY.get(key);
+    }
+}
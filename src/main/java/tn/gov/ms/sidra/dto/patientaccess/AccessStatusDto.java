@@ -0,0 +1,20 @@
+package tn.gov.ms.sidra.dto.patientaccess;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.gov.ms.sidra.entity.PatientAccess;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection minimale d'une demande d'accès : patient, statut et date de création
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessStatusDto {
+    private Long patientId;
+    private PatientAccess.PatientAccessStatus status;
+    private LocalDateTime dateCreation;
+}
@@ -0,0 +1,34 @@
+package tn.gov.ms.sidra.dto.patientaccess;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAccessRequestResultDto {
+    private List<CreatedRequestDto> created = new ArrayList<>();
+    private List<SkippedPatientDto> skipped = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CreatedRequestDto {
+        private Long requestId;
+        private Long patientId;
+        private String patientCode;
+        private Long ownerId;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SkippedPatientDto {
+        private Long patientId;
+        private String raison;
+    }
+}
@@ -0,0 +1,14 @@
+package tn.gov.ms.sidra.dto.patientaccess;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkPatientAccessRequestDto {
+    @NotEmpty(message = "La liste des patients est obligatoire")
+    @Size(max = 500, message = "Au plus 500 patients par demande groupée")
+    private List<Long> patientIds;
+}
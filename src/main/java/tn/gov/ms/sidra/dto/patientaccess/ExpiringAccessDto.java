@@ -0,0 +1,21 @@
+package tn.gov.ms.sidra.dto.patientaccess;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection minimale d'une autorisation approuvée arrivant à expiration
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpiringAccessDto {
+    private Long id;
+    private Long requestorId;
+    private Long patientId;
+    private String patientCode;
+    private LocalDateTime dateExpiration;
+}
@@ -0,0 +1,25 @@
+package tn.gov.ms.sidra.dto.sharing;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class CreateStructureSharingRequest {
+
+    @NotNull(message = "La structure propriétaire est obligatoire")
+    private Long structureProprietaireId;
+
+    @NotNull(message = "La structure bénéficiaire est obligatoire")
+    private Long structureBeneficiaireId;
+
+    private LocalDate dateDebut;
+
+    private LocalDate dateFin;
+
+    /**
+     * Crée également la convention inverse (partage réciproque)
+     */
+    private boolean reciproque;
+}
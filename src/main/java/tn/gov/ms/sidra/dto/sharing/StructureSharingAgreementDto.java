@@ -0,0 +1,19 @@
+package tn.gov.ms.sidra.dto.sharing;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+public class StructureSharingAgreementDto {
+    private Long id;
+    private Long structureProprietaireId;
+    private String structureProprietaireNom;
+    private Long structureBeneficiaireId;
+    private String structureBeneficiaireNom;
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+    private Boolean actif;
+    private LocalDateTime dateCreation;
+}
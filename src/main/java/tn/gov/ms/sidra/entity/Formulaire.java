@@ -15,7 +15,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "formulaires")
+@Table(name = "formulaires", indexes = {
+        @Index(name = "idx_formulaires_patient_date", columnList = "patient_id, date_consultation, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
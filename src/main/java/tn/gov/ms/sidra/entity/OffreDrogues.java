@@ -11,7 +11,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "offre_drogues")
+@Table(name = "offre_drogues", indexes = {
+        @Index(name = "idx_offre_drogues_date", columnList = "date_saisie"),
+        @Index(name = "idx_offre_drogues_utilisateur_date", columnList = "utilisateur_id, date_saisie"),
+        @Index(name = "idx_offre_drogues_structure_date", columnList = "structure_id, date_saisie")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,44 @@
+package tn.gov.ms.sidra.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * État du détecteur d'anomalies pour une série (structure, substance) :
+ * nombre d'observations, moyenne et variance à pondération exponentielle (EWMA)
+ */
+@Entity
+@Table(name = "offre_drogues_detecteur_etat", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_offre_drogues_detecteur_serie", columnNames = {"structure_id", "substance"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OffreDroguesDetecteurEtat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "structure_id", nullable = false)
+    private Long structureId;
+
+    @Column(nullable = false, length = 40)
+    private String substance;
+
+    @Column(name = "nombre_observations", nullable = false)
+    private long nombreObservations;
+
+    @Column(nullable = false)
+    private double moyenne;
+
+    @Column(nullable = false)
+    private double variance;
+
+    @Column(name = "date_modification", nullable = false)
+    private LocalDateTime dateModification;
+}
@@ -0,0 +1,60 @@
+package tn.gov.ms.sidra.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totaux journaliers des quantités saisies par (jour, structure, gouvernorat),
+ * maintenus dans la même transaction que les saisies d'offre de drogues.
+ * Les identifiants de structure et de gouvernorat valent 0 lorsque la saisie n'en a pas.
+ */
+@Entity
+@Table(name = "offre_drogues_rollup_jour", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_offre_drogues_rollup_jour", columnNames = {"jour", "structure_id", "gouvernorat_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OffreDroguesRollupJour {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate jour;
+
+    @Column(name = "structure_id", nullable = false)
+    private Long structureId;
+
+    @Column(name = "gouvernorat_id", nullable = false)
+    private Long gouvernoratId;
+
+    @Column(name = "nombre_saisies", nullable = false)
+    private int nombreSaisies;
+
+    @Column(nullable = false)
+    private double cannabis;
+
+    @Column(name = "comprimes_tableau_a", nullable = false)
+    private long comprimesTableauA;
+
+    @Column(name = "ecstasy_comprime", nullable = false)
+    private long ecstasyComprime;
+
+    @Column(name = "ecstasy_poudre", nullable = false)
+    private double ecstasyPoudre;
+
+    @Column(nullable = false)
+    private long subutex;
+
+    @Column(nullable = false)
+    private double cocaine;
+
+    @Column(nullable = false)
+    private double heroine;
+}
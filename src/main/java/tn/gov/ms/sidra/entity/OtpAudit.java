@@ -0,0 +1,45 @@
+package tn.gov.ms.sidra.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace d'un code OTP clôturé (utilisé, bloqué ou expiré) lorsque les codes en cours sont gardés en mémoire ;
+ * le code lui-même n'est pas conservé
+ */
+@Entity
+@Table(name = "otp_audit", indexes = {
+        @Index(name = "idx_otp_audit_utilisateur", columnList = "utilisateur_id, date_emission")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtpAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "utilisateur_id", nullable = false)
+    private Long utilisateurId;
+
+    @Column(name = "adresse_ip")
+    private String adresseIp;
+
+    @Column(name = "date_emission", nullable = false)
+    private LocalDateTime dateEmission;
+
+    @Column(name = "date_cloture", nullable = false)
+    private LocalDateTime dateCloture;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OtpEtat etat;
+
+    @Column(name = "nombre_tentatives", nullable = false)
+    private Integer nombreTentatives;
+}
@@ -14,7 +14,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+        @Index(name = "idx_patients_structure", columnList = "structure_id, code_patient")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -8,7 +8,12 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "patient_access")
+@Table(name = "patient_access", indexes = {
+        @Index(name = "idx_patient_access_lookup", columnList = "patient_id, requestor_id, status"),
+        @Index(name = "idx_patient_access_expiration", columnList = "status, date_expiration"),
+        @Index(name = "idx_patient_access_requestor", columnList = "requestor_id, status, date_creation"),
+        @Index(name = "idx_patient_access_owner", columnList = "owner_id, status, date_creation")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -58,6 +63,7 @@ public class PatientAccess {
         PENDING,
         APPROVED,
         REJECTED,
-        CANCELLED
+        CANCELLED,
+        EXPIRED
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package tn.gov.ms.sidra.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token JWT révoqué avant son expiration (déconnexion) ; l'entrée peut être purgée une fois le token expiré
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expiration", columnList = "date_expiration")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String jti;
+
+    @Column(name = "utilisateur_id")
+    private Long utilisateurId;
+
+    @Column(name = "date_expiration", nullable = false)
+    private LocalDateTime dateExpiration;
+
+    @Column(name = "date_revocation", nullable = false)
+    private LocalDateTime dateRevocation;
+}
@@ -0,0 +1,18 @@
+package tn.gov.ms.sidra.entity;
+
+public enum SmsEtat {
+    EN_ATTENTE("En attente"),
+    EN_COURS("En cours d'envoi"),
+    ENVOYE("Envoyé"),
+    ECHEC("Échec");
+
+    private final String label;
+
+    SmsEtat(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
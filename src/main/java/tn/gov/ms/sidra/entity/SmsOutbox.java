@@ -0,0 +1,59 @@
+package tn.gov.ms.sidra.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * SMS à envoyer, enregistré dans la transaction qui le demande puis expédié par SmsOutboxDispatcher.
+ * Le texte est effacé une fois l'envoi terminé (envoyé ou abandonné) ; l'état de livraison est conservé.
+ */
+@Entity
+@Table(name = "sms_outbox", indexes = {
+        @Index(name = "idx_sms_outbox_etat_tentative", columnList = "etat, prochaine_tentative")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SmsOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String telephone;
+
+    @Column(length = 480)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SmsEtat etat = SmsEtat.EN_ATTENTE;
+
+    @Column(name = "nombre_tentatives", nullable = false)
+    private Integer nombreTentatives = 0;
+
+    @Column(name = "prochaine_tentative", nullable = false)
+    private LocalDateTime prochaineTentative;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_envoi")
+    private LocalDateTime dateEnvoi;
+
+    @Column(name = "derniere_erreur", length = 500)
+    private String derniereErreur;
+
+    @PrePersist
+    protected void onCreate() {
+        dateCreation = LocalDateTime.now();
+        if (prochaineTentative == null) {
+            prochaineTentative = dateCreation;
+        }
+    }
+}
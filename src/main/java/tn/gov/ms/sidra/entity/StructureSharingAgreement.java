@@ -0,0 +1,52 @@
+package tn.gov.ms.sidra.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Convention de partage : les utilisateurs de la structure bénéficiaire peuvent consulter
+ * les patients de la structure propriétaire, éventuellement sur une période limitée
+ */
+@Entity
+@Table(name = "structure_sharing_agreements", indexes = {
+        @Index(name = "idx_sharing_structures", columnList = "structure_proprietaire_id, structure_beneficiaire_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StructureSharingAgreement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "structure_proprietaire_id", nullable = false)
+    private Structure structureProprietaire;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "structure_beneficiaire_id", nullable = false)
+    private Structure structureBeneficiaire;
+
+    @Column(name = "date_debut")
+    private LocalDate dateDebut;
+
+    @Column(name = "date_fin")
+    private LocalDate dateFin;
+
+    @Column(nullable = false)
+    private Boolean actif = true;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    @PrePersist
+    protected void onCreate() {
+        dateCreation = LocalDateTime.now();
+    }
+}
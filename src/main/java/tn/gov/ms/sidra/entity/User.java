@@ -74,6 +74,10 @@ public class User implements UserDetails {
     @Column(name = "bloque_jusqu")
     private LocalDateTime bloqueJusqu;
 
+    // Les tokens émis avant cette date sont refusés (révocation de toutes les sessions)
+    @Column(name = "sessions_revoquees_avant")
+    private LocalDateTime sessionsRevoqueesAvant;
+
     @PrePersist
     protected void onCreate() {
         dateCreation = LocalDateTime.now();
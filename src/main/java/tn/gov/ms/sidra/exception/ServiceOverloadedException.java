@@ -0,0 +1,18 @@
+package tn.gov.ms.sidra.exception;
+
+/**
+ * Refus immédiat d'une requête lorsqu'une ressource bornée est saturée (réponse 503 avec Retry-After)
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
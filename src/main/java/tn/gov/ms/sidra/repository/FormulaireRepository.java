@@ -1,11 +1,13 @@
 package tn.gov.ms.sidra.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tn.gov.ms.sidra.entity.Formulaire;
 import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.service.FormulairePrefillDto;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,6 +27,16 @@ public interface FormulaireRepository extends JpaRepository<Formulaire, Long> {
     @Query("SELECT f FROM Formulaire f WHERE f.patient.id = :patientId ORDER BY f.dateConsultation DESC")
     List<Formulaire> findByPatientId(@Param("patientId") Long patientId);
 
+    /**
+     * Projection des champs stables des formulaires d'un patient, du plus récent au plus ancien.
+     * Appelée avec une page de taille 1 pour ne lire que la dernière visite.
+     */
+    @Query("SELECT new tn.gov.ms.sidra.service.FormulairePrefillDto(f.id, f.dateConsultation, f.nationalite, f.residence, " +
+            "f.gouvernoratResidence, f.delegationResidence, f.paysResidence, f.situationFamiliale, f.situationFamilialeAutre, " +
+            "f.niveauScolaire, f.profession) " +
+            "FROM Formulaire f WHERE f.patient.id = :patientId ORDER BY f.dateConsultation DESC, f.id DESC")
+    List<FormulairePrefillDto> findPrefillByPatientId(@Param("patientId") Long patientId, Pageable pageable);
+
     @Query("SELECT f FROM Formulaire f WHERE f.dateConsultation BETWEEN :debut AND :fin ORDER BY f.dateConsultation DESC")
     List<Formulaire> findByDateConsultationBetween(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
 
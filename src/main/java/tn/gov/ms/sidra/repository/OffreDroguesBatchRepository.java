@@ -0,0 +1,189 @@
+package tn.gov.ms.sidra.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.entity.OffreDrogues;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Insertions groupées de saisies d'offre de drogues via JDBC batch, et lecture en flux pour l'export.
+ * Les identifiants étant générés en IDENTITY, Hibernate ne regroupe pas ces insertions.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OffreDroguesBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final List<Column> COLUMNS = List.of(
+            column("cannabis", OffreDrogues::getCannabis, Types.DOUBLE),
+            column("comprimes_tableau_a", OffreDrogues::getComprimesTableauA, Types.INTEGER),
+            column("ecstasy_comprime", OffreDrogues::getEcstasyComprime, Types.INTEGER),
+            column("ecstasy_poudre", OffreDrogues::getEcstasyPoudre, Types.DOUBLE),
+            column("subutex", OffreDrogues::getSubutex, Types.INTEGER),
+            column("cocaine", OffreDrogues::getCocaine, Types.DOUBLE),
+            column("heroine", OffreDrogues::getHeroine, Types.DOUBLE),
+            column("consommateur_nombre", OffreDrogues::getConsommateurNombre, Types.INTEGER),
+            column("consommateur_pourcentage", OffreDrogues::getConsommateurPourcentage, Types.DOUBLE),
+            column("vendeur_nombre", OffreDrogues::getVendeurNombre, Types.INTEGER),
+            column("vendeur_pourcentage", OffreDrogues::getVendeurPourcentage, Types.DOUBLE),
+            column("trafiquant_nombre", OffreDrogues::getTrafiquantNombre, Types.INTEGER),
+            column("trafiquant_pourcentage", OffreDrogues::getTrafiquantPourcentage, Types.DOUBLE),
+            column("masculin_nombre", OffreDrogues::getMasculinNombre, Types.INTEGER),
+            column("masculin_pourcentage", OffreDrogues::getMasculinPourcentage, Types.DOUBLE),
+            column("feminin_nombre", OffreDrogues::getFemininNombre, Types.INTEGER),
+            column("feminin_pourcentage", OffreDrogues::getFemininPourcentage, Types.DOUBLE),
+            column("moins12ans_nombre", OffreDrogues::getMoins12ansNombre, Types.INTEGER),
+            column("moins12ans_pourcentage", OffreDrogues::getMoins12ansPourcentage, Types.DOUBLE),
+            column("moins18ans_nombre", OffreDrogues::getMoins18ansNombre, Types.INTEGER),
+            column("moins18ans_pourcentage", OffreDrogues::getMoins18ansPourcentage, Types.DOUBLE),
+            column("entre18et40_nombre", OffreDrogues::getEntre18et40Nombre, Types.INTEGER),
+            column("entre18et40_pourcentage", OffreDrogues::getEntre18et40Pourcentage, Types.DOUBLE),
+            column("plus40ans_nombre", OffreDrogues::getPlus40ansNombre, Types.INTEGER),
+            column("plus40ans_pourcentage", OffreDrogues::getPlus40ansPourcentage, Types.DOUBLE),
+            column("tunisienne_nombre", OffreDrogues::getTunisienneNombre, Types.INTEGER),
+            column("tunisienne_pourcentage", OffreDrogues::getTunisiennePourcentage, Types.DOUBLE),
+            column("maghrebine_nombre", OffreDrogues::getMaghrebineNombre, Types.INTEGER),
+            column("maghrebine_pourcentage", OffreDrogues::getMaghrebinePourcentage, Types.DOUBLE),
+            column("autres_nationalite_nombre", OffreDrogues::getAutresNationaliteNombre, Types.INTEGER),
+            column("autres_nationalite_pourcentage", OffreDrogues::getAutresNationalitePourcentage, Types.DOUBLE),
+            column("celibataire_nombre", OffreDrogues::getCelibataireNombre, Types.INTEGER),
+            column("celibataire_pourcentage", OffreDrogues::getCelibatairePourcentage, Types.DOUBLE),
+            column("marie_nombre", OffreDrogues::getMarieNombre, Types.INTEGER),
+            column("marie_pourcentage", OffreDrogues::getMariePourcentage, Types.DOUBLE),
+            column("divorce_nombre", OffreDrogues::getDivorceNombre, Types.INTEGER),
+            column("divorce_pourcentage", OffreDrogues::getDivorcePourcentage, Types.DOUBLE),
+            column("veuf_nombre", OffreDrogues::getVeufNombre, Types.INTEGER),
+            column("veuf_pourcentage", OffreDrogues::getVeufPourcentage, Types.DOUBLE),
+            column("eleve_nombre", OffreDrogues::getEleveNombre, Types.INTEGER),
+            column("eleve_pourcentage", OffreDrogues::getElevePourcentage, Types.DOUBLE),
+            column("etudiant_nombre", OffreDrogues::getEtudiantNombre, Types.INTEGER),
+            column("etudiant_pourcentage", OffreDrogues::getEtudiantPourcentage, Types.DOUBLE),
+            column("ouvrier_nombre", OffreDrogues::getOuvrierNombre, Types.INTEGER),
+            column("ouvrier_pourcentage", OffreDrogues::getOuvrierPourcentage, Types.DOUBLE),
+            column("fonctionnaire_nombre", OffreDrogues::getFonctionnaireNombre, Types.INTEGER),
+            column("fonctionnaire_pourcentage", OffreDrogues::getFonctionnairePourcentage, Types.DOUBLE),
+            column("carte_indigent_nombre", OffreDrogues::getCarteIndigentNombre, Types.INTEGER),
+            column("carte_indigent_pourcentage", OffreDrogues::getCarteIndigentPourcentage, Types.DOUBLE),
+            column("carnet_cnam_publique_nombre", OffreDrogues::getCarnetCnamPubliqueNombre, Types.INTEGER),
+            column("carnet_cnam_publique_pourcentage", OffreDrogues::getCarnetCnamPubliquePourcentage, Types.DOUBLE),
+            column("carnet_cnam_famille_nombre", OffreDrogues::getCarnetCnamFamilleNombre, Types.INTEGER),
+            column("carnet_cnam_famille_pourcentage", OffreDrogues::getCarnetCnamFamillePourcentage, Types.DOUBLE),
+            column("carnet_cnam_remboursement_nombre", OffreDrogues::getCarnetCnamRemboursementNombre, Types.INTEGER),
+            column("carnet_cnam_remboursement_pourcentage", OffreDrogues::getCarnetCnamRemboursementPourcentage, Types.DOUBLE)
+    );
+
+    private static final String INSERT_SQL = "INSERT INTO offre_drogues (date_saisie, structure_id, utilisateur_id, " +
+            "date_creation, date_modification, " +
+            COLUMNS.stream().map(Column::name).collect(Collectors.joining(", ")) + ") VALUES (?, ?, ?, ?, ?" +
+            ", ?".repeat(COLUMNS.size()) + ")";
+
+    private static final String EXPORT_SQL = "SELECT o.date_saisie AS \"dateSaisie\", s.nom AS \"structure\", " +
+            "g.nom AS \"gouvernorat\", u.nom AS \"nom\", u.prenom AS \"prenom\", " +
+            COLUMNS.stream().map(column -> "o." + column.name()).collect(Collectors.joining(", ")) +
+            " FROM offre_drogues o LEFT JOIN structures s ON s.id = o.structure_id " +
+            "LEFT JOIN gouvernorats g ON g.id = s.gouvernorat_id LEFT JOIN users u ON u.id = o.utilisateur_id " +
+            "WHERE (CAST(? AS DATE) IS NULL OR o.date_saisie >= ?) AND (CAST(? AS DATE) IS NULL OR o.date_saisie <= ?) " +
+            "AND (CAST(? AS BIGINT) IS NULL OR o.utilisateur_id = ?) " +
+            "AND (CAST(? AS BIGINT) IS NULL OR o.structure_id = ?) ORDER BY o.date_saisie, s.nom, o.id";
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insère les saisies par lots et renseigne leurs identifiants générés ; les dates de création
+     * et de modification doivent être renseignées
+     */
+    public void insertAll(List<OffreDrogues> offresDrogues) {
+        if (offresDrogues.isEmpty()) {
+            return;
+        }
+
+        for (int from = 0; from < offresDrogues.size(); from += BATCH_SIZE) {
+            List<OffreDrogues> batch = offresDrogues.subList(from, Math.min(from + BATCH_SIZE, offresDrogues.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            bind(ps, batch.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    }, keyHolder);
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < batch.size() && i < keys.size(); i++) {
+                batch.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, OffreDrogues o) throws SQLException {
+        ps.setDate(1, Date.valueOf(o.getDateSaisie()));
+        if (o.getStructure() != null) {
+            ps.setLong(2, o.getStructure().getId());
+        } else {
+            ps.setNull(2, Types.BIGINT);
+        }
+        ps.setLong(3, o.getUtilisateur().getId());
+        ps.setTimestamp(4, Timestamp.valueOf(o.getDateCreation()));
+        ps.setTimestamp(5, Timestamp.valueOf(o.getDateModification()));
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            Column column = COLUMNS.get(i);
+            ps.setObject(6 + i, column.getter().apply(o), column.sqlType());
+        }
+    }
+
+    /**
+     * Parcourt les saisies avec un curseur (à appeler dans une transaction pour que PostgreSQL lise
+     * par paquets), éventuellement restreintes à une période (bornes nulles : non bornée),
+     * un utilisateur ou une structure
+     */
+    public <T> T streamForExport(LocalDate debut, LocalDate fin, Long utilisateurId, Long structureId,
+                                 ResultSetExtractor<T> extractor) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            Date from = debut != null ? Date.valueOf(debut) : null;
+            Date to = fin != null ? Date.valueOf(fin) : null;
+            statement.setObject(1, from, Types.DATE);
+            statement.setObject(2, from, Types.DATE);
+            statement.setObject(3, to, Types.DATE);
+            statement.setObject(4, to, Types.DATE);
+            statement.setObject(5, utilisateurId, Types.BIGINT);
+            statement.setObject(6, utilisateurId, Types.BIGINT);
+            statement.setObject(7, structureId, Types.BIGINT);
+            statement.setObject(8, structureId, Types.BIGINT);
+            return statement;
+        }, extractor);
+    }
+
+    private static Column column(String name, Function<OffreDrogues, Object> getter, int sqlType) {
+        return new Column(name, getter, sqlType);
+    }
+
+    private record Column(String name, Function<OffreDrogues, Object> getter, int sqlType) {
+    }
+}
@@ -0,0 +1,32 @@
+package tn.gov.ms.sidra.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.entity.OffreDroguesDetecteurEtat;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OffreDroguesDetecteurEtatRepository extends JpaRepository<OffreDroguesDetecteurEtat, Long> {
+
+    /**
+     * Enregistre l'état courant d'une série en une instruction, sans remplacer un état comptant
+     * déjà autant d'observations (écritures concurrentes reçues dans le désordre)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO offre_drogues_detecteur_etat (structure_id, substance, nombre_observations, moyenne, " +
+            "variance, date_modification) VALUES (:structureId, :substance, :nombre, :moyenne, :variance, :maintenant) " +
+            "ON CONFLICT (structure_id, substance) DO UPDATE SET nombre_observations = EXCLUDED.nombre_observations, " +
+            "moyenne = EXCLUDED.moyenne, variance = EXCLUDED.variance, date_modification = EXCLUDED.date_modification " +
+            "WHERE offre_drogues_detecteur_etat.nombre_observations < EXCLUDED.nombre_observations",
+            nativeQuery = true)
+    void upsert(@Param("structureId") Long structureId,
+                @Param("substance") String substance,
+                @Param("nombre") long nombre,
+                @Param("moyenne") double moyenne,
+                @Param("variance") double variance,
+                @Param("maintenant") LocalDateTime maintenant);
+}
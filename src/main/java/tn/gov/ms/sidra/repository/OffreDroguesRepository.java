@@ -1,14 +1,17 @@
 package tn.gov.ms.sidra.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import tn.gov.ms.sidra.dto.offredrogues.MonthlySubstancesDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesListDto;
 import tn.gov.ms.sidra.entity.OffreDrogues;
 import tn.gov.ms.sidra.entity.User;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,17 +25,88 @@ public interface OffreDroguesRepository extends JpaRepository<OffreDrogues, Long
 
     List<OffreDrogues> findByStructureIdOrderByDateSaisieDesc(Long structureId);
 
-    @Query("SELECT o FROM OffreDrogues o WHERE o.dateSaisie < :date AND o.id != :currentId ORDER BY o.dateSaisie DESC")
-    List<OffreDrogues> findLastEntryBefore(@Param("date") LocalDate date, @Param("currentId") Long currentId);
+    /**
+     * Dernière saisie d'un utilisateur avant une date (une ligne, via l'index utilisateur/date)
+     */
+    @Query("SELECT o FROM OffreDrogues o LEFT JOIN FETCH o.structure s LEFT JOIN FETCH s.gouvernorat LEFT JOIN FETCH o.utilisateur " +
+            "WHERE o.utilisateur.id = :utilisateurId AND o.dateSaisie < :date AND o.id <> :currentId " +
+            "ORDER BY o.dateSaisie DESC")
+    List<OffreDrogues> findLastEntryBefore(@Param("utilisateurId") Long utilisateurId,
+                                           @Param("date") LocalDate date,
+                                           @Param("currentId") Long currentId,
+                                           Pageable pageable);
+
+    @Query("SELECT o.utilisateur.id FROM OffreDrogues o WHERE o.id = :id")
+    Optional<Long> findUtilisateurIdById(@Param("id") Long id);
 
     /**
      * Trouve toutes les saisies pour un mois et une année spécifiques
      */
-    @Query("SELECT o FROM OffreDrogues o WHERE YEAR(o.dateSaisie) = :year AND MONTH(o.dateSaisie) = :month ORDER BY o.dateSaisie")
-    List<OffreDrogues> findByYearAndMonth(@Param("year") int year, @Param("month") int month);
+    default List<OffreDrogues> findByYearAndMonth(int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return findByDateSaisieRange(yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
+    }
+
+    @Query("SELECT o FROM OffreDrogues o WHERE o.dateSaisie >= :debut AND o.dateSaisie < :fin ORDER BY o.dateSaisie")
+    List<OffreDrogues> findByDateSaisieRange(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+
+    String LIST_PROJECTION = "SELECT new tn.gov.ms.sidra.dto.offredrogues.OffreDroguesListDto(o.id, o.dateSaisie, " +
+            "s.id, s.nom, s.type, u.id, u.nom, u.prenom, o.dateCreation) " +
+            "FROM OffreDrogues o LEFT JOIN o.structure s JOIN o.utilisateur u ";
+
+    /**
+     * Liste paginée de toutes les saisies
+     */
+    @Query(value = LIST_PROJECTION + "ORDER BY o.dateSaisie DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM OffreDrogues o")
+    Page<OffreDroguesListDto> findList(Pageable pageable);
+
+    /**
+     * Liste paginée des saisies d'un utilisateur
+     */
+    @Query(value = LIST_PROJECTION + "WHERE o.utilisateur.id = :utilisateurId ORDER BY o.dateSaisie DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM OffreDrogues o WHERE o.utilisateur.id = :utilisateurId")
+    Page<OffreDroguesListDto> findListByUtilisateur(@Param("utilisateurId") Long utilisateurId, Pageable pageable);
+
+    /**
+     * Liste paginée des saisies d'une structure
+     */
+    @Query(value = LIST_PROJECTION + "WHERE o.structure.id = :structureId ORDER BY o.dateSaisie DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM OffreDrogues o WHERE o.structure.id = :structureId")
+    Page<OffreDroguesListDto> findListByStructure(@Param("structureId") Long structureId, Pageable pageable);
+
+    /**
+     * Liste paginée de toutes les saisies sur une période
+     */
+    @Query(value = LIST_PROJECTION + "WHERE o.dateSaisie BETWEEN :startDate AND :endDate ORDER BY o.dateSaisie DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM OffreDrogues o WHERE o.dateSaisie BETWEEN :startDate AND :endDate")
+    Page<OffreDroguesListDto> findListByPeriod(@Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate,
+                                               Pageable pageable);
 
-    @Query("SELECT o FROM OffreDrogues o LEFT JOIN FETCH o.structure s LEFT JOIN FETCH s.gouvernorat LEFT JOIN FETCH o.utilisateur ORDER BY o.dateSaisie DESC")
-    List<OffreDrogues> findAllByOrderByDateSaisieDesc();
+    /**
+     * Liste paginée des saisies d'un utilisateur sur une période
+     */
+    @Query(value = LIST_PROJECTION + "WHERE o.utilisateur.id = :utilisateurId AND o.dateSaisie BETWEEN :startDate AND :endDate " +
+            "ORDER BY o.dateSaisie DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM OffreDrogues o WHERE o.utilisateur.id = :utilisateurId " +
+                    "AND o.dateSaisie BETWEEN :startDate AND :endDate")
+    Page<OffreDroguesListDto> findListByUtilisateurAndPeriod(@Param("utilisateurId") Long utilisateurId,
+                                                             @Param("startDate") LocalDate startDate,
+                                                             @Param("endDate") LocalDate endDate,
+                                                             Pageable pageable);
+
+    /**
+     * Liste paginée des saisies d'une structure sur une période
+     */
+    @Query(value = LIST_PROJECTION + "WHERE o.structure.id = :structureId AND o.dateSaisie BETWEEN :startDate AND :endDate " +
+            "ORDER BY o.dateSaisie DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM OffreDrogues o WHERE o.structure.id = :structureId " +
+                    "AND o.dateSaisie BETWEEN :startDate AND :endDate")
+    Page<OffreDroguesListDto> findListByStructureAndPeriod(@Param("structureId") Long structureId,
+                                                           @Param("startDate") LocalDate startDate,
+                                                           @Param("endDate") LocalDate endDate,
+                                                           Pageable pageable);
 
     Optional<OffreDrogues> findByIdAndUtilisateur(Long id, User utilisateur);
 
@@ -50,6 +124,15 @@ public interface OffreDroguesRepository extends JpaRepository<OffreDrogues, Long
     @Query("SELECT COUNT(o) FROM OffreDrogues o WHERE o.structure.id = :structureId")
     long countByStructureId(@Param("structureId") Long structureId);
 
+    /**
+     * Dates déjà saisies par un utilisateur sur une période (détection ensembliste des doublons)
+     */
+    @Query("SELECT o.dateSaisie FROM OffreDrogues o WHERE o.utilisateur.id = :utilisateurId " +
+            "AND o.dateSaisie BETWEEN :startDate AND :endDate")
+    List<LocalDate> findDatesByUtilisateurAndPeriod(@Param("utilisateurId") Long utilisateurId,
+                                                    @Param("startDate") LocalDate startDate,
+                                                    @Param("endDate") LocalDate endDate);
+
     boolean existsByUtilisateurAndDateSaisie(User utilisateur, LocalDate dateSaisie);
 
     boolean existsByUtilisateurAndDateSaisieAndIdNot(User utilisateur, LocalDate dateSaisie, Long id);
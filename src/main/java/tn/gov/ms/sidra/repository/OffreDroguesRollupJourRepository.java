@@ -0,0 +1,79 @@
+package tn.gov.ms.sidra.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.dto.offredrogues.DailySubstancesTotalDto;
+import tn.gov.ms.sidra.entity.OffreDroguesRollupJour;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface OffreDroguesRollupJourRepository extends JpaRepository<OffreDroguesRollupJour, Long> {
+
+    /**
+     * Ajoute (ou retranche, avec des valeurs négatives) une saisie aux totaux de sa journée
+     */
+    @Modifying
+    @Query(value = "INSERT INTO offre_drogues_rollup_jour (jour, structure_id, gouvernorat_id, nombre_saisies, cannabis, " +
+            "comprimes_tableau_a, ecstasy_comprime, ecstasy_poudre, subutex, cocaine, heroine) " +
+            "VALUES (:jour, :structureId, :gouvernoratId, :saisies, :cannabis, :comprimesTableauA, :ecstasyComprime, " +
+            ":ecstasyPoudre, :subutex, :cocaine, :heroine) " +
+            "ON CONFLICT (jour, structure_id, gouvernorat_id) DO UPDATE SET " +
+            "nombre_saisies = offre_drogues_rollup_jour.nombre_saisies + EXCLUDED.nombre_saisies, " +
+            "cannabis = offre_drogues_rollup_jour.cannabis + EXCLUDED.cannabis, " +
+            "comprimes_tableau_a = offre_drogues_rollup_jour.comprimes_tableau_a + EXCLUDED.comprimes_tableau_a, " +
+            "ecstasy_comprime = offre_drogues_rollup_jour.ecstasy_comprime + EXCLUDED.ecstasy_comprime, " +
+            "ecstasy_poudre = offre_drogues_rollup_jour.ecstasy_poudre + EXCLUDED.ecstasy_poudre, " +
+            "subutex = offre_drogues_rollup_jour.subutex + EXCLUDED.subutex, " +
+            "cocaine = offre_drogues_rollup_jour.cocaine + EXCLUDED.cocaine, " +
+            "heroine = offre_drogues_rollup_jour.heroine + EXCLUDED.heroine",
+            nativeQuery = true)
+    void upsertDelta(@Param("jour") LocalDate jour,
+                     @Param("structureId") long structureId,
+                     @Param("gouvernoratId") long gouvernoratId,
+                     @Param("saisies") int saisies,
+                     @Param("cannabis") double cannabis,
+                     @Param("comprimesTableauA") long comprimesTableauA,
+                     @Param("ecstasyComprime") long ecstasyComprime,
+                     @Param("ecstasyPoudre") double ecstasyPoudre,
+                     @Param("subutex") long subutex,
+                     @Param("cocaine") double cocaine,
+                     @Param("heroine") double heroine);
+
+    @Modifying
+    @Query(value = "DELETE FROM offre_drogues_rollup_jour WHERE jour = :jour AND structure_id = :structureId " +
+            "AND gouvernorat_id = :gouvernoratId AND nombre_saisies <= 0", nativeQuery = true)
+    void deleteIfEmpty(@Param("jour") LocalDate jour,
+                       @Param("structureId") long structureId,
+                       @Param("gouvernoratId") long gouvernoratId);
+
+    /**
+     * Reconstruit tous les agrégats à partir des saisies existantes
+     */
+    @Modifying
+    @Query(value = "INSERT INTO offre_drogues_rollup_jour (jour, structure_id, gouvernorat_id, nombre_saisies, cannabis, " +
+            "comprimes_tableau_a, ecstasy_comprime, ecstasy_poudre, subutex, cocaine, heroine) " +
+            "SELECT o.date_saisie, COALESCE(o.structure_id, 0), COALESCE(s.gouvernorat_id, 0), COUNT(*), " +
+            "COALESCE(SUM(o.cannabis), 0), COALESCE(SUM(o.comprimes_tableau_a), 0), COALESCE(SUM(o.ecstasy_comprime), 0), " +
+            "COALESCE(SUM(o.ecstasy_poudre), 0), COALESCE(SUM(o.subutex), 0), COALESCE(SUM(o.cocaine), 0), COALESCE(SUM(o.heroine), 0) " +
+            "FROM offre_drogues o LEFT JOIN structures s ON s.id = o.structure_id " +
+            "GROUP BY o.date_saisie, COALESCE(o.structure_id, 0), COALESCE(s.gouvernorat_id, 0)",
+            nativeQuery = true)
+    int rebuildFromOffreDrogues();
+
+    @Query("SELECT new tn.gov.ms.sidra.dto.offredrogues.DailySubstancesTotalDto(r.jour, SUM(r.cannabis), SUM(r.comprimesTableauA), " +
+            "SUM(r.ecstasyComprime), SUM(r.ecstasyPoudre), SUM(r.subutex), SUM(r.cocaine), SUM(r.heroine)) " +
+            "FROM OffreDroguesRollupJour r WHERE r.jour BETWEEN :debut AND :fin GROUP BY r.jour ORDER BY r.jour")
+    List<DailySubstancesTotalDto> sumByJour(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+
+    @Query("SELECT new tn.gov.ms.sidra.dto.offredrogues.DailySubstancesTotalDto(r.jour, SUM(r.cannabis), SUM(r.comprimesTableauA), " +
+            "SUM(r.ecstasyComprime), SUM(r.ecstasyPoudre), SUM(r.subutex), SUM(r.cocaine), SUM(r.heroine)) " +
+            "FROM OffreDroguesRollupJour r WHERE r.structureId = :structureId AND r.jour BETWEEN :debut AND :fin GROUP BY r.jour ORDER BY r.jour")
+    List<DailySubstancesTotalDto> sumByJourForStructure(@Param("structureId") Long structureId,
+                                                        @Param("debut") LocalDate debut,
+                                                        @Param("fin") LocalDate fin);
+}
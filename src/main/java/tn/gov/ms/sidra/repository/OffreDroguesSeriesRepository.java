@@ -0,0 +1,320 @@
+package tn.gov.ms.sidra.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesComparisonDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesSeriesDto;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesGranularity;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesGroupBy;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesMetric;
+import tn.gov.ms.sidra.dto.offredrogues.SociodemographicAggregateDto;
+import tn.gov.ms.sidra.dto.offredrogues.SociodemographicBreakdown;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Agrégation des saisies d'offre de drogues par période et par groupe, calculée par PostgreSQL.
+ * Les fragments SQL dynamiques proviennent uniquement des énumérations de granularité, de regroupement et de mesures.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OffreDroguesSeriesRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Calcule la série sur [from, to], éventuellement restreinte à un utilisateur ou une structure
+     */
+    public OffreDroguesSeriesDto aggregate(SeriesGranularity granularity, SeriesGroupBy groupBy, List<SeriesMetric> metrics,
+                                           LocalDate from, LocalDate to,
+                                           Long utilisateurId, Long structureId) {
+        boolean grouped = groupBy != SeriesGroupBy.NONE;
+
+        StringBuilder sql = new StringBuilder("SELECT CAST(date_trunc('")
+                .append(granularity.getSqlUnit())
+                .append("', o.date_saisie) AS date) AS periode");
+        if (groupBy == SeriesGroupBy.STRUCTURE) {
+            sql.append(", s.id AS groupe_id, s.nom AS groupe_nom");
+        } else if (groupBy == SeriesGroupBy.GOUVERNORAT) {
+            sql.append(", g.id AS groupe_id, g.nom AS groupe_nom");
+        }
+        for (SeriesMetric metric : metrics) {
+            sql.append(", ").append(metric.sqlAggregate());
+        }
+        sql.append(" FROM offre_drogues o");
+        if (grouped) {
+            sql.append(" LEFT JOIN structures s ON s.id = o.structure_id");
+        }
+        if (groupBy == SeriesGroupBy.GOUVERNORAT) {
+            sql.append(" LEFT JOIN gouvernorats g ON g.id = s.gouvernorat_id");
+        }
+        sql.append(" WHERE o.date_saisie >= ? AND o.date_saisie <= ?");
+
+        List<Object> params = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (utilisateurId != null) {
+            sql.append(" AND o.utilisateur_id = ?");
+            params.add(utilisateurId);
+        }
+        if (structureId != null) {
+            sql.append(" AND o.structure_id = ?");
+            params.add(structureId);
+        }
+        sql.append(grouped ? " GROUP BY 1, 2, 3 ORDER BY 1, 2" : " GROUP BY 1 ORDER BY 1");
+
+        OffreDroguesSeriesDto series = new OffreDroguesSeriesDto();
+        series.setGranularity(granularity);
+        series.setGroupBy(groupBy);
+        series.setFrom(from);
+        series.setTo(to);
+        if (grouped) {
+            series.setGroupes(new ArrayList<>());
+            series.setLibelles(new HashMap<>());
+        }
+
+        int firstMetricColumn = grouped ? 4 : 2;
+        long[][] integralColumns = new long[metrics.size()][16];
+        double[][] decimalColumns = new double[metrics.size()][16];
+        int[] rowCount = {0};
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            int row = rowCount[0]++;
+            series.getPeriodes().add(rs.getDate(1).toLocalDate());
+            if (grouped) {
+                long groupeId = rs.getLong(2);
+                Long groupe = rs.wasNull() ? null : groupeId;
+                series.getGroupes().add(groupe);
+                if (groupe != null) {
+                    series.getLibelles().putIfAbsent(groupe, rs.getString(3));
+                }
+            }
+            for (int m = 0; m < metrics.size(); m++) {
+                if (metrics.get(m).isIntegral()) {
+                    if (row == integralColumns[m].length) {
+                        integralColumns[m] = Arrays.copyOf(integralColumns[m], row * 2);
+                    }
+                    integralColumns[m][row] = rs.getLong(firstMetricColumn + m);
+                } else {
+                    if (row == decimalColumns[m].length) {
+                        decimalColumns[m] = Arrays.copyOf(decimalColumns[m], row * 2);
+                    }
+                    decimalColumns[m][row] = rs.getDouble(firstMetricColumn + m);
+                }
+            }
+        }, params.toArray());
+
+        for (int m = 0; m < metrics.size(); m++) {
+            SeriesMetric metric = metrics.get(m);
+            series.getValeurs().put(metric.getKey(), metric.isIntegral()
+                    ? Arrays.copyOf(integralColumns[m], rowCount[0])
+                    : Arrays.copyOf(decimalColumns[m], rowCount[0]));
+        }
+        return series;
+    }
+
+    /**
+     * Compare chaque période complète de [from, to] à la précédente en une requête :
+     * les périodes sont générées par generate_series pour que LAG() porte sur la période
+     * immédiatement antérieure, même sans saisie
+     */
+    public OffreDroguesComparisonDto compare(SeriesGranularity granularity, List<SeriesMetric> metrics,
+                                             LocalDate from, LocalDate to, Long utilisateurId, Long structureId) {
+        LocalDate firstPeriod = granularity.truncate(from);
+        LocalDate lastPeriod = granularity.truncate(to);
+        LocalDate leadIn = granularity.shift(firstPeriod, -1);
+        LocalDate dataEnd = granularity.shift(lastPeriod, 1).minusDays(1);
+
+        StringBuilder aggregates = new StringBuilder();
+        StringBuilder columns = new StringBuilder();
+        for (int m = 0; m < metrics.size(); m++) {
+            aggregates.append(", ").append(metrics.get(m).sqlAggregate()).append(" AS m").append(m);
+            columns.append(", COALESCE(a.m").append(m).append(", 0)")
+                    .append(", COALESCE(a.m").append(m).append(", 0) - LAG(COALESCE(a.m").append(m).append(", 0)) OVER w");
+        }
+
+        StringBuilder sql = new StringBuilder("WITH periodes AS (SELECT CAST(generate_series(CAST(? AS date), CAST(? AS date), ")
+                .append("CAST('").append(granularity.getSqlInterval()).append("' AS interval)) AS date) AS periode), ")
+                .append("agg AS (SELECT CAST(date_trunc('").append(granularity.getSqlUnit())
+                .append("', o.date_saisie) AS date) AS periode").append(aggregates)
+                .append(" FROM offre_drogues o WHERE o.date_saisie >= ? AND o.date_saisie <= ?");
+
+        List<Object> params = new ArrayList<>(List.of(Date.valueOf(leadIn), Date.valueOf(lastPeriod),
+                Date.valueOf(leadIn), Date.valueOf(dataEnd)));
+        if (utilisateurId != null) {
+            sql.append(" AND o.utilisateur_id = ?");
+            params.add(utilisateurId);
+        }
+        if (structureId != null) {
+            sql.append(" AND o.structure_id = ?");
+            params.add(structureId);
+        }
+        sql.append(" GROUP BY 1) SELECT p.periode").append(columns)
+                .append(" FROM periodes p LEFT JOIN agg a ON a.periode = p.periode WINDOW w AS (ORDER BY p.periode)")
+                .append(" ORDER BY p.periode");
+
+        OffreDroguesComparisonDto comparison = new OffreDroguesComparisonDto();
+        comparison.setGranularity(granularity);
+        comparison.setFrom(firstPeriod);
+        comparison.setTo(dataEnd);
+
+        int periods = 0;
+        for (LocalDate p = firstPeriod; !p.isAfter(lastPeriod); p = granularity.shift(p, 1)) {
+            periods++;
+        }
+        long[][] integralValues = new long[metrics.size()][];
+        long[][] integralDeltas = new long[metrics.size()][];
+        double[][] decimalValues = new double[metrics.size()][];
+        double[][] decimalDeltas = new double[metrics.size()][];
+        for (int m = 0; m < metrics.size(); m++) {
+            if (metrics.get(m).isIntegral()) {
+                integralValues[m] = new long[periods];
+                integralDeltas[m] = new long[periods];
+            } else {
+                decimalValues[m] = new double[periods];
+                decimalDeltas[m] = new double[periods];
+            }
+        }
+
+        int periodCount = periods;
+        int[] row = {-1};
+        jdbcTemplate.query(sql.toString(), rs -> {
+            int index = row[0]++;
+            if (index < 0 || index >= periodCount) {
+                // Période d'amorce, utilisée uniquement par LAG()
+                return;
+            }
+            comparison.getPeriodes().add(rs.getDate(1).toLocalDate());
+            for (int m = 0; m < metrics.size(); m++) {
+                int column = 2 + 2 * m;
+                if (metrics.get(m).isIntegral()) {
+                    integralValues[m][index] = rs.getLong(column);
+                    integralDeltas[m][index] = rs.getLong(column + 1);
+                } else {
+                    decimalValues[m][index] = rs.getDouble(column);
+                    decimalDeltas[m][index] = rs.getDouble(column + 1);
+                }
+            }
+        }, params.toArray());
+
+        for (int m = 0; m < metrics.size(); m++) {
+            SeriesMetric metric = metrics.get(m);
+            boolean integral = metric.isIntegral();
+            comparison.getValeurs().put(metric.getKey(), integral ? integralValues[m] : decimalValues[m]);
+            comparison.getVariations().put(metric.getKey(), integral ? integralDeltas[m] : decimalDeltas[m]);
+        }
+        return comparison;
+    }
+
+    /**
+     * Somme les effectifs de chaque répartition par période et par groupe, et recalcule dans la même
+     * requête les pourcentages pondérés (effectif / total de la répartition) au lieu de moyenner
+     * les pourcentages saisis
+     */
+    public SociodemographicAggregateDto sociodemographics(SeriesGranularity granularity, SeriesGroupBy groupBy,
+                                                          List<SociodemographicBreakdown> breakdowns,
+                                                          LocalDate from, LocalDate to,
+                                                          Long utilisateurId, Long structureId) {
+        boolean grouped = groupBy != SeriesGroupBy.NONE;
+
+        StringBuilder sql = new StringBuilder("SELECT CAST(date_trunc('")
+                .append(granularity.getSqlUnit())
+                .append("', o.date_saisie) AS date) AS periode");
+        if (groupBy == SeriesGroupBy.STRUCTURE) {
+            sql.append(", s.id AS groupe_id, s.nom AS groupe_nom");
+        } else if (groupBy == SeriesGroupBy.GOUVERNORAT) {
+            sql.append(", g.id AS groupe_id, g.nom AS groupe_nom");
+        }
+        for (SociodemographicBreakdown breakdown : breakdowns) {
+            String total = breakdown.getCategories().stream()
+                    .map(SeriesMetric::sqlAggregate)
+                    .collect(Collectors.joining(" + "));
+            sql.append(", ").append(total);
+            for (SeriesMetric category : breakdown.getCategories()) {
+                sql.append(", ").append(category.sqlAggregate())
+                        .append(", COALESCE(100.0 * ").append(category.sqlAggregate())
+                        .append(" / NULLIF(").append(total).append(", 0), 0)");
+            }
+        }
+        sql.append(" FROM offre_drogues o");
+        if (grouped) {
+            sql.append(" LEFT JOIN structures s ON s.id = o.structure_id");
+        }
+        if (groupBy == SeriesGroupBy.GOUVERNORAT) {
+            sql.append(" LEFT JOIN gouvernorats g ON g.id = s.gouvernorat_id");
+        }
+        sql.append(" WHERE o.date_saisie >= ? AND o.date_saisie <= ?");
+
+        List<Object> params = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (utilisateurId != null) {
+            sql.append(" AND o.utilisateur_id = ?");
+            params.add(utilisateurId);
+        }
+        if (structureId != null) {
+            sql.append(" AND o.structure_id = ?");
+            params.add(structureId);
+        }
+        sql.append(grouped ? " GROUP BY 1, 2, 3 ORDER BY 1, 2" : " GROUP BY 1 ORDER BY 1");
+
+        SociodemographicAggregateDto result = new SociodemographicAggregateDto();
+        result.setGranularity(granularity);
+        result.setGroupBy(groupBy);
+        result.setFrom(from);
+        result.setTo(to);
+        if (grouped) {
+            result.setGroupes(new ArrayList<>());
+            result.setLibelles(new HashMap<>());
+        }
+
+        // Par répartition : une colonne de totaux puis, par catégorie, effectifs et pourcentages
+        int width = breakdowns.stream().mapToInt(breakdown -> 1 + 2 * breakdown.getCategories().size()).sum();
+        double[][] columns = new double[width][16];
+        int firstColumn = grouped ? 4 : 2;
+        int[] rowCount = {0};
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            int row = rowCount[0]++;
+            result.getPeriodes().add(rs.getDate(1).toLocalDate());
+            if (grouped) {
+                long groupeId = rs.getLong(2);
+                Long groupe = rs.wasNull() ? null : groupeId;
+                result.getGroupes().add(groupe);
+                if (groupe != null) {
+                    result.getLibelles().putIfAbsent(groupe, rs.getString(3));
+                }
+            }
+            for (int c = 0; c < width; c++) {
+                if (row == columns[c].length) {
+                    columns[c] = Arrays.copyOf(columns[c], row * 2);
+                }
+                columns[c][row] = rs.getDouble(firstColumn + c);
+            }
+        }, params.toArray());
+
+        int rows = rowCount[0];
+        int c = 0;
+        for (SociodemographicBreakdown breakdown : breakdowns) {
+            SociodemographicAggregateDto.RepartitionDto repartition = new SociodemographicAggregateDto.RepartitionDto();
+            repartition.setTotaux(toLongs(columns[c++], rows));
+            for (SeriesMetric category : breakdown.getCategories()) {
+                repartition.getNombres().put(category.getKey(), toLongs(columns[c++], rows));
+                repartition.getPourcentages().put(category.getKey(), Arrays.copyOf(columns[c++], rows));
+            }
+            result.getRepartitions().put(breakdown.getKey(), repartition);
+        }
+        return result;
+    }
+
+    private static long[] toLongs(double[] column, int rows) {
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = Math.round(column[i]);
+        }
+        return values;
+    }
+}
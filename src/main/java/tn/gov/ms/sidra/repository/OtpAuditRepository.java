@@ -0,0 +1,9 @@
+package tn.gov.ms.sidra.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.entity.OtpAudit;
+
+@Repository
+public interface OtpAuditRepository extends JpaRepository<OtpAudit, Long> {
+}
@@ -30,7 +30,7 @@ public interface OtpCodeRepository extends JpaRepository<OtpCode, Long> {
 
     @Modifying
     @Query("UPDATE OtpCode o SET o.etat = 'EXPIRE' WHERE o.dateExpiration < :now AND o.etat = 'VALIDE'")
-    void expireOldCodes(@Param("now") LocalDateTime now);
+    int expireOldCodes(@Param("now") LocalDateTime now);
 
     @Query("SELECT COUNT(o) FROM OtpCode o WHERE o.user = :user AND o.dateCreation > :since")
     long countByUserAndDateCreationAfter(@Param("user") User user, @Param("since") LocalDateTime since);
@@ -0,0 +1,65 @@
+package tn.gov.ms.sidra.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.entity.PatientAccess;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insertions groupées de demandes d'accès via JDBC batch.
+ * Les identifiants étant générés en IDENTITY, Hibernate ne regroupe pas ces insertions.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientAccessBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO patient_access " +
+            "(patient_id, requestor_id, owner_id, status, date_creation, date_modification) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insère les demandes en un seul batch et renseigne leurs identifiants générés
+     */
+    public void insertAll(List<PatientAccess> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PatientAccess request = requests.get(i);
+                        ps.setLong(1, request.getPatient().getId());
+                        ps.setLong(2, request.getRequestor().getId());
+                        ps.setLong(3, request.getOwner().getId());
+                        ps.setString(4, request.getStatus().name());
+                        ps.setTimestamp(5, Timestamp.valueOf(request.getDateCreation()));
+                        ps.setTimestamp(6, Timestamp.valueOf(request.getDateModification()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return requests.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+}
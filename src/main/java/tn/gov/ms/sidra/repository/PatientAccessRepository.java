@@ -1,13 +1,20 @@
 package tn.gov.ms.sidra.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.dto.patientaccess.AccessStatusDto;
+import tn.gov.ms.sidra.dto.patientaccess.ExpiringAccessDto;
 import tn.gov.ms.sidra.entity.PatientAccess;
 import tn.gov.ms.sidra.entity.User;
 import tn.gov.ms.sidra.entity.Patient;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +25,47 @@ public interface PatientAccessRepository extends JpaRepository<PatientAccess, Lo
 
     List<PatientAccess> findByOwnerOrderByDateCreationDesc(User owner);
 
-    @Query("SELECT pa FROM PatientAccess pa WHERE pa.patient.id = :patientId AND pa.requestor.id = :requestorId AND pa.status = 'APPROVED'")
+    /**
+     * Demandes envoyées par un utilisateur, avec patient, demandeur, propriétaire et leurs structures chargés en une requête
+     */
+    @Query(value = "SELECT pa FROM PatientAccess pa " +
+            "JOIN FETCH pa.patient p JOIN FETCH p.structure " +
+            "JOIN FETCH pa.requestor r LEFT JOIN FETCH r.structure " +
+            "JOIN FETCH pa.owner o LEFT JOIN FETCH o.structure " +
+            "WHERE r.id = :requestorId AND (:status IS NULL OR pa.status = :status) ORDER BY pa.dateCreation DESC",
+            countQuery = "SELECT COUNT(pa) FROM PatientAccess pa WHERE pa.requestor.id = :requestorId AND (:status IS NULL OR pa.status = :status)")
+    Page<PatientAccess> findInboxByRequestor(@Param("requestorId") Long requestorId,
+                                             @Param("status") PatientAccess.PatientAccessStatus status,
+                                             Pageable pageable);
+
+    /**
+     * Demandes reçues par un utilisateur, avec patient, demandeur, propriétaire et leurs structures chargés en une requête
+     */
+    @Query(value = "SELECT pa FROM PatientAccess pa " +
+            "JOIN FETCH pa.patient p JOIN FETCH p.structure " +
+            "JOIN FETCH pa.requestor r LEFT JOIN FETCH r.structure " +
+            "JOIN FETCH pa.owner o LEFT JOIN FETCH o.structure " +
+            "WHERE o.id = :ownerId AND (:status IS NULL OR pa.status = :status) ORDER BY pa.dateCreation DESC",
+            countQuery = "SELECT COUNT(pa) FROM PatientAccess pa WHERE pa.owner.id = :ownerId AND (:status IS NULL OR pa.status = :status)")
+    Page<PatientAccess> findInboxByOwner(@Param("ownerId") Long ownerId,
+                                         @Param("status") PatientAccess.PatientAccessStatus status,
+                                         Pageable pageable);
+
+    @Query("SELECT pa.patient.id FROM PatientAccess pa WHERE pa.requestor.id = :requestorId AND pa.patient.id IN :patientIds AND pa.status IN :statuses")
+    List<Long> findPatientIdsWithStatus(@Param("requestorId") Long requestorId,
+                                        @Param("patientIds") Collection<Long> patientIds,
+                                        @Param("statuses") Collection<PatientAccess.PatientAccessStatus> statuses);
+
+    @Query("SELECT new tn.gov.ms.sidra.dto.patientaccess.AccessStatusDto(pa.patient.id, pa.status, pa.dateCreation) " +
+            "FROM PatientAccess pa WHERE pa.requestor.id = :requestorId AND pa.patient.id IN :patientIds ORDER BY pa.dateCreation")
+    List<AccessStatusDto> findStatusesByRequestor(@Param("requestorId") Long requestorId,
+                                                  @Param("patientIds") Collection<Long> patientIds);
+
+    @Query("SELECT COUNT(pa) FROM PatientAccess pa WHERE pa.owner.id = :ownerId AND pa.status = 'PENDING'")
+    long countPendingByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT pa FROM PatientAccess pa WHERE pa.patient.id = :patientId AND pa.requestor.id = :requestorId AND pa.status = 'APPROVED' " +
+            "AND (pa.dateExpiration IS NULL OR pa.dateExpiration > CURRENT_TIMESTAMP)")
     Optional<PatientAccess> findApprovedAccess(@Param("patientId") Long patientId, @Param("requestorId") Long requestorId);
 
     @Query("SELECT pa FROM PatientAccess pa WHERE pa.patient.id = :patientId AND pa.requestor.id = :requestorId AND pa.status = 'PENDING'")
@@ -27,6 +74,26 @@ public interface PatientAccessRepository extends JpaRepository<PatientAccess, Lo
     @Query("SELECT pa FROM PatientAccess pa WHERE pa.patient.id = :patientId AND pa.requestor.id = :requestorId")
     Optional<PatientAccess> findByPatientAndRequestor(@Param("patientId") Long patientId, @Param("requestorId") Long requestorId);
 
-    @Query("SELECT COUNT(pa) > 0 FROM PatientAccess pa WHERE pa.patient = :patient AND pa.requestor = :requestor AND pa.status = 'APPROVED'")
+    @Query("SELECT COUNT(pa) > 0 FROM PatientAccess pa WHERE pa.patient = :patient AND pa.requestor = :requestor AND pa.status = 'APPROVED' " +
+            "AND (pa.dateExpiration IS NULL OR pa.dateExpiration > CURRENT_TIMESTAMP)")
     boolean hasAccess(@Param("patient") Patient patient, @Param("requestor") User requestor);
+
+    @Query("SELECT pa.dateExpiration FROM PatientAccess pa WHERE pa.patient.id = :patientId AND pa.requestor.id = :requestorId AND pa.status = 'APPROVED' " +
+            "AND (pa.dateExpiration IS NULL OR pa.dateExpiration > CURRENT_TIMESTAMP)")
+    List<LocalDateTime> findApprovedExpirations(@Param("patientId") Long patientId, @Param("requestorId") Long requestorId);
+
+    @Query("SELECT new tn.gov.ms.sidra.dto.patientaccess.ExpiringAccessDto(pa.id, pa.requestor.id, p.id, p.codePatient, pa.dateExpiration) " +
+            "FROM PatientAccess pa JOIN pa.patient p WHERE pa.status = 'APPROVED' AND pa.dateExpiration < :horizon")
+    List<ExpiringAccessDto> findApprovedExpiringBefore(@Param("horizon") LocalDateTime horizon);
+
+    @Query("SELECT new tn.gov.ms.sidra.dto.patientaccess.ExpiringAccessDto(pa.id, pa.requestor.id, p.id, p.codePatient, pa.dateExpiration) " +
+            "FROM PatientAccess pa JOIN pa.patient p WHERE pa.id IN :ids AND pa.status = 'APPROVED' AND pa.dateExpiration <= :now")
+    List<ExpiringAccessDto> findApprovedExpiredByIds(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PatientAccess pa SET pa.status = :newStatus, pa.dateModification = :now WHERE pa.id IN :ids AND pa.status = :currentStatus")
+    int updateStatus(@Param("ids") List<Long> ids,
+                     @Param("currentStatus") PatientAccess.PatientAccessStatus currentStatus,
+                     @Param("newStatus") PatientAccess.PatientAccessStatus newStatus,
+                     @Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -1,11 +1,15 @@
 package tn.gov.ms.sidra.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tn.gov.ms.sidra.entity.Patient;
+import tn.gov.ms.sidra.service.PatientDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +24,32 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     @Query("SELECT p FROM Patient p WHERE p.structure.id = :structureId")
     List<Patient> findByStructureId(@Param("structureId") Long structureId);
 
+    /**
+     * Projection limitée (sans nom ni prénom) des patients d'une structure externe, paginée
+     */
+    @Query(value = "SELECT new tn.gov.ms.sidra.service.PatientDto(p.id, p.codePatient, p.genre, p.dateNaissance, s.id, s.nom, s.type) " +
+            "FROM Patient p JOIN p.structure s WHERE s.id = :structureId AND s.id <> :excludedStructureId ORDER BY p.codePatient",
+            countQuery = "SELECT COUNT(p) FROM Patient p WHERE p.structure.id = :structureId AND p.structure.id <> :excludedStructureId")
+    Page<PatientDto> findLimitedByStructureId(@Param("structureId") Long structureId,
+                                              @Param("excludedStructureId") Long excludedStructureId,
+                                              Pageable pageable);
+
+    /**
+     * Projection limitée des patients externes portant ce code (éventuellement restreinte à une structure)
+     */
+    @Query(value = "SELECT new tn.gov.ms.sidra.service.PatientDto(p.id, p.codePatient, p.genre, p.dateNaissance, s.id, s.nom, s.type) " +
+            "FROM Patient p JOIN p.structure s WHERE p.codePatient = :codePatient AND s.id <> :excludedStructureId " +
+            "AND (:structureId IS NULL OR s.id = :structureId) ORDER BY p.codePatient",
+            countQuery = "SELECT COUNT(p) FROM Patient p WHERE p.codePatient = :codePatient " +
+                    "AND p.structure.id <> :excludedStructureId AND (:structureId IS NULL OR p.structure.id = :structureId)")
+    Page<PatientDto> findLimitedByCodePatient(@Param("codePatient") String codePatient,
+                                              @Param("structureId") Long structureId,
+                                              @Param("excludedStructureId") Long excludedStructureId,
+                                              Pageable pageable);
+
+    @Query("SELECT p FROM Patient p JOIN FETCH p.structure WHERE p.id IN :ids")
+    List<Patient> findAllWithStructureByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT COUNT(p) FROM Patient p WHERE p.structure.id = :structureId")
     long countByStructureId(@Param("structureId") Long structureId);
 
@@ -0,0 +1,36 @@
+package tn.gov.ms.sidra.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.entity.RevokedToken;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    /**
+     * Tokens révoqués encore valides (à recharger au démarrage)
+     */
+    @Query("SELECT r FROM RevokedToken r WHERE r.dateExpiration > :maintenant")
+    List<RevokedToken> findUnexpired(@Param("maintenant") LocalDateTime maintenant);
+
+    /**
+     * Enregistre une révocation, sans erreur si le token est déjà révoqué
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (jti, utilisateur_id, date_expiration, date_revocation) " +
+            "VALUES (:jti, :utilisateurId, :expiration, :maintenant) ON CONFLICT (jti) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("jti") String jti,
+                        @Param("utilisateurId") Long utilisateurId,
+                        @Param("expiration") LocalDateTime expiration,
+                        @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.dateExpiration <= :maintenant")
+    int deleteExpired(@Param("maintenant") LocalDateTime maintenant);
+}
@@ -0,0 +1,53 @@
+package tn.gov.ms.sidra.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.entity.SmsOutbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SmsOutboxRepository extends JpaRepository<SmsOutbox, Long> {
+
+    /**
+     * Verrouille les SMS dus (en attente, ou en cours dont le bail a expiré) sans attendre les lignes
+     * déjà prises par une autre instance
+     */
+    @Query(value = "SELECT * FROM sms_outbox WHERE etat IN ('EN_ATTENTE', 'EN_COURS') " +
+            "AND prochaine_tentative <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<SmsOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE SmsOutbox s SET s.etat = 'EN_COURS', s.prochaineTentative = :leaseUntil WHERE s.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE SmsOutbox s SET s.etat = 'ENVOYE', s.dateEnvoi = :now, s.message = null, " +
+            "s.nombreTentatives = s.nombreTentatives + 1, s.derniereErreur = null WHERE s.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE SmsOutbox s SET s.etat = 'EN_ATTENTE', s.nombreTentatives = :tentatives, " +
+            "s.prochaineTentative = :prochaineTentative, s.derniereErreur = :erreur WHERE s.id = :id")
+    int markRetry(@Param("id") Long id,
+                  @Param("tentatives") int tentatives,
+                  @Param("prochaineTentative") LocalDateTime prochaineTentative,
+                  @Param("erreur") String erreur);
+
+    @Modifying
+    @Query("UPDATE SmsOutbox s SET s.etat = 'ECHEC', s.nombreTentatives = :tentatives, s.message = null, " +
+            "s.derniereErreur = :erreur WHERE s.id = :id")
+    int markAbandoned(@Param("id") Long id,
+                      @Param("tentatives") int tentatives,
+                      @Param("erreur") String erreur);
+
+    @Modifying
+    @Query("DELETE FROM SmsOutbox s WHERE s.etat IN ('ENVOYE', 'ECHEC') AND s.dateCreation < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
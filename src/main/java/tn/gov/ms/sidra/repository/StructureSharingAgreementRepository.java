@@ -0,0 +1,16 @@
+package tn.gov.ms.sidra.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.entity.StructureSharingAgreement;
+
+import java.util.List;
+
+@Repository
+public interface StructureSharingAgreementRepository extends JpaRepository<StructureSharingAgreement, Long> {
+
+    @Query("SELECT a FROM StructureSharingAgreement a JOIN FETCH a.structureProprietaire JOIN FETCH a.structureBeneficiaire " +
+            "WHERE a.actif = true ORDER BY a.dateCreation DESC")
+    List<StructureSharingAgreement> findAllActiveWithStructures();
+}
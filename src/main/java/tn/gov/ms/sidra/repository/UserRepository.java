@@ -4,9 +4,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import tn.gov.ms.sidra.dto.offredrogues.ComplianceReportDto;
 import tn.gov.ms.sidra.entity.User;
 import tn.gov.ms.sidra.entity.UserRole;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u  WHERE u.id = :id")
     Optional<User> findByIdWithStructure(@Param("id") Long id);
 
+    /**
+     * Utilisateur avec sa structure, son gouvernorat et son ministère chargés (copie détachée pour l'authentification)
+     */
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.structure s LEFT JOIN FETCH s.gouvernorat " +
+            "LEFT JOIN FETCH s.ministere WHERE u.id = :id")
+    Optional<User> findByIdWithStructureFetched(@Param("id") Long id);
+
     boolean existsByEmail(String email);
 
     boolean existsByTelephone(String telephone);
@@ -31,6 +40,23 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.structure.id = :structureId")
     List<User> findByStructureId(@Param("structureId") Long structureId);
 
+    /**
+     * Premier utilisateur (plus petit ID) de chaque structure, utilisé comme propriétaire des patients
+     */
+    @Query("SELECT u FROM User u WHERE u.id IN " +
+            "(SELECT MIN(u2.id) FROM User u2 WHERE u2.structure.id IN :structureIds GROUP BY u2.structure.id)")
+    List<User> findFirstUserOfStructures(@Param("structureIds") Collection<Long> structureIds);
+
+    /**
+     * Déclarants d'offre de drogues actifs (utilisateurs externes), éventuellement restreints à un utilisateur ou une structure
+     */
+    @Query("SELECT new tn.gov.ms.sidra.dto.offredrogues.ComplianceReportDto(u.id, u.nom, u.prenom, u.dateCreation, s.id, s.nom) " +
+            "FROM User u LEFT JOIN u.structure s WHERE u.role = tn.gov.ms.sidra.entity.UserRole.EXTERNE AND u.actif = true " +
+            "AND (:utilisateurId IS NULL OR u.id = :utilisateurId) AND (:structureId IS NULL OR s.id = :structureId) " +
+            "ORDER BY s.nom, u.nom, u.prenom")
+    List<ComplianceReportDto> findActiveReporters(@Param("utilisateurId") Long utilisateurId,
+                                                  @Param("structureId") Long structureId);
+
     @Query("SELECT u FROM User u WHERE u.actif = true AND u.structure.id = :structureId")
     List<User> findActiveUsersByStructureId(@Param("structureId") Long structureId);
 
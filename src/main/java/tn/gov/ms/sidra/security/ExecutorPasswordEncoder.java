@@ -0,0 +1,35 @@
+package tn.gov.ms.sidra.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Encodeur BCrypt dont les calculs coûteux (encode, matches) passent par le pool borné.
+ * upgradeEncoding signale les empreintes d'un coût inférieur au coût configuré : elles sont
+ * recalculées à la connexion réussie suivante (DaoAuthenticationProvider + UserDetailsPasswordService).
+ */
+public class ExecutorPasswordEncoder implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public ExecutorPasswordEncoder(PasswordHashingExecutor executor) {
+        this.delegate = new BCryptPasswordEncoder(executor.getBcryptStrength());
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import tn.gov.ms.sidra.entity.User;
 
 import java.io.IOException;
 
@@ -24,6 +25,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final UserSnapshotCache userSnapshotCache;
+    private final TokenRevocationList tokenRevocationList;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -33,15 +36,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            VerifiedToken verified = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            if (verified != null && !tokenRevocationList.isRevoked(verified)) {
+                UserDetails userDetails = loadPrincipal(verified);
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (userDetails != null && userDetails.isEnabled()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             log.error("Impossible de définir l'authentification utilisateur", ex);
@@ -50,6 +56,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Utilisateur désigné par le token : copie en cache à partir de l'identifiant qu'il contient,
+     * ou lecture par email pour les anciens tokens sans identifiant. L'email doit correspondre
+     * et les sessions de l'utilisateur ne doivent pas avoir été révoquées depuis l'émission du token.
+     */
+    private UserDetails loadPrincipal(VerifiedToken verified) {
+        User user = verified.userId() != null
+                ? userSnapshotCache.get(verified.userId())
+                : (User) userDetailsService.loadUserByUsername(verified.username());
+        if (user == null || !user.getEmail().equals(verified.username())
+                || tokenRevocationList.isRevoked(verified, user)) {
+            return null;
+        }
+        return user;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
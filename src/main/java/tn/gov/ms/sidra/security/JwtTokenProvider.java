@@ -10,7 +10,15 @@ import org.springframework.stereotype.Component;
 import tn.gov.ms.sidra.entity.User;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
 @Slf4j
@@ -18,11 +26,57 @@ public class JwtTokenProvider {
 
     private final SecretKey key;
     private final long jwtExpiration;
+    private final JwtParser parser;
+    private final Map<String, VerifiedToken> verifiedTokens;
 
     public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
-                           @Value("${jwt.expiration}") long jwtExpiration) {
+                           @Value("${jwt.expiration}") long jwtExpiration,
+                           @Value("${jwt.verified-cache.max-entries:10000}") int maxVerifiedTokens) {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
         this.jwtExpiration = jwtExpiration;
+        // Le parseur est immuable et sûr entre threads : construit une seule fois
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > maxVerifiedTokens;
+            }
+        });
+    }
+
+    /**
+     * Vérifie le token une seule fois et renvoie son contenu, ou null s'il est invalide ou expiré.
+     * Les tokens déjà vérifiés sont retrouvés par l'empreinte SHA-256 du token (le token lui-même
+     * n'est pas conservé), ce qui évite de refaire le HMAC et l'analyse JSON jusqu'à leur expiration.
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            verifiedTokens.remove(digest);
+            return null;
+        }
+
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        VerifiedToken verified = new VerifiedToken(claims.getId(), claims.getSubject(), claims.get("userId", Long.class),
+                claims.get("role", String.class), claims.get("structureId", Long.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+        verifiedTokens.put(digest, verified);
+        return verified;
     }
 
     /**
@@ -33,6 +87,7 @@ public class JwtTokenProvider {
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(user.getEmail())
                 .claim("userId", user.getId())
                 .claim("role", user.getRole().name())
@@ -59,6 +114,7 @@ public class JwtTokenProvider {
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
@@ -70,11 +126,7 @@ public class JwtTokenProvider {
      * Extrait le nom d'utilisateur du token JWT
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
         return claims.getSubject();
     }
@@ -83,11 +135,7 @@ public class JwtTokenProvider {
      * Extrait l'ID utilisateur du token JWT
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
         return claims.get("userId", Long.class);
     }
@@ -96,11 +144,7 @@ public class JwtTokenProvider {
      * Extrait le rôle du token JWT
      */
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
         return claims.get("role", String.class);
     }
@@ -109,11 +153,7 @@ public class JwtTokenProvider {
      * Extrait l'ID de la structure du token JWT
      */
     public Long getStructureIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
         return claims.get("structureId", Long.class);
     }
@@ -122,12 +162,15 @@ public class JwtTokenProvider {
      * Valide un token JWT
      */
     public boolean validateToken(String authToken) {
+        return verify(authToken) != null;
+    }
+
+    /**
+     * Vérifie la signature et l'expiration, et renvoie les claims ou null
+     */
+    private Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (SecurityException ex) {
             log.error("Signature JWT invalide");
         } catch (MalformedJwtException ex) {
@@ -138,19 +181,26 @@ public class JwtTokenProvider {
             log.error("Token JWT non supporté");
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string est vide");
+        } catch (JwtException ex) {
+            log.error("Token JWT invalide: {}", ex.getMessage());
+        }
+        return null;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return false;
     }
 
     /**
      * Obtient la date d'expiration du token
      */
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
         return claims.getExpiration();
     }
@@ -0,0 +1,182 @@
+package tn.gov.ms.sidra.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Limitation en mémoire des échecs de connexion, par adresse IP et par compte, sur fenêtre glissante.
+ * Chaque clé garde les horodatages de ses derniers échecs (au plus la limite) ; les clés sont réparties
+ * sur des segments verrouillés indépendamment. Les tentatives en excès sont refusées avant toute
+ * lecture en base et tout calcul BCrypt ; seul le blocage final du compte est persisté par l'appelant.
+ */
+@Component
+@Slf4j
+public class LoginAttemptLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int accountMaxAttempts;
+    private final long accountWindowMillis;
+    private final int ipMaxAttempts;
+    private final long ipWindowMillis;
+
+    public LoginAttemptLimiter(@Value("${security.login.account-max-attempts:3}") int accountMaxAttempts,
+                               @Value("${security.login.account-window:900000}") long accountWindowMillis,
+                               @Value("${security.login.ip-max-attempts:20}") int ipMaxAttempts,
+                               @Value("${security.login.ip-window:300000}") long ipWindowMillis) {
+        this.accountMaxAttempts = accountMaxAttempts;
+        this.accountWindowMillis = accountWindowMillis;
+        this.ipMaxAttempts = ipMaxAttempts;
+        this.ipWindowMillis = ipWindowMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public int getAccountMaxAttempts() {
+        return accountMaxAttempts;
+    }
+
+    /**
+     * Date jusqu'à laquelle l'adresse ou le compte est limité, ou null si une tentative est permise
+     */
+    public LocalDateTime blockedUntil(String ipAddress, String email) {
+        long now = System.currentTimeMillis();
+        long until = Math.max(
+                retryAt(ipKey(ipAddress), ipMaxAttempts, ipWindowMillis, now),
+                retryAt(accountKey(email), accountMaxAttempts, accountWindowMillis, now));
+        return until > now ? LocalDateTime.ofInstant(Instant.ofEpochMilli(until), ZoneId.systemDefault()) : null;
+    }
+
+    /**
+     * Enregistre un échec et renvoie le nombre d'échecs du compte dans la fenêtre
+     */
+    public int recordFailure(String ipAddress, String email) {
+        long now = System.currentTimeMillis();
+        record(ipKey(ipAddress), ipMaxAttempts, ipWindowMillis, now);
+        return record(accountKey(email), accountMaxAttempts, accountWindowMillis, now);
+    }
+
+    /**
+     * Oublie les échecs du compte après une connexion réussie
+     */
+    public void reset(String email) {
+        String key = accountKey(email);
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.windows.remove(key);
+        }
+    }
+
+    /**
+     * Retire les clés dont tous les échecs sont sortis de leur fenêtre
+     */
+    @Scheduled(fixedDelayString = "${security.login.cleanup-interval:60000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        long maxWindow = Math.max(accountWindowMillis, ipWindowMillis);
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                int before = stripe.windows.size();
+                stripe.windows.values().removeIf(window -> now - window.latest() >= maxWindow);
+                removed += before - stripe.windows.size();
+            }
+        }
+        if (removed > 0) {
+            log.debug("{} fenêtre(s) de tentatives de connexion expirée(s)", removed);
+        }
+    }
+
+    private long retryAt(String key, int maxAttempts, long windowMillis, long now) {
+        if (key == null) {
+            return 0;
+        }
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.get(key);
+            if (window == null || window.countSince(now - windowMillis) < maxAttempts) {
+                return 0;
+            }
+            // Fenêtre pleine : une tentative redevient possible quand le plus ancien échec en sort
+            return window.oldest() + windowMillis;
+        }
+    }
+
+    private int record(String key, int maxAttempts, long windowMillis, long now) {
+        if (key == null) {
+            return 0;
+        }
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.computeIfAbsent(key, k -> new Window(maxAttempts));
+            window.add(now);
+            return window.countSince(now - windowMillis);
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static String ipKey(String ipAddress) {
+        return ipAddress != null && !ipAddress.isBlank() ? "ip:" + ipAddress : null;
+    }
+
+    private static String accountKey(String email) {
+        return email != null && !email.isBlank() ? "compte:" + email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static final class Stripe {
+        private final Map<String, Window> windows = new HashMap<>();
+    }
+
+    /**
+     * Horodatages des derniers échecs d'une clé, en anneau de la taille de la limite
+     */
+    private static final class Window {
+
+        private final long[] timestamps;
+        private int next;
+        private int size;
+
+        Window(int capacity) {
+            this.timestamps = new long[Math.max(capacity, 1)];
+        }
+
+        void add(long timestamp) {
+            timestamps[next] = timestamp;
+            next = (next + 1) % timestamps.length;
+            size = Math.min(size + 1, timestamps.length);
+        }
+
+        int countSince(long since) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (timestamps[i] > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        long oldest() {
+            return size < timestamps.length ? timestamps[0] : timestamps[next];
+        }
+
+        long latest() {
+            return timestamps[(next - 1 + timestamps.length) % timestamps.length];
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package tn.gov.ms.sidra.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tn.gov.ms.sidra.dto.auth.PasswordHashingStatsDto;
+import tn.gov.ms.sidra.exception.ServiceOverloadedException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool borné dédié aux calculs BCrypt (hachage et vérification des mots de passe).
+ * Le nombre de calculs simultanés est limité au nombre de threads du pool ; au-delà de la capacité
+ * de la file d'attente, la demande est refusée immédiatement (503 avec Retry-After) au lieu d'occuper
+ * les threads Tomcat. Les durées de calcul et d'attente sont mesurées pour les statistiques.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final ThreadPoolExecutor executor;
+    private final int bcryptStrength;
+    private final int threads;
+    private final int queueCapacity;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHashingExecutor(@Value("${security.password.bcrypt-strength:10}") int bcryptStrength,
+                                   @Value("${security.password.hash-threads:0}") int threads,
+                                   @Value("${security.password.hash-queue-capacity:64}") int queueCapacity) {
+        this.bcryptStrength = bcryptStrength;
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+        log.info("Pool de hachage des mots de passe: {} thread(s), file de {}, coût BCrypt {}",
+                this.threads, this.queueCapacity, bcryptStrength);
+    }
+
+    /**
+     * Coût BCrypt configuré pour les nouvelles empreintes
+     */
+    public int getBcryptStrength() {
+        return bcryptStrength;
+    }
+
+    /**
+     * Exécute le calcul dans le pool et attend son résultat ; refuse si la file est pleine
+     */
+    public <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                waitNanos.add(startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulate(elapsed);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            long retryAfter = retryAfterSeconds();
+            log.warn("File de hachage des mots de passe pleine ({}), requête refusée", queueCapacity);
+            throw new ServiceOverloadedException("Service momentanément surchargé, veuillez réessayer", retryAfter);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Calcul du mot de passe interrompu", e);
+        } catch (ExecutionException e) {
+            failed.increment();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Échec du calcul du mot de passe", cause);
+        }
+    }
+
+    public PasswordHashingStatsDto getStats() {
+        long done = completed.sum();
+        PasswordHashingStatsDto stats = new PasswordHashingStatsDto();
+        stats.setBcryptStrength(bcryptStrength);
+        stats.setThreads(threads);
+        stats.setQueueCapacity(queueCapacity);
+        stats.setQueued(executor.getQueue().size());
+        stats.setActive(executor.getActiveCount());
+        stats.setCompleted(done);
+        stats.setRejected(rejected.sum());
+        stats.setFailed(failed.sum());
+        stats.setAverageHashMillis(done > 0 ? hashNanos.sum() / NANOS_PER_MILLI / done : 0);
+        stats.setMaxHashMillis(maxHashNanos.get() / NANOS_PER_MILLI);
+        stats.setAverageWaitMillis(done > 0 ? waitNanos.sum() / NANOS_PER_MILLI / done : 0);
+        return stats;
+    }
+
+    /**
+     * Délai estimé pour écouler la file actuelle, arrondi à la seconde supérieure (au moins 1)
+     */
+    private long retryAfterSeconds() {
+        long done = completed.sum();
+        double averageNanos = done > 0 ? (double) hashNanos.sum() / done : 100 * NANOS_PER_MILLI;
+        double pending = executor.getQueue().size() + executor.getActiveCount();
+        double drainNanos = pending / threads * averageNanos;
+        return Math.max(1, (long) Math.ceil(drainNanos / 1_000_000_000.0));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,186 @@
+package tn.gov.ms.sidra.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.entity.RevokedToken;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.repository.RevokedTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Liste des tokens JWT révoqués (par jti), persistée dans revoked_tokens et recopiée en mémoire :
+ * un filtre de Bloom écarte sans autre accès la quasi-totalité des tokens non révoqués, l'ensemble
+ * exact tranche les positifs. Les entrées disparaissent avec l'expiration de leur token ; le filtre,
+ * qui ne permet pas de suppression, est alors reconstruit.
+ * <p>
+ * L'ajout d'un jti au filtre et le remplacement du filtre se font sous le même verrou : une
+ * révocation concurrente d'une reconstruction est soit vue par celle-ci dans l'ensemble exact,
+ * soit ajoutée au nouveau filtre. La lecture ({@link #isRevoked(VerifiedToken)}) reste sans verrou.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    private static final int HASH_FUNCTIONS = 7;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int bloomBits;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+    private final Object bloomLock = new Object();
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${jwt.revocation.bloom-bits:1048576}") int bloomBits) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.bloomBits = bloomBits;
+        this.bloom = new BloomFilter(bloomBits);
+    }
+
+    /**
+     * Recharge les révocations encore valides à l'initialisation du bean, avant que le filtre JWT
+     * qui en dépend ne puisse traiter une requête
+     */
+    @PostConstruct
+    public void load() {
+        for (RevokedToken token : revokedTokenRepository.findUnexpired(LocalDateTime.now())) {
+            long expiresAt = token.getDateExpiration().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            revoked.put(token.getJti(), expiresAt);
+        }
+        rebuildBloom();
+        log.info("✅ Liste de révocation des tokens chargée: {} token(s)", revoked.size());
+    }
+
+    /**
+     * Révoque un token jusqu'à son expiration ; effectif immédiatement pour les requêtes suivantes
+     */
+    @Transactional
+    public void revoke(VerifiedToken token) {
+        if (token.jti() == null || token.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+        revoked.put(token.jti(), token.expiresAt());
+        synchronized (bloomLock) {
+            bloom.add(token.jti());
+        }
+        revokedTokenRepository.insertIfAbsent(token.jti(), token.userId(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(token.expiresAt()), ZoneId.systemDefault()),
+                LocalDateTime.now());
+    }
+
+    /**
+     * Vérification en temps constant, sans accès à la base
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String jti = token.jti();
+        return jti != null && bloom.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    /**
+     * Token révoqué individuellement, ou émis avant la révocation de toutes les sessions de l'utilisateur
+     */
+    public boolean isRevoked(VerifiedToken token, User user) {
+        if (isRevoked(token)) {
+            return true;
+        }
+        LocalDateTime cutoff = user.getSessionsRevoqueesAvant();
+        // iat est à la seconde : un token émis dans la seconde de la révocation est refusé
+        return cutoff != null
+                && token.issuedAt() <= cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Retire les tokens expirés de la mémoire et de la base, puis reconstruit le filtre
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+            rebuildBloom();
+        }
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("{} révocation(s) de tokens expirés purgée(s)", deleted);
+        }
+    }
+
+    /**
+     * Reconstruit le filtre depuis l'ensemble exact. Sous le verrou, toute révocation dont l'ajout
+     * au filtre a déjà eu lieu figure dans l'ensemble parcouru, et les suivantes visent le nouveau filtre.
+     */
+    private void rebuildBloom() {
+        synchronized (bloomLock) {
+            BloomFilter rebuilt = new BloomFilter(bloomBits);
+            revoked.keySet().forEach(rebuilt::add);
+            bloom = rebuilt;
+        }
+    }
+
+    /**
+     * Filtre de Bloom à double hachage ; les bits sont posés atomiquement et donc visibles
+     * des autres threads dès le retour de {@link #add}
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final int size;
+
+        BloomFilter(int bits) {
+            this.words = new AtomicLongArray(Math.max(bits, 64) >>> 6);
+            this.size = words.length() << 6;
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = Math.floorMod(h1 + i * h2, size);
+                long mask = 1L << bit;
+                words.accumulateAndGet(bit >>> 6, mask, (word, m) -> word | m);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = Math.floorMod(h1 + i * h2, size);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * FNV-1a 64 bits suivi du mélange final de MurmurHash3
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
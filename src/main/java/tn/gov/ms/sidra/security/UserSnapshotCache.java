@@ -0,0 +1,104 @@
+package tn.gov.ms.sidra.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.repository.UserRepository;
+import tn.gov.ms.sidra.service.UserChangedEvent;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies des utilisateurs authentifiés par JWT, indexées par identifiant, pour éviter une lecture
+ * de la table users à chaque requête. Les entrées expirent après un court délai (prise en compte
+ * de {@code actif} modifié hors application) et sont retirées dès qu'un compte est modifié.
+ * Chaque requête reçoit sa propre copie de l'utilisateur ; la structure est partagée en lecture.
+ * <p>
+ * Une version par utilisateur, incrémentée à chaque modification, empêche une lecture commencée
+ * avant le commit de remettre en cache l'état antérieur (compte désactivé encore actif).
+ */
+@Component
+@Slf4j
+public class UserSnapshotCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<Long, Snapshot> snapshots;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public UserSnapshotCache(UserRepository userRepository,
+                             @Value("${security.user-cache.ttl:30000}") long ttlMillis,
+                             @Value("${security.user-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+        this.snapshots = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Utilisateur courant (avec sa structure), ou null s'il n'existe plus
+     */
+    public User get(Long userId) {
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = snapshots.get(userId);
+        if (snapshot == null || now - snapshot.loadedAt() > ttlMillis) {
+            long version = versions.getOrDefault(userId, 0L);
+            User user = userRepository.findByIdWithStructureFetched(userId).orElse(null);
+            if (user == null) {
+                snapshots.remove(userId);
+                return null;
+            }
+            snapshot = new Snapshot(user, now);
+            // Même verrou que evict : une modification validée pendant la lecture a soit changé
+            // la version, soit retirera l'entrée après cet ajout
+            synchronized (snapshots) {
+                if (versions.getOrDefault(userId, 0L) == version) {
+                    snapshots.put(userId, snapshot);
+                }
+            }
+        }
+        return copyOf(snapshot.user());
+    }
+
+    public void evict(Long userId) {
+        snapshots.remove(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        versions.merge(event.userId(), 1L, Long::sum);
+        evict(event.userId());
+        log.debug("Copie de l'utilisateur {} invalidée", event.userId());
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setNom(user.getNom());
+        copy.setPrenom(user.getPrenom());
+        copy.setEmail(user.getEmail());
+        copy.setTelephone(user.getTelephone());
+        copy.setMotDePasse(user.getMotDePasse());
+        copy.setRole(user.getRole());
+        copy.setStructure(user.getStructure());
+        copy.setActif(user.getActif());
+        copy.setDateCreation(user.getDateCreation());
+        copy.setDerniereConnexion(user.getDerniereConnexion());
+        copy.setTentativesConnexion(user.getTentativesConnexion());
+        copy.setBloqueJusqu(user.getBloqueJusqu());
+        copy.setSessionsRevoqueesAvant(user.getSessionsRevoqueesAvant());
+        return copy;
+    }
+
+    private record Snapshot(User user, long loadedAt) {
+    }
+}
@@ -0,0 +1,12 @@
+package tn.gov.ms.sidra.security;
+
+/**
+ * Contenu d'un token JWT dont la signature et l'expiration ont été vérifiées
+ */
+public record VerifiedToken(String jti, String username, Long userId, String role, Long structureId,
+                            long issuedAt, long expiresAt) {
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
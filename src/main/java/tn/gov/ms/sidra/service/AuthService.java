@@ -20,6 +20,9 @@ import tn.gov.ms.sidra.repository.UserRepository;
 import tn.gov.ms.sidra.repository.StructureRepository;
 import tn.gov.ms.sidra.service.WebSocketService;
 import tn.gov.ms.sidra.security.JwtTokenProvider;
+import tn.gov.ms.sidra.security.LoginAttemptLimiter;
+import tn.gov.ms.sidra.security.TokenRevocationList;
+import tn.gov.ms.sidra.security.VerifiedToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
@@ -37,8 +40,9 @@ public class AuthService {
     private final StructureRepository structureRepository;
     private final PasswordEncoder passwordEncoder;
     private final WebSocketService webSocketService;
+    private final TokenRevocationList tokenRevocationList;
+    private final LoginAttemptLimiter loginAttemptLimiter;
 
-    private static final int MAX_LOGIN_ATTEMPTS = 3;
     private static final int BLOCK_DURATION_MINUTES = 15;
 
     /**
@@ -179,9 +183,18 @@ public class AuthService {
     public LoginResponse login(LoginRequest request, String ipAddress) {
         log.info("Tentative de connexion pour l'email: {}", request.getEmail());
 
+        // Trop d'échecs récents pour cette adresse ou ce compte : refus sans base ni BCrypt
+        LocalDateTime limitedUntil = loginAttemptLimiter.blockedUntil(ipAddress, request.getEmail());
+        if (limitedUntil != null) {
+            log.warn("Tentative de connexion limitée pour l'email: {} depuis {}", request.getEmail(), ipAddress);
+            return new LoginResponse(false, "Trop de tentatives, veuillez réessayer plus tard", false, null,
+                    limitedUntil, 0);
+        }
+
+        User user = null;
         try {
             // Rechercher l'utilisateur
-            User user = userRepository.findByEmail(request.getEmail())
+            user = userRepository.findByEmail(request.getEmail())
                     .orElseThrow(() -> new BadCredentialsException("Identifiants invalides"));
 
             // Vérifier si le compte est actif
@@ -202,10 +215,13 @@ public class AuthService {
                     new UsernamePasswordAuthenticationToken(request.getEmail(), request.getMotDePasse())
             );
 
-            // Authentification réussie - réinitialiser les tentatives
-            user.setTentativesConnexion(0);
-            user.setBloqueJusqu(null);
-            userRepository.save(user);
+            // Authentification réussie - réinitialiser les tentatives (écriture seulement si nécessaire)
+            loginAttemptLimiter.reset(request.getEmail());
+            if (user.getBloqueJusqu() != null || (user.getTentativesConnexion() != null && user.getTentativesConnexion() != 0)) {
+                user.setTentativesConnexion(0);
+                user.setBloqueJusqu(null);
+                userRepository.save(user);
+            }
 
             // Générer et envoyer le code OTP
             otpService.generateAndStoreOtp(user, ipAddress);
@@ -215,7 +231,7 @@ public class AuthService {
 
         } catch (AuthenticationException e) {
             // Authentification échouée - gérer les tentatives
-            return handleFailedLogin(request.getEmail());
+            return handleFailedLogin(user, request.getEmail(), ipAddress);
         }
     }
 
@@ -285,18 +301,17 @@ public class AuthService {
     }
 
     /**
-     * Gère les échecs de connexion
+     * Gère les échecs de connexion : les échecs sont comptés en mémoire, seul le blocage est persisté
      */
-    private LoginResponse handleFailedLogin(String email) {
-        User user = userRepository.findByEmail(email).orElse(null);
+    private LoginResponse handleFailedLogin(User user, String email, String ipAddress) {
+        int attempts = loginAttemptLimiter.recordFailure(ipAddress, email);
 
         if (user != null) {
-            int attempts = user.getTentativesConnexion() + 1;
-            user.setTentativesConnexion(attempts);
-
-            if (attempts >= MAX_LOGIN_ATTEMPTS) {
+            int maxAttempts = loginAttemptLimiter.getAccountMaxAttempts();
+            if (attempts >= maxAttempts) {
                 // Bloquer le compte
                 LocalDateTime blockUntil = LocalDateTime.now().plusMinutes(BLOCK_DURATION_MINUTES);
+                user.setTentativesConnexion(attempts);
                 user.setBloqueJusqu(blockUntil);
                 userRepository.save(user);
 
@@ -304,8 +319,7 @@ public class AuthService {
                 return new LoginResponse(false, "Compte bloqué après trop de tentatives", false, null,
                         blockUntil, 0);
             } else {
-                userRepository.save(user);
-                int remaining = MAX_LOGIN_ATTEMPTS - attempts;
+                int remaining = maxAttempts - attempts;
                 log.warn("Échec de connexion pour l'utilisateur: {}. Tentatives restantes: {}", email, remaining);
                 return new LoginResponse(false, "Identifiants invalides", false, null, null, remaining);
             }
@@ -315,12 +329,17 @@ public class AuthService {
     }
 
     /**
-     * Déconnexion (invalidation du token côté client)
+     * Déconnexion : le token est révoqué jusqu'à son expiration
      */
+    @Transactional
     public void logout(String token) {
-        // Dans une implémentation complète, vous pourriez maintenir une liste noire des tokens
-        // ou utiliser Redis pour stocker les tokens invalidés
-        log.info("Déconnexion effectuée");
+        VerifiedToken verified = token != null ? jwtTokenProvider.verify(token) : null;
+        if (verified != null) {
+            tokenRevocationList.revoke(verified);
+            log.info("Déconnexion effectuée, token révoqué pour l'utilisateur: {}", verified.username());
+        } else {
+            log.info("Déconnexion effectuée");
+        }
     }
 
     /**
@@ -0,0 +1,95 @@
+package tn.gov.ms.sidra.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Roue temporelle hachée : chaque identifiant est rangé dans le créneau correspondant à son
+ * échéance (modulo la taille de la roue). L'avancement ne parcourt que les créneaux écoulés
+ * depuis le dernier tick, quel que soit le nombre d'échéances programmées.
+ */
+class ExpiryTimerWheel {
+
+    private final long tickMs;
+    private final int mask;
+    private final List<List<Slot>> wheel;
+    private final Set<Long> scheduled = new HashSet<>();
+    private long lastTick;
+
+    ExpiryTimerWheel(long tickMs, int wheelSize, long nowMs) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("La taille de la roue doit être une puissance de 2");
+        }
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.lastTick = nowMs / tickMs;
+    }
+
+    /**
+     * Durée couverte par la roue : les échéances au-delà sont laissées au balayage périodique
+     */
+    long horizonMs() {
+        return tickMs * (mask + 1);
+    }
+
+    /**
+     * Programme une échéance. Retourne false si elle est déjà passée (à traiter immédiatement)
+     * ou hors de l'horizon de la roue.
+     */
+    synchronized boolean schedule(Long id, long deadlineMs) {
+        // Arrondi au tick supérieur : une échéance ne sort jamais de la roue avant d'être atteinte
+        long deadlineTick = Math.max(-Math.floorDiv(-deadlineMs, tickMs), lastTick + 1);
+        if (deadlineMs <= lastTick * tickMs || deadlineTick - lastTick > mask + 1) {
+            return false;
+        }
+        if (scheduled.add(id)) {
+            wheel.get((int) (deadlineTick & mask)).add(new Slot(id, deadlineTick));
+        }
+        return true;
+    }
+
+    synchronized boolean isScheduled(Long id) {
+        return scheduled.contains(id);
+    }
+
+    /**
+     * Avance la roue jusqu'à l'instant donné et retourne les identifiants arrivés à échéance
+     */
+    synchronized List<Long> advance(long nowMs) {
+        long nowTick = nowMs / tickMs;
+        List<Long> due = new ArrayList<>();
+        if (nowTick <= lastTick) {
+            return due;
+        }
+
+        // Au-delà d'un tour complet, tous les créneaux sont concernés une seule fois
+        long steps = Math.min(nowTick - lastTick, mask + 1L);
+        for (long t = nowTick - steps + 1; t <= nowTick; t++) {
+            Iterator<Slot> it = wheel.get((int) (t & mask)).iterator();
+            while (it.hasNext()) {
+                Slot slot = it.next();
+                if (slot.deadlineTick() <= nowTick) {
+                    it.remove();
+                    scheduled.remove(slot.id());
+                    due.add(slot.id());
+                }
+            }
+        }
+        lastTick = nowTick;
+        return due;
+    }
+
+    synchronized int size() {
+        return scheduled.size();
+    }
+
+    private record Slot(Long id, long deadlineTick) {
+    }
+}
@@ -0,0 +1,25 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Champs stables du dernier formulaire d'un patient, utilisés pour pré-remplir une nouvelle visite
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormulairePrefillDto {
+    private Long formulaireId;
+    private String dateConsultation;
+    private String nationalite;
+    private String residence;
+    private String gouvernoratResidence;
+    private String delegationResidence;
+    private String paysResidence;
+    private String situationFamiliale;
+    private String situationFamilialeAutre;
+    private String niveauScolaire;
+    private String profession;
+}
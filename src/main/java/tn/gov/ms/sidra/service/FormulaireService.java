@@ -9,7 +9,6 @@ import tn.gov.ms.sidra.entity.*;
 import tn.gov.ms.sidra.exception.BusinessException;
 import tn.gov.ms.sidra.mapper.FormulaireMapper;
 import tn.gov.ms.sidra.repository.FormulaireRepository;
-import tn.gov.ms.sidra.repository.PatientAccessRepository;
 import tn.gov.ms.sidra.repository.PatientRepository;
 
 import java.time.LocalDate;
@@ -25,7 +24,8 @@ public class FormulaireService {
     private final PatientService patientService;
     private final FormulaireMapper formulaireMapper;
     private final PatientRepository patientRepository;
-    private final PatientAccessRepository patientAccessRepository;
+    private final PatientAccessDecisionCache patientAccessDecisionCache;
+    private final StructureSharingService structureSharingService;
 
     /**
      * Récupère tous les formulaires selon le rôle de l'utilisateur
@@ -274,9 +274,10 @@ public class FormulaireService {
         }
 
         if (currentUser.getRole() == UserRole.ADMIN_STRUCTURE) {
-            if (!formulaire.getStructure().getId().equals(currentUser.getStructure().getId())) {
+            if (!formulaire.getStructure().getId().equals(currentUser.getStructure().getId())
+                    && !structureSharingService.isShared(formulaire.getStructure().getId(), currentUser.getStructure().getId())) {
                 // Vérifier si l'utilisateur a une demande d'accès approuvée pour ce patient
-                boolean hasAccess = patientAccessRepository.hasAccess(formulaire.getPatient(), currentUser);
+                boolean hasAccess = patientAccessDecisionCache.hasAccess(formulaire.getPatient(), currentUser);
                 if (!hasAccess) {
                     throw new BusinessException("Vous ne pouvez consulter que les formulaires de votre structure");
                 }
@@ -295,8 +296,13 @@ public class FormulaireService {
                 return;
             }
             
+            // Vérifier si une convention de partage couvre la structure du formulaire
+            if (structureSharingService.isShared(formulaire.getStructure().getId(), currentUser.getStructure().getId())) {
+                return;
+            }
+
             // Vérifier si l'utilisateur a une demande d'accès approuvée pour ce patient
-            boolean hasAccess = patientAccessRepository.hasAccess(formulaire.getPatient(), currentUser);
+            boolean hasAccess = patientAccessDecisionCache.hasAccess(formulaire.getPatient(), currentUser);
             if (hasAccess) {
                 return;
             }
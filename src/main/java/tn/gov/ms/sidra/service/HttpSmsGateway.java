@@ -0,0 +1,81 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envoi par l'API HTTP du fournisseur SMS (sms.gateway=http), avec délais de connexion et de lecture bornés.
+ * Chaque SMS d'un lot fait l'objet de sa propre requête ; les connexions HTTP persistantes sont réutilisées
+ * entre les SMS d'un même lot.
+ */
+@Component
+@ConditionalOnProperty(name = "sms.gateway", havingValue = "http")
+@Slf4j
+public class HttpSmsGateway implements SmsGateway {
+
+    private final RestTemplate restTemplate;
+    private final String smsApiUrl;
+    private final String smsApiKey;
+    private final String smsSender;
+    private final long maxSendMillisPerMessage;
+
+    public HttpSmsGateway(@Value("${sms.api.url}") String smsApiUrl,
+                          @Value("${sms.api.key}") String smsApiKey,
+                          @Value("${sms.api.sender}") String smsSender,
+                          @Value("${sms.http.connect-timeout:2000}") int connectTimeout,
+                          @Value("${sms.http.read-timeout:5000}") int readTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.smsApiUrl = smsApiUrl;
+        this.smsApiKey = smsApiKey;
+        this.smsSender = smsSender;
+        this.maxSendMillisPerMessage = (long) connectTimeout + readTimeout;
+    }
+
+    @Override
+    public Map<Long, String> sendBatch(List<SmsMessage> messages) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(smsApiKey);
+
+        Map<Long, String> failures = new HashMap<>();
+        for (SmsMessage message : messages) {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("to", message.telephone());
+            requestBody.put("from", smsSender);
+            requestBody.put("text", message.texte());
+
+            try {
+                ResponseEntity<String> response = restTemplate.postForEntity(smsApiUrl,
+                        new HttpEntity<>(requestBody, headers), String.class);
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    failures.put(message.id(), "Code de réponse " + response.getStatusCode().value());
+                }
+            } catch (RestClientException e) {
+                log.warn("Erreur lors de l'envoi du SMS {} vers {}: {}", message.id(), message.telephone(), e.getMessage());
+                failures.put(message.id(), e.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public long maxSendMillisPerMessage() {
+        return maxSendMillisPerMessage;
+    }
+}
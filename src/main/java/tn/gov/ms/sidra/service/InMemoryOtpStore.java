@@ -0,0 +1,186 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tn.gov.ms.sidra.entity.OtpAudit;
+import tn.gov.ms.sidra.entity.OtpEtat;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.repository.OtpAuditRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codes OTP en cours gardés en mémoire avec leur échéance : la vérification et le comptage des tentatives
+ * ne touchent pas la base. Seule une trace compacte (otp_audit, sans le code) est écrite à la clôture
+ * de chaque code. Les codes en cours sont perdus au redémarrage et ne sont pas partagés entre instances.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory")
+@Slf4j
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final int MAX_TRACKED_ISSUES = 32;
+
+    private final Map<Long, UserOtps> users = new ConcurrentHashMap<>();
+    private final OtpAuditRepository otpAuditRepository;
+    private final long resendWindowMillis;
+
+    public InMemoryOtpStore(OtpAuditRepository otpAuditRepository,
+                            @Value("${otp.resend-window:3600000}") long resendWindowMillis) {
+        this.otpAuditRepository = otpAuditRepository;
+        this.resendWindowMillis = resendWindowMillis;
+    }
+
+    @Override
+    public void issue(User user, String code, LocalDateTime dateExpiration, String ipAddress) {
+        LocalDateTime now = LocalDateTime.now();
+        OtpAudit replaced;
+        while (true) {
+            UserOtps state = users.computeIfAbsent(user.getId(), id -> new UserOtps());
+            synchronized (state) {
+                if (state.removed) {
+                    continue;
+                }
+                replaced = state.close(user.getId(), OtpEtat.EXPIRE, now);
+                state.current = new Challenge(code, now, dateExpiration, ipAddress);
+                state.issues.addLast(now);
+                while (state.issues.size() > MAX_TRACKED_ISSUES) {
+                    state.issues.removeFirst();
+                }
+                break;
+            }
+        }
+        if (replaced != null) {
+            otpAuditRepository.save(replaced);
+        }
+    }
+
+    @Override
+    public Verification verify(User user, String code, int maxAttempts) {
+        UserOtps state = users.get(user.getId());
+        if (state == null) {
+            return new Verification(Statut.ABSENT, 0);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Verification verification;
+        OtpAudit closed = null;
+        synchronized (state) {
+            Challenge challenge = state.current;
+            if (challenge == null) {
+                return new Verification(Statut.ABSENT, 0);
+            }
+            if (now.isAfter(challenge.dateExpiration)) {
+                verification = new Verification(Statut.EXPIRE, challenge.attempts);
+                closed = state.close(user.getId(), OtpEtat.EXPIRE, now);
+            } else if (challenge.attempts >= maxAttempts) {
+                verification = new Verification(Statut.BLOQUE, challenge.attempts);
+                closed = state.close(user.getId(), OtpEtat.BLOQUE, now);
+            } else {
+                challenge.attempts++;
+                if (OtpService.codesMatch(challenge.code, code)) {
+                    verification = new Verification(Statut.ACCEPTE, challenge.attempts);
+                    closed = state.close(user.getId(), OtpEtat.UTILISE, now);
+                } else {
+                    verification = new Verification(Statut.REFUSE, challenge.attempts);
+                }
+            }
+        }
+        if (closed != null) {
+            otpAuditRepository.save(closed);
+        }
+        return verification;
+    }
+
+    @Override
+    public int getRemainingAttempts(User user, int maxAttempts) {
+        UserOtps state = users.get(user.getId());
+        if (state == null) {
+            return maxAttempts;
+        }
+        synchronized (state) {
+            return state.current != null ? Math.max(0, maxAttempts - state.current.attempts) : maxAttempts;
+        }
+    }
+
+    @Override
+    public long countIssuedSince(User user, LocalDateTime since) {
+        UserOtps state = users.get(user.getId());
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.issues.stream().filter(issuedAt -> issuedAt.isAfter(since)).count();
+        }
+    }
+
+    @Override
+    public int purgeExpired(LocalDateTime now) {
+        LocalDateTime windowStart = now.minusNanos(resendWindowMillis * 1_000_000);
+        List<OtpAudit> expired = new ArrayList<>();
+        for (Map.Entry<Long, UserOtps> entry : users.entrySet()) {
+            UserOtps state = entry.getValue();
+            synchronized (state) {
+                if (state.current != null && now.isAfter(state.current.dateExpiration)) {
+                    expired.add(state.close(entry.getKey(), OtpEtat.EXPIRE, now));
+                }
+                while (!state.issues.isEmpty() && !state.issues.peekFirst().isAfter(windowStart)) {
+                    state.issues.removeFirst();
+                }
+                // Plus de code en cours ni d'émission dans la fenêtre : l'entrée peut disparaître
+                if (state.current == null && state.issues.isEmpty()) {
+                    state.removed = true;
+                    users.remove(entry.getKey(), state);
+                }
+            }
+        }
+        if (!expired.isEmpty()) {
+            otpAuditRepository.saveAll(expired);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Code en cours et dates d'émission récentes d'un utilisateur ; protégé par son propre verrou
+     */
+    private static final class UserOtps {
+
+        private final Deque<LocalDateTime> issues = new ArrayDeque<>();
+        private Challenge current;
+        private boolean removed;
+
+        private OtpAudit close(Long utilisateurId, OtpEtat etat, LocalDateTime now) {
+            if (current == null) {
+                return null;
+            }
+            OtpAudit audit = new OtpAudit(null, utilisateurId, current.ipAddress, current.dateEmission, now,
+                    etat, current.attempts);
+            current = null;
+            return audit;
+        }
+    }
+
+    private static final class Challenge {
+
+        private final String code;
+        private final LocalDateTime dateEmission;
+        private final LocalDateTime dateExpiration;
+        private final String ipAddress;
+        private int attempts;
+
+        private Challenge(String code, LocalDateTime dateEmission, LocalDateTime dateExpiration, String ipAddress) {
+            this.code = code;
+            this.dateEmission = dateEmission;
+            this.dateExpiration = dateExpiration;
+            this.ipAddress = ipAddress;
+        }
+    }
+}
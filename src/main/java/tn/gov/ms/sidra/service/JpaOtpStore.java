@@ -0,0 +1,90 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.entity.OtpCode;
+import tn.gov.ms.sidra.entity.OtpEtat;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.repository.OtpCodeRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Codes OTP conservés dans la table otp_codes (un enregistrement par code émis)
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpCodeRepository otpCodeRepository;
+
+    @Override
+    @Transactional
+    public void issue(User user, String code, LocalDateTime dateExpiration, String ipAddress) {
+        otpCodeRepository.updateEtatByUserAndEtat(user, OtpEtat.VALIDE, OtpEtat.EXPIRE);
+
+        OtpCode otpEntity = new OtpCode();
+        otpEntity.setUser(user);
+        otpEntity.setCode(code);
+        otpEntity.setDateExpiration(dateExpiration);
+        otpEntity.setEtat(OtpEtat.VALIDE);
+        otpEntity.setNombreTentatives(0);
+        otpEntity.setAdresseIp(ipAddress);
+        otpCodeRepository.save(otpEntity);
+    }
+
+    @Override
+    @Transactional
+    public Verification verify(User user, String code, int maxAttempts) {
+        Optional<OtpCode> otpOptional = otpCodeRepository
+                .findFirstByUserAndEtatOrderByDateCreationDesc(user, OtpEtat.VALIDE);
+        if (otpOptional.isEmpty()) {
+            return new Verification(Statut.ABSENT, 0);
+        }
+
+        OtpCode otpCode = otpOptional.get();
+        if (otpCode.isExpired()) {
+            otpCode.setEtat(OtpEtat.EXPIRE);
+            otpCodeRepository.save(otpCode);
+            return new Verification(Statut.EXPIRE, otpCode.getNombreTentatives());
+        }
+
+        if (otpCode.getNombreTentatives() >= maxAttempts) {
+            otpCode.setEtat(OtpEtat.BLOQUE);
+            otpCodeRepository.save(otpCode);
+            return new Verification(Statut.BLOQUE, otpCode.getNombreTentatives());
+        }
+
+        otpCode.setNombreTentatives(otpCode.getNombreTentatives() + 1);
+        boolean accepted = OtpService.codesMatch(otpCode.getCode(), code);
+        if (accepted) {
+            otpCode.setEtat(OtpEtat.UTILISE);
+        }
+        otpCodeRepository.save(otpCode);
+        return new Verification(accepted ? Statut.ACCEPTE : Statut.REFUSE, otpCode.getNombreTentatives());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int getRemainingAttempts(User user, int maxAttempts) {
+        return otpCodeRepository.findFirstByUserAndEtatOrderByDateCreationDesc(user, OtpEtat.VALIDE)
+                .map(otpCode -> Math.max(0, maxAttempts - otpCode.getNombreTentatives()))
+                .orElse(maxAttempts);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countIssuedSince(User user, LocalDateTime since) {
+        return otpCodeRepository.countByUserAndDateCreationAfter(user, since);
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired(LocalDateTime now) {
+        return otpCodeRepository.expireOldCodes(now);
+    }
+}
@@ -0,0 +1,228 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesAnomalyDto;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesMetric;
+import tn.gov.ms.sidra.entity.OffreDrogues;
+import tn.gov.ms.sidra.entity.OffreDroguesDetecteurEtat;
+import tn.gov.ms.sidra.repository.OffreDroguesDetecteurEtatRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Détection en ligne des pics de saisies par structure et par substance.
+ * Chaque série conserve une moyenne et une variance à pondération exponentielle (EWMA),
+ * mises à jour en O(1) à chaque nouvelle saisie, sans relire l'historique.
+ * Les valeurs sont relevées dans la transaction de la saisie mais évaluées après son commit :
+ * une saisie annulée ne modifie donc pas l'état. L'état est calculé en mémoire sous le verrou
+ * de la série, puis enregistré hors de ce verrou dans une transaction propre ; il est rechargé
+ * au démarrage.
+ */
+@Service
+@Slf4j
+public class OffreDroguesAnomalyDetector {
+
+    private static final Map<SeriesMetric, Function<OffreDrogues, Number>> SUBSTANCES = new LinkedHashMap<>();
+
+    static {
+        SUBSTANCES.put(SeriesMetric.CANNABIS, OffreDrogues::getCannabis);
+        SUBSTANCES.put(SeriesMetric.COMPRIMES_TABLEAU_A, OffreDrogues::getComprimesTableauA);
+        SUBSTANCES.put(SeriesMetric.ECSTASY_COMPRIME, OffreDrogues::getEcstasyComprime);
+        SUBSTANCES.put(SeriesMetric.ECSTASY_POUDRE, OffreDrogues::getEcstasyPoudre);
+        SUBSTANCES.put(SeriesMetric.SUBUTEX, OffreDrogues::getSubutex);
+        SUBSTANCES.put(SeriesMetric.COCAINE, OffreDrogues::getCocaine);
+        SUBSTANCES.put(SeriesMetric.HEROINE, OffreDrogues::getHeroine);
+    }
+
+    private final OffreDroguesDetecteurEtatRepository etatRepository;
+    private final WebSocketService webSocketService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate requiresNew;
+    private final double alpha;
+    private final double threshold;
+    private final long warmup;
+
+    private final Map<SeriesKey, SeriesState> states = new ConcurrentHashMap<>();
+
+    public OffreDroguesAnomalyDetector(OffreDroguesDetecteurEtatRepository etatRepository,
+                                       WebSocketService webSocketService,
+                                       ApplicationEventPublisher eventPublisher,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${offre-drogues.anomaly.alpha:0.1}") double alpha,
+                                       @Value("${offre-drogues.anomaly.threshold:3.0}") double threshold,
+                                       @Value("${offre-drogues.anomaly.warmup:10}") long warmup) {
+        this.etatRepository = etatRepository;
+        this.webSocketService = webSocketService;
+        this.eventPublisher = eventPublisher;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.warmup = warmup;
+    }
+
+    /**
+     * Recharge l'état des séries au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void restore() {
+        for (OffreDroguesDetecteurEtat etat : etatRepository.findAll()) {
+            SeriesMetric substance = SeriesMetric.fromKey(etat.getSubstance());
+            if (substance != null) {
+                states.put(new SeriesKey(etat.getStructureId(), substance),
+                        new SeriesState(etat.getNombreObservations(), etat.getMoyenne(), etat.getVariance()));
+            }
+        }
+        log.info("✅ {} série(s) du détecteur d'anomalies rechargée(s)", states.size());
+    }
+
+    /**
+     * Évalue une nouvelle saisie puis l'intègre à l'état de ses séries, après le commit
+     */
+    public void observe(OffreDrogues offreDrogues) {
+        publish(offreDrogues, true);
+    }
+
+    /**
+     * Évalue une saisie corrigée sans modifier l'état : l'ancienne valeur y est déjà intégrée
+     */
+    public void score(OffreDrogues offreDrogues) {
+        publish(offreDrogues, false);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onObserved(OffreDroguesObservedEvent event) {
+        List<Persisted> toPersist = new ArrayList<>();
+
+        for (Map.Entry<SeriesMetric, Double> entry : event.valeurs().entrySet()) {
+            SeriesMetric substance = entry.getKey();
+            double value = entry.getValue();
+            SeriesState state = states.computeIfAbsent(new SeriesKey(event.structureId(), substance),
+                    key -> new SeriesState(0, 0, 0));
+
+            // Calcul seul sous le verrou : aucun accès à la base ni notification
+            double mean;
+            double stdDev;
+            boolean scored;
+            synchronized (state) {
+                mean = state.mean;
+                stdDev = Math.sqrt(state.variance);
+                scored = state.count >= warmup;
+                if (event.update()) {
+                    state.update(value, alpha);
+                    toPersist.add(new Persisted(substance, state.count, state.mean, state.variance));
+                }
+            }
+
+            if (scored && value > mean && stdDev > 0) {
+                double z = (value - mean) / stdDev;
+                if (z >= threshold) {
+                    log.warn("Anomalie détectée - structure: {}, substance: {}, valeur: {}, moyenne: {}, score: {}",
+                            event.structureId(), substance.getKey(), value, mean, z);
+                    webSocketService.notifyAdmins("ANOMALY_DETECTED", new OffreDroguesAnomalyDto(
+                            event.offreDroguesId(), event.utilisateurId(), event.structureId(), event.structureNom(),
+                            event.dateSaisie(), substance.getKey(), value, mean, stdDev, z));
+                }
+            }
+        }
+
+        if (!toPersist.isEmpty()) {
+            persist(event.structureId(), toPersist);
+        }
+    }
+
+    /**
+     * Relève les quantités de la saisie ; l'évaluation a lieu après le commit de la transaction courante
+     */
+    private void publish(OffreDrogues offreDrogues, boolean update) {
+        if (offreDrogues.getStructure() == null) {
+            return;
+        }
+        Map<SeriesMetric, Double> valeurs = new EnumMap<>(SeriesMetric.class);
+        for (Map.Entry<SeriesMetric, Function<OffreDrogues, Number>> substance : SUBSTANCES.entrySet()) {
+            Number number = substance.getValue().apply(offreDrogues);
+            if (number != null) {
+                valeurs.put(substance.getKey(), number.doubleValue());
+            }
+        }
+        if (valeurs.isEmpty()) {
+            return;
+        }
+        eventPublisher.publishEvent(new OffreDroguesObservedEvent(offreDrogues.getId(),
+                offreDrogues.getUtilisateur() != null ? offreDrogues.getUtilisateur().getId() : null,
+                offreDrogues.getStructure().getId(), offreDrogues.getStructure().getNom(),
+                offreDrogues.getDateSaisie(), valeurs, update));
+    }
+
+    /**
+     * Enregistre l'état des séries d'une saisie dans une transaction propre (la saisie est déjà validée).
+     * L'enregistrement est idempotent et ne remplace jamais un état plus avancé : deux saisies concurrentes
+     * peuvent l'écrire dans le désordre. Un échec est journalisé, l'état mémoire reste la référence.
+     */
+    private void persist(Long structureId, List<Persisted> states) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                for (Persisted etat : states) {
+                    etatRepository.upsert(structureId, etat.substance().getKey(),
+                            etat.count(), etat.mean(), etat.variance(), now);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Impossible d'enregistrer l'état du détecteur pour la structure {}: {}", structureId, e.getMessage());
+        }
+    }
+
+    private record Persisted(SeriesMetric substance, long count, double mean, double variance) {
+    }
+
+    private record SeriesKey(Long structureId, SeriesMetric substance) {
+    }
+
+    /**
+     * Moyenne et variance EWMA ; la première observation initialise la moyenne
+     */
+    private static final class SeriesState {
+        long count;
+        double mean;
+        double variance;
+
+        SeriesState(long count, double mean, double variance) {
+            this.count = count;
+            this.mean = mean;
+            this.variance = variance;
+        }
+
+        void update(double value, double alpha) {
+            if (count == 0) {
+                mean = value;
+                variance = 0;
+            } else {
+                double diff = value - mean;
+                double increment = alpha * diff;
+                mean += increment;
+                variance = (1 - alpha) * (variance + diff * increment);
+            }
+            count++;
+        }
+    }
+}
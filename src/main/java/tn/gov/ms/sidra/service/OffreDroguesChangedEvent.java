@@ -0,0 +1,11 @@
+package tn.gov.ms.sidra.service;
+
+import java.time.LocalDate;
+
+/**
+ * Événement publié lorsqu'une saisie d'offre de drogues est ajoutée, modifiée ou supprimée.
+ * {@code present} indique si la saisie existe à cette date après le changement
+ * (une modification publie un retrait puis un ajout).
+ */
+public record OffreDroguesChangedEvent(Long utilisateurId, Long structureId, LocalDate dateSaisie, boolean present) {
+}
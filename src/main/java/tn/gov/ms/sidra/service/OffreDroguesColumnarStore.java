@@ -0,0 +1,506 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.gov.ms.sidra.dto.offredrogues.ColumnarSnapshotStatsDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesAggregateDto;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesGroupBy;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesMetric;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Copie mémoire en colonnes des saisies d'offre de drogues, triée par date de saisie.
+ * Chaque mesure est un tableau primitif (int[] pour les effectifs, double[] pour les quantités) ;
+ * structures et gouvernorats sont codés par dictionnaire. La copie est chargée au démarrage,
+ * puis corrigée après chaque commit : les couples (utilisateur, jour) modifiés sont relus et
+ * fusionnés en une passe par la tâche planifiée {@link #mergePending()}.
+ * <p>
+ * Les lecteurs ne prennent aucun verrou et n'accèdent pas à la base : ils servent la copie
+ * publiée au moment de l'appel. Une saisie validée y apparaît donc avec un retard borné par
+ * {@code offre-drogues.snapshot.merge-interval} augmenté de la durée d'une fusion.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OffreDroguesColumnarStore {
+
+    private static final List<SeriesMetric> STORED_METRICS = Arrays.stream(SeriesMetric.values())
+            .filter(metric -> metric.getColumn() != null)
+            .collect(Collectors.toUnmodifiableList());
+
+    private static final String SELECT_SQL = "SELECT o.id, o.date_saisie, o.utilisateur_id, o.structure_id, s.nom, " +
+            "s.gouvernorat_id, g.nom" +
+            STORED_METRICS.stream().map(metric -> ", o." + metric.getColumn()).collect(Collectors.joining()) +
+            " FROM offre_drogues o LEFT JOIN structures s ON s.id = o.structure_id " +
+            "LEFT JOIN gouvernorats g ON g.id = s.gouvernorat_id ";
+
+    private static final int FETCH_SIZE = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Dictionary structures = new Dictionary();
+    private final Dictionary gouvernorats = new Dictionary();
+    private final Set<PendingKey> pending = ConcurrentHashMap.newKeySet();
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot = new Builder(0).build();
+    private volatile LocalDateTime loadedAt;
+    private volatile LocalDateTime mergedAt;
+
+    /**
+     * Charge toutes les saisies au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            Builder builder = new Builder(1024);
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(SELECT_SQL + "ORDER BY o.date_saisie, o.id");
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, (ResultSet rs) -> {
+                builder.append(readRow(rs));
+            });
+            snapshot = builder.build();
+            loadedAt = LocalDateTime.now();
+            log.info("✅ Copie en colonnes de l'offre de drogues chargée: {} saisie(s), {} Ko, {} ms",
+                    snapshot.size, snapshot.heapBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOffreDroguesChanged(OffreDroguesChangedEvent event) {
+        if (event.utilisateurId() != null && event.dateSaisie() != null) {
+            pending.add(new PendingKey(event.utilisateurId(), (int) event.dateSaisie().toEpochDay()));
+        }
+    }
+
+    /**
+     * Fusionne les modifications en attente et publie une nouvelle copie ; seul point d'écriture
+     * après le chargement, les lectures n'attendent jamais cette fusion
+     */
+    @Scheduled(fixedDelayString = "${offre-drogues.snapshot.merge-interval:5000}")
+    public void mergePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            Set<PendingKey> keys = new HashSet<>(pending);
+            pending.removeAll(keys);
+            if (keys.isEmpty()) {
+                return;
+            }
+
+            List<Row> fresh = fetchRows(keys);
+            snapshot = merge(snapshot, keys, fresh);
+            mergedAt = LocalDateTime.now();
+            log.debug("Copie en colonnes corrigée: {} clé(s), {} saisie(s) relue(s)", keys.size(), fresh.size());
+        }
+    }
+
+    /**
+     * Totaux par groupe sur [from, to], éventuellement restreints à un utilisateur ou une structure.
+     * Calculés sur la copie courante, sans attendre la fusion des modifications en attente.
+     */
+    public OffreDroguesAggregateDto aggregate(LocalDate from, LocalDate to, SeriesGroupBy groupBy,
+                                              List<SeriesMetric> metrics, Long utilisateurId, Long structureId) {
+        Snapshot s = snapshot;
+
+        OffreDroguesAggregateDto result = new OffreDroguesAggregateDto();
+        result.setGroupBy(groupBy);
+        result.setFrom(from);
+        result.setTo(to);
+
+        int lo = lowerBound(s.days, s.size, (int) from.toEpochDay());
+        int hi = lowerBound(s.days, s.size, (int) to.toEpochDay() + 1);
+        int structureCode = structureId != null ? structures.codeOf(structureId) : -1;
+
+        // Sélection des lignes et de leur groupe en une passe
+        int[] rows = new int[Math.max(hi - lo, 0)];
+        int[] groups = new int[rows.length];
+        int selected = 0;
+        boolean byUser = utilisateurId != null;
+        long user = byUser ? utilisateurId : 0L;
+        if (structureId == null || structureCode >= 0) {
+            for (int i = lo; i < hi; i++) {
+                if (byUser && s.utilisateurIds[i] != user) continue;
+                if (structureId != null && s.structureCodes[i] != structureCode) continue;
+                rows[selected] = i;
+                groups[selected] = switch (groupBy) {
+                    case NONE -> 0;
+                    case STRUCTURE -> s.structureCodes[i];
+                    case GOUVERNORAT -> s.gouvernoratCodes[i];
+                };
+                selected++;
+            }
+        }
+
+        Dictionary dictionary = groupBy == SeriesGroupBy.GOUVERNORAT ? gouvernorats : structures;
+        int groupCount = groupBy == SeriesGroupBy.NONE ? 1 : dictionary.size();
+        int[] counts = new int[groupCount];
+        for (int k = 0; k < selected; k++) {
+            counts[groups[k]]++;
+        }
+
+        // Groupes présents, dans l'ordre des codes
+        int[] groupSlots = new int[groupCount];
+        List<Long> groupes = new ArrayList<>();
+        Map<Long, String> libelles = new HashMap<>();
+        int present = 0;
+        for (int g = 0; g < groupCount; g++) {
+            if (counts[g] == 0) {
+                groupSlots[g] = -1;
+                continue;
+            }
+            groupSlots[g] = present++;
+            if (groupBy != SeriesGroupBy.NONE) {
+                Long id = dictionary.idOf(g);
+                groupes.add(id);
+                if (id != null) {
+                    libelles.put(id, dictionary.labelOf(g));
+                }
+            }
+        }
+        if (groupBy != SeriesGroupBy.NONE) {
+            result.setGroupes(groupes);
+            result.setLibelles(libelles);
+        }
+
+        for (SeriesMetric metric : metrics) {
+            if (metric == SeriesMetric.SAISIES) {
+                long[] totals = new long[present];
+                for (int g = 0; g < groupCount; g++) {
+                    if (groupSlots[g] >= 0) totals[groupSlots[g]] = counts[g];
+                }
+                result.getValeurs().put(metric.getKey(), totals);
+            } else if (metric.isIntegral()) {
+                int[] column = s.intColumns[s.columnIndex[metric.ordinal()]];
+                long[] byCode = new long[groupCount];
+                for (int k = 0; k < selected; k++) {
+                    byCode[groups[k]] += column[rows[k]];
+                }
+                long[] totals = new long[present];
+                for (int g = 0; g < groupCount; g++) {
+                    if (groupSlots[g] >= 0) totals[groupSlots[g]] = byCode[g];
+                }
+                result.getValeurs().put(metric.getKey(), totals);
+            } else {
+                double[] column = s.doubleColumns[s.columnIndex[metric.ordinal()]];
+                double[] byCode = new double[groupCount];
+                for (int k = 0; k < selected; k++) {
+                    byCode[groups[k]] += column[rows[k]];
+                }
+                double[] totals = new double[present];
+                for (int g = 0; g < groupCount; g++) {
+                    if (groupSlots[g] >= 0) totals[groupSlots[g]] = byCode[g];
+                }
+                result.getValeurs().put(metric.getKey(), totals);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Taille et empreinte mémoire de la copie courante
+     */
+    public ColumnarSnapshotStatsDto getStats() {
+        Snapshot s = snapshot;
+        ColumnarSnapshotStatsDto stats = new ColumnarSnapshotStatsDto();
+        stats.setRows(s.size);
+        stats.setColumns(STORED_METRICS.size());
+        stats.setStructures(structures.size());
+        stats.setGouvernorats(gouvernorats.size());
+        stats.setPendingChanges(pending.size());
+        stats.setHeapBytes(s.heapBytes() + structures.heapBytes() + gouvernorats.heapBytes());
+        stats.setLoadedAt(loadedAt);
+        stats.setMergedAt(mergedAt);
+        return stats;
+    }
+
+    private List<Row> fetchRows(Set<PendingKey> keys) {
+        Map<Long, List<PendingKey>> byUser = keys.stream().collect(Collectors.groupingBy(PendingKey::utilisateurId));
+        List<Row> rows = new ArrayList<>();
+        for (Map.Entry<Long, List<PendingKey>> entry : byUser.entrySet()) {
+            int minDay = entry.getValue().stream().mapToInt(PendingKey::day).min().orElseThrow();
+            int maxDay = entry.getValue().stream().mapToInt(PendingKey::day).max().orElseThrow();
+            jdbcTemplate.query(SELECT_SQL + "WHERE o.utilisateur_id = ? AND o.date_saisie BETWEEN ? AND ?",
+                    (ResultSet rs) -> {
+                        Row row = readRow(rs);
+                        if (keys.contains(new PendingKey(row.utilisateurId, row.day))) {
+                            rows.add(row);
+                        }
+                    },
+                    entry.getKey(), LocalDate.ofEpochDay(minDay), LocalDate.ofEpochDay(maxDay));
+        }
+        rows.sort(Comparator.comparingInt((Row row) -> row.day).thenComparingLong(row -> row.id));
+        return rows;
+    }
+
+    private Snapshot merge(Snapshot old, Set<PendingKey> keys, List<Row> fresh) {
+        int minDay = keys.stream().mapToInt(PendingKey::day).min().orElseThrow();
+        int maxDay = keys.stream().mapToInt(PendingKey::day).max().orElseThrow();
+
+        Builder builder = new Builder(old.size + fresh.size());
+        int j = 0;
+        for (int i = 0; i < old.size; i++) {
+            int day = old.days[i];
+            while (j < fresh.size() && (fresh.get(j).day < day
+                    || (fresh.get(j).day == day && fresh.get(j).id < old.ids[i]))) {
+                builder.append(fresh.get(j++));
+            }
+            if (day >= minDay && day <= maxDay && keys.contains(new PendingKey(old.utilisateurIds[i], day))) {
+                continue;
+            }
+            builder.appendFrom(old, i);
+        }
+        while (j < fresh.size()) {
+            builder.append(fresh.get(j++));
+        }
+        return builder.build();
+    }
+
+    private Row readRow(ResultSet rs) throws SQLException {
+        Row row = new Row();
+        row.id = rs.getLong(1);
+        row.day = (int) rs.getDate(2).toLocalDate().toEpochDay();
+        row.utilisateurId = rs.getLong(3);
+        long structureId = rs.getLong(4);
+        row.structureCode = rs.wasNull() ? 0 : structures.encode(structureId, rs.getString(5));
+        long gouvernoratId = rs.getLong(6);
+        row.gouvernoratCode = rs.wasNull() ? 0 : gouvernorats.encode(gouvernoratId, rs.getString(7));
+        row.ints = new int[Snapshot.INT_COLUMNS];
+        row.doubles = new double[Snapshot.DOUBLE_COLUMNS];
+        for (int m = 0; m < STORED_METRICS.size(); m++) {
+            SeriesMetric metric = STORED_METRICS.get(m);
+            int index = Snapshot.COLUMN_INDEX[metric.ordinal()];
+            if (metric.isIntegral()) {
+                row.ints[index] = rs.getInt(8 + m);
+            } else {
+                row.doubles[index] = rs.getDouble(8 + m);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Premier indice dont le jour est supérieur ou égal à la clé
+     */
+    private static int lowerBound(int[] days, int size, int key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private record PendingKey(long utilisateurId, int day) {
+    }
+
+    private static final class Row {
+        long id;
+        int day;
+        long utilisateurId;
+        int structureCode;
+        int gouvernoratCode;
+        int[] ints;
+        double[] doubles;
+    }
+
+    /**
+     * Copie immuable : tableaux de taille exacte, partagés sans verrou par les lecteurs
+     */
+    private static final class Snapshot {
+        static final int[] COLUMN_INDEX = new int[SeriesMetric.values().length];
+        static final int INT_COLUMNS;
+        static final int DOUBLE_COLUMNS;
+
+        static {
+            int ints = 0;
+            int doubles = 0;
+            Arrays.fill(COLUMN_INDEX, -1);
+            for (SeriesMetric metric : STORED_METRICS) {
+                COLUMN_INDEX[metric.ordinal()] = metric.isIntegral() ? ints++ : doubles++;
+            }
+            INT_COLUMNS = ints;
+            DOUBLE_COLUMNS = doubles;
+        }
+
+        final int size;
+        final long[] ids;
+        final int[] days;
+        final long[] utilisateurIds;
+        final int[] structureCodes;
+        final int[] gouvernoratCodes;
+        final int[][] intColumns;
+        final double[][] doubleColumns;
+        final int[] columnIndex = COLUMN_INDEX;
+
+        Snapshot(int size, long[] ids, int[] days, long[] utilisateurIds, int[] structureCodes,
+                 int[] gouvernoratCodes, int[][] intColumns, double[][] doubleColumns) {
+            this.size = size;
+            this.ids = ids;
+            this.days = days;
+            this.utilisateurIds = utilisateurIds;
+            this.structureCodes = structureCodes;
+            this.gouvernoratCodes = gouvernoratCodes;
+            this.intColumns = intColumns;
+            this.doubleColumns = doubleColumns;
+        }
+
+        long heapBytes() {
+            long arrayHeader = 16;
+            long bytes = 5 * arrayHeader + (long) size * (8 + 4 + 8 + 4 + 4);
+            bytes += (long) intColumns.length * (arrayHeader + 4L * size);
+            bytes += (long) doubleColumns.length * (arrayHeader + 8L * size);
+            return bytes;
+        }
+    }
+
+    private static final class Builder {
+        int size;
+        long[] ids;
+        int[] days;
+        long[] utilisateurIds;
+        int[] structureCodes;
+        int[] gouvernoratCodes;
+        int[][] intColumns = new int[Snapshot.INT_COLUMNS][];
+        double[][] doubleColumns = new double[Snapshot.DOUBLE_COLUMNS][];
+
+        Builder(int capacity) {
+            int initial = Math.max(capacity, 16);
+            ids = new long[initial];
+            days = new int[initial];
+            utilisateurIds = new long[initial];
+            structureCodes = new int[initial];
+            gouvernoratCodes = new int[initial];
+            for (int c = 0; c < intColumns.length; c++) intColumns[c] = new int[initial];
+            for (int c = 0; c < doubleColumns.length; c++) doubleColumns[c] = new double[initial];
+        }
+
+        void append(Row row) {
+            ensureCapacity();
+            ids[size] = row.id;
+            days[size] = row.day;
+            utilisateurIds[size] = row.utilisateurId;
+            structureCodes[size] = row.structureCode;
+            gouvernoratCodes[size] = row.gouvernoratCode;
+            for (int c = 0; c < intColumns.length; c++) intColumns[c][size] = row.ints[c];
+            for (int c = 0; c < doubleColumns.length; c++) doubleColumns[c][size] = row.doubles[c];
+            size++;
+        }
+
+        void appendFrom(Snapshot source, int i) {
+            ensureCapacity();
+            ids[size] = source.ids[i];
+            days[size] = source.days[i];
+            utilisateurIds[size] = source.utilisateurIds[i];
+            structureCodes[size] = source.structureCodes[i];
+            gouvernoratCodes[size] = source.gouvernoratCodes[i];
+            for (int c = 0; c < intColumns.length; c++) intColumns[c][size] = source.intColumns[c][i];
+            for (int c = 0; c < doubleColumns.length; c++) doubleColumns[c][size] = source.doubleColumns[c][i];
+            size++;
+        }
+
+        private void ensureCapacity() {
+            if (size < ids.length) {
+                return;
+            }
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            days = Arrays.copyOf(days, capacity);
+            utilisateurIds = Arrays.copyOf(utilisateurIds, capacity);
+            structureCodes = Arrays.copyOf(structureCodes, capacity);
+            gouvernoratCodes = Arrays.copyOf(gouvernoratCodes, capacity);
+            for (int c = 0; c < intColumns.length; c++) intColumns[c] = Arrays.copyOf(intColumns[c], capacity);
+            for (int c = 0; c < doubleColumns.length; c++) doubleColumns[c] = Arrays.copyOf(doubleColumns[c], capacity);
+        }
+
+        Snapshot build() {
+            int[][] ints = new int[intColumns.length][];
+            double[][] doubles = new double[doubleColumns.length][];
+            for (int c = 0; c < ints.length; c++) ints[c] = Arrays.copyOf(intColumns[c], size);
+            for (int c = 0; c < doubles.length; c++) doubles[c] = Arrays.copyOf(doubleColumns[c], size);
+            return new Snapshot(size, Arrays.copyOf(ids, size), Arrays.copyOf(days, size),
+                    Arrays.copyOf(utilisateurIds, size), Arrays.copyOf(structureCodes, size),
+                    Arrays.copyOf(gouvernoratCodes, size), ints, doubles);
+        }
+    }
+
+    /**
+     * Dictionnaire identifiant → code dense ; le code 0 représente l'absence de valeur.
+     * Les codes ne sont jamais réattribués, les copies successives restent donc cohérentes.
+     */
+    private static final class Dictionary {
+        private final Map<Long, Integer> codes = new ConcurrentHashMap<>();
+        private final List<Long> ids = new CopyOnWriteArrayList<>(Collections.singletonList(null));
+        private final List<String> labels = new CopyOnWriteArrayList<>(Collections.singletonList(null));
+
+        synchronized int encode(long id, String label) {
+            Integer code = codes.get(id);
+            if (code != null) {
+                if (label != null && !label.equals(labels.get(code))) {
+                    labels.set(code, label);
+                }
+                return code;
+            }
+            ids.add(id);
+            labels.add(label);
+            int newCode = ids.size() - 1;
+            codes.put(id, newCode);
+            return newCode;
+        }
+
+        int codeOf(long id) {
+            return codes.getOrDefault(id, -1);
+        }
+
+        Long idOf(int code) {
+            return ids.get(code);
+        }
+
+        String labelOf(int code) {
+            return labels.get(code);
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        long heapBytes() {
+            return labels.stream().mapToLong(label -> label != null ? 40L + 2L * label.length() : 0L).sum()
+                    + ids.size() * 80L;
+        }
+    }
+}
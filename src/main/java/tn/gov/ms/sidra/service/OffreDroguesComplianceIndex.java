@@ -0,0 +1,101 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jours déclarés par utilisateur, sous forme d'un BitSet par année (bit = jour de l'année - 1).
+ * Chargé au démarrage puis tenu à jour après chaque commit ; les BitSet publiés ne sont jamais
+ * modifiés en place (copie à l'écriture), les lectures se font donc sans verrou.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OffreDroguesComplianceIndex {
+
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Map<Integer, BitSet>> days = new ConcurrentHashMap<>();
+
+    /**
+     * Charge les jours déclarés de tous les utilisateurs au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        Map<Long, Map<Integer, BitSet>> loaded = new HashMap<>();
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(
+                    "SELECT utilisateur_id, date_saisie FROM offre_drogues WHERE utilisateur_id IS NOT NULL");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            Date date = rs.getDate(2);
+            if (date != null) {
+                LocalDate day = date.toLocalDate();
+                loaded.computeIfAbsent(rs.getLong(1), id -> new HashMap<>())
+                        .computeIfAbsent(day.getYear(), year -> new BitSet(366))
+                        .set(day.getDayOfYear() - 1);
+                count[0]++;
+            }
+        });
+
+        loaded.forEach((utilisateurId, years) -> days.merge(utilisateurId, Map.copyOf(years), OffreDroguesComplianceIndex::union));
+        log.info("✅ Index de complétude de l'offre de drogues chargé: {} utilisateur(s), {} jour(s), {} ms",
+                loaded.size(), count[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOffreDroguesChanged(OffreDroguesChangedEvent event) {
+        if (event.utilisateurId() == null || event.dateSaisie() == null) {
+            return;
+        }
+        LocalDate day = event.dateSaisie();
+        days.compute(event.utilisateurId(), (id, years) -> {
+            Map<Integer, BitSet> copy = years != null ? new HashMap<>(years) : new HashMap<>();
+            BitSet bits = copy.get(day.getYear());
+            bits = bits != null ? (BitSet) bits.clone() : new BitSet(366);
+            bits.set(day.getDayOfYear() - 1, event.present());
+            copy.put(day.getYear(), bits);
+            return Map.copyOf(copy);
+        });
+    }
+
+    /**
+     * Jours déclarés d'un utilisateur pour une année ; à ne pas modifier
+     */
+    public BitSet getDays(Long utilisateurId, int year) {
+        BitSet bits = days.getOrDefault(utilisateurId, Collections.emptyMap()).get(year);
+        return bits != null ? bits : new BitSet();
+    }
+
+    /**
+     * Un événement reçu pendant le chargement a pu précéder l'état lu en base : les deux sont fusionnés
+     */
+    private static Map<Integer, BitSet> union(Map<Integer, BitSet> current, Map<Integer, BitSet> loaded) {
+        Map<Integer, BitSet> merged = new HashMap<>(loaded);
+        current.forEach((year, bits) -> merged.merge(year, bits, (a, b) -> {
+            BitSet union = (BitSet) a.clone();
+            union.or(b);
+            return union;
+        }));
+        return Map.copyOf(merged);
+    }
+}
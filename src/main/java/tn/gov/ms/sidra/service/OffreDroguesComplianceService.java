@@ -0,0 +1,93 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.dto.offredrogues.ComplianceReportDto;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.entity.UserRole;
+import tn.gov.ms.sidra.exception.BusinessException;
+import tn.gov.ms.sidra.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Complétude des déclarations d'offre de drogues : jours sans saisie de chaque déclarant sur une période,
+ * calculés par opérations sur les BitSet de {@link OffreDroguesComplianceIndex}, sans lecture des saisies.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OffreDroguesComplianceService {
+
+    private static final int MAX_YEARS = 3;
+
+    private final OffreDroguesComplianceIndex complianceIndex;
+    private final UserRepository userRepository;
+
+    /**
+     * Jours manquants de chaque déclarant visible entre from et to (bornés à aujourd'hui et à la création du compte)
+     */
+    @Transactional(readOnly = true)
+    public List<ComplianceReportDto> getCompliance(LocalDate from, LocalDate to, boolean onlyMissing, User currentUser) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BusinessException("La période demandée est invalide");
+        }
+        if (from.plusYears(MAX_YEARS).isBefore(to)) {
+            throw new BusinessException("La période est limitée à " + MAX_YEARS + " ans");
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate end = to.isAfter(today) ? today : to;
+
+        List<ComplianceReportDto> reporters = findReporters(currentUser);
+        List<ComplianceReportDto> reports = new ArrayList<>(reporters.size());
+        for (ComplianceReportDto reporter : reporters) {
+            LocalDate start = reporter.getDebutDeclaration() != null && reporter.getDebutDeclaration().isAfter(from)
+                    ? reporter.getDebutDeclaration() : from;
+            if (!start.isAfter(end)) {
+                fillMissingDays(reporter, start, end);
+            }
+            if (!onlyMissing || reporter.getNombreJoursManquants() > 0) {
+                reports.add(reporter);
+            }
+        }
+
+        log.debug("Complétude du {} au {}: {} déclarant(s), {} en défaut", from, to, reporters.size(),
+                reports.stream().filter(report -> report.getNombreJoursManquants() > 0).count());
+        return reports;
+    }
+
+    private List<ComplianceReportDto> findReporters(User currentUser) {
+        Long utilisateurId = currentUser.getRole() == UserRole.EXTERNE ? currentUser.getId() : null;
+        Long structureId = currentUser.getRole() == UserRole.ADMIN_STRUCTURE ? currentUser.getStructure().getId() : null;
+        return userRepository.findActiveReporters(utilisateurId, structureId);
+    }
+
+    /**
+     * Pour chaque année couverte : jours attendus = masque de la plage, manquants = masque sans les jours déclarés
+     */
+    private void fillMissingDays(ComplianceReportDto report, LocalDate start, LocalDate end) {
+        int expected = 0;
+        for (int year = start.getYear(); year <= end.getYear(); year++) {
+            int fromIndex = year == start.getYear() ? start.getDayOfYear() - 1 : 0;
+            int toIndex = year == end.getYear() ? end.getDayOfYear() : LocalDate.of(year, 12, 31).getDayOfYear();
+
+            BitSet missing = new BitSet(toIndex);
+            missing.set(fromIndex, toIndex);
+            missing.andNot(complianceIndex.getDays(report.getUtilisateurId(), year));
+
+            expected += toIndex - fromIndex;
+            LocalDate firstDay = LocalDate.ofYearDay(year, 1);
+            for (int day = missing.nextSetBit(0); day >= 0; day = missing.nextSetBit(day + 1)) {
+                report.getJoursManquants().add(firstDay.plusDays(day));
+            }
+        }
+        report.setJoursAttendus(expected);
+        report.setNombreJoursManquants(report.getJoursManquants().size());
+    }
+}
@@ -0,0 +1,127 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.entity.UserRole;
+import tn.gov.ms.sidra.exception.BusinessException;
+import tn.gov.ms.sidra.repository.OffreDroguesBatchRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Export XLSX des saisies d'offre de drogues : les lignes sont lues avec un curseur JDBC et écrites
+ * au fil de l'eau dans la réponse, la mémoire utilisée ne dépend donc pas du nombre de saisies.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OffreDroguesExportService {
+
+    private final OffreDroguesBatchRepository offreDroguesBatchRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Durée maximale d'écriture d'un export, appliquée à cette seule réponse asynchrone
+     */
+    @Value("${offre-drogues.export.timeout:600000}")
+    private long timeoutMillis;
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Prépare l'export des saisies visibles par l'utilisateur, éventuellement limitées à une période.
+     * La période et la portée sont vérifiées avant l'envoi de la réponse ; le classeur est ensuite
+     * écrit dans une transaction en lecture seule, nécessaire au curseur PostgreSQL.
+     */
+    public StreamingResponseBody exportXlsx(LocalDate startDate, LocalDate endDate, User currentUser) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new BusinessException("La période demandée est invalide");
+        }
+
+        Long utilisateurId = currentUser.getRole() == UserRole.EXTERNE ? currentUser.getId() : null;
+        Long structureId = currentUser.getRole() == UserRole.ADMIN_STRUCTURE ? currentUser.getStructure().getId() : null;
+        String email = currentUser.getEmail();
+
+        return output -> {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            try {
+                readOnly.executeWithoutResult(status -> write(output, startDate, endDate, utilisateurId, structureId, email));
+            } catch (UncheckedIOException e) {
+                // Client déconnecté en cours d'export : la lecture est interrompue
+                throw e.getCause();
+            }
+        };
+    }
+
+    private void write(OutputStream output, LocalDate debut, LocalDate fin, Long utilisateurId, Long structureId,
+                       String email) {
+        long start = System.nanoTime();
+        long rows;
+        try (SpreadsheetWriter writer = new SpreadsheetWriter(output, "Offre de drogues")) {
+            rows = offreDroguesBatchRepository.streamForExport(debut, fin, utilisateurId, structureId, rs -> {
+                try {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    writer.header(columnLabels(metaData));
+                    long count = 0;
+                    while (rs.next()) {
+                        writeRow(writer, rs, metaData.getColumnCount());
+                        count++;
+                    }
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Export XLSX de l'offre de drogues: {} saisie(s) en {} ms pour l'utilisateur: {}",
+                rows, (System.nanoTime() - start) / 1_000_000, email);
+    }
+
+    private static List<String> columnLabels(ResultSetMetaData metaData) throws SQLException {
+        List<String> labels = new ArrayList<>(metaData.getColumnCount());
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            labels.add(metaData.getColumnLabel(column));
+        }
+        return labels;
+    }
+
+    private static void writeRow(SpreadsheetWriter writer, ResultSet rs, int columns) throws IOException, SQLException {
+        writer.startRow();
+        for (int column = 1; column <= columns; column++) {
+            Object value = rs.getObject(column);
+            if (value == null) {
+                writer.blank();
+            } else if (value instanceof Date date) {
+                writer.date(date.toLocalDate());
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+                writer.number(((Number) value).longValue());
+            } else if (value instanceof Number number) {
+                writer.number(number.doubleValue());
+            } else {
+                writer.text(value.toString());
+            }
+        }
+        writer.endRow();
+    }
+}
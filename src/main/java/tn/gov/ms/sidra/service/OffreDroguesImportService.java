@@ -0,0 +1,389 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import tn.gov.ms.sidra.dto.offredrogues.CreateOffreDroguesRequest;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesImportResultDto;
+import tn.gov.ms.sidra.entity.OffreDrogues;
+import tn.gov.ms.sidra.entity.Structure;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.entity.UserRole;
+import tn.gov.ms.sidra.exception.BusinessException;
+import tn.gov.ms.sidra.repository.OffreDroguesBatchRepository;
+import tn.gov.ms.sidra.repository.OffreDroguesRepository;
+import tn.gov.ms.sidra.repository.StructureRepository;
+
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import en flux de saisies d'offre de drogues depuis un fichier CSV ou XLSX.
+ * La première ligne nomme les colonnes (noms des champs de saisie, en camelCase ou snake_case).
+ * Les lignes valides sont insérées par lots JDBC ; les doublons (dans le fichier ou déjà saisis)
+ * sont détectés par ensemble, et chaque ligne rejetée est reportée avec sa cause.
+ */
+@Service
+@Slf4j
+public class OffreDroguesImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+
+    /**
+     * Colonnes importables : champs de la requête de saisie, indexés par nom normalisé
+     */
+    private static final Map<String, ColumnBinding> BINDINGS = buildBindings();
+
+    private final OffreDroguesRepository offreDroguesRepository;
+    private final OffreDroguesBatchRepository offreDroguesBatchRepository;
+    private final OffreDroguesRollupService offreDroguesRollupService;
+    private final StructureRepository structureRepository;
+    private final int maxRows;
+
+    public OffreDroguesImportService(OffreDroguesRepository offreDroguesRepository,
+                                     OffreDroguesBatchRepository offreDroguesBatchRepository,
+                                     OffreDroguesRollupService offreDroguesRollupService,
+                                     StructureRepository structureRepository,
+                                     @Value("${offre-drogues.import.max-rows:50000}") int maxRows) {
+        this.offreDroguesRepository = offreDroguesRepository;
+        this.offreDroguesBatchRepository = offreDroguesBatchRepository;
+        this.offreDroguesRollupService = offreDroguesRollupService;
+        this.structureRepository = structureRepository;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Importe les saisies du fichier pour l'utilisateur connecté
+     */
+    @Transactional
+    public OffreDroguesImportResultDto importFile(MultipartFile file, User currentUser) {
+        if (currentUser.getRole() != UserRole.EXTERNE) {
+            throw new BusinessException("Seuls les utilisateurs externes peuvent saisir des données d'offre de drogues");
+        }
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException("Le fichier est vide");
+        }
+
+        Structure structure = currentUser.getStructure() != null
+                ? structureRepository.findByIdWithGouvernorat(currentUser.getStructure().getId()).orElse(null)
+                : null;
+        ImportRun run = new ImportRun(currentUser, structure);
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+
+        long start = System.nanoTime();
+        try {
+            if (filename.endsWith(".xlsx")) {
+                File temp = Files.createTempFile("offre-drogues-import", ".xlsx").toFile();
+                try {
+                    file.transferTo(temp);
+                    SpreadsheetReader.readXlsx(temp, run);
+                } finally {
+                    Files.deleteIfExists(temp.toPath());
+                }
+            } else if (filename.endsWith(".csv") || filename.endsWith(".txt")) {
+                try (InputStream input = file.getInputStream()) {
+                    SpreadsheetReader.readCsv(input, run);
+                }
+            } else {
+                throw new BusinessException("Format de fichier non pris en charge (CSV ou XLSX attendu)");
+            }
+        } catch (IOException e) {
+            throw new BusinessException("Impossible de lire le fichier: " + e.getMessage());
+        }
+        run.flush();
+
+        if (run.bindings == null) {
+            throw new BusinessException("Le fichier ne contient pas de ligne d'en-tête");
+        }
+
+        log.info("Import d'offre de drogues par {}: {} ligne(s), {} importée(s), {} rejetée(s) en {} ms",
+                currentUser.getEmail(), run.result.getLignesLues(), run.result.getImportees(),
+                run.result.getRejetees(), (System.nanoTime() - start) / 1_000_000);
+        return run.result;
+    }
+
+    /**
+     * État d'un import : en-tête résolu, dates vues et lot en attente d'insertion
+     */
+    private class ImportRun implements SpreadsheetReader.RowHandler {
+        private final User utilisateur;
+        private final Structure structure;
+        private final OffreDroguesImportResultDto result = new OffreDroguesImportResultDto();
+        private final Map<LocalDate, Integer> seenDates = new HashMap<>();
+        private final List<OffreDrogues> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<Integer> chunkLines = new ArrayList<>(CHUNK_SIZE);
+        private ColumnBinding[] bindings;
+        private int dateColumn = -1;
+        private int lastRejectedLine = -1;
+        private final Map<Integer, String> invalidCells = new HashMap<>();
+
+        ImportRun(User utilisateur, Structure structure) {
+            this.utilisateur = utilisateur;
+            this.structure = structure;
+        }
+
+        @Override
+        public void invalidCell(int line, int column, String message) {
+            if (bindings == null) {
+                // Cellule illisible dans l'en-tête : le fichier entier est refusé
+                SpreadsheetReader.RowHandler.super.invalidCell(line, column, message);
+            }
+            invalidCells.put(column, message);
+        }
+
+        @Override
+        public void row(int line, List<String> cells) {
+            if (bindings == null) {
+                readHeader(cells);
+                return;
+            }
+
+            if (result.getLignesLues() >= maxRows) {
+                throw new BusinessException("Le fichier dépasse la limite de " + maxRows + " lignes");
+            }
+            result.setLignesLues(result.getLignesLues() + 1);
+
+            OffreDrogues offreDrogues = new OffreDrogues();
+            boolean valid = true;
+
+            // Cellules illisibles signalées par le lecteur : elles arrivent vides dans la ligne
+            boolean invalidDate = invalidCells.containsKey(dateColumn);
+            for (Map.Entry<Integer, String> invalid : invalidCells.entrySet()) {
+                valid = reject(line, columnName(invalid.getKey()), invalid.getValue());
+            }
+            invalidCells.clear();
+
+            String rawDate = cell(cells, dateColumn);
+            LocalDate date = parseDate(rawDate);
+            if (date == null) {
+                if (!invalidDate) {
+                    valid = reject(line, "dateSaisie", rawDate.isBlank()
+                            ? "La date de saisie est obligatoire" : "Date invalide: " + rawDate);
+                }
+            } else {
+                Integer firstLine = seenDates.putIfAbsent(date, line);
+                if (firstLine != null) {
+                    valid = reject(line, "dateSaisie", "Date déjà présente à la ligne " + firstLine);
+                }
+                offreDrogues.setDateSaisie(date);
+            }
+
+            for (int column = 0; column < bindings.length; column++) {
+                ColumnBinding binding = bindings[column];
+                if (binding == null) {
+                    continue;
+                }
+                String raw = cell(cells, column);
+                if (raw.isBlank()) {
+                    continue;
+                }
+                try {
+                    binding.set(offreDrogues, raw);
+                } catch (IllegalArgumentException e) {
+                    valid = reject(line, binding.property(), e.getMessage());
+                }
+            }
+
+            if (!valid) {
+                return;
+            }
+
+            chunk.add(offreDrogues);
+            chunkLines.add(line);
+            if (chunk.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * Écarte les dates déjà saisies (une requête par lot), puis insère le lot
+         */
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            LocalDate min = chunk.get(0).getDateSaisie();
+            LocalDate max = min;
+            for (OffreDrogues o : chunk) {
+                if (o.getDateSaisie().isBefore(min)) min = o.getDateSaisie();
+                if (o.getDateSaisie().isAfter(max)) max = o.getDateSaisie();
+            }
+            Set<LocalDate> existing = new HashSet<>(
+                    offreDroguesRepository.findDatesByUtilisateurAndPeriod(utilisateur.getId(), min, max));
+
+            LocalDateTime now = LocalDateTime.now();
+            List<OffreDrogues> toInsert = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                OffreDrogues o = chunk.get(i);
+                if (existing.contains(o.getDateSaisie())) {
+                    reject(chunkLines.get(i), "dateSaisie", "Une saisie existe déjà pour cette date");
+                    continue;
+                }
+                o.setUtilisateur(utilisateur);
+                o.setStructure(structure);
+                o.setDateCreation(now);
+                o.setDateModification(now);
+                toInsert.add(o);
+            }
+
+            offreDroguesBatchRepository.insertAll(toInsert);
+            offreDroguesRollupService.addAll(toInsert);
+            result.setImportees(result.getImportees() + toInsert.size());
+
+            chunk.clear();
+            chunkLines.clear();
+        }
+
+        private void readHeader(List<String> cells) {
+            bindings = new ColumnBinding[cells.size()];
+            List<String> unknown = new ArrayList<>();
+            for (int column = 0; column < cells.size(); column++) {
+                String header = cells.get(column).trim();
+                if (header.isEmpty()) {
+                    continue;
+                }
+                String key = normalize(header);
+                if ("datesaisie".equals(key)) {
+                    dateColumn = column;
+                } else if (BINDINGS.containsKey(key)) {
+                    bindings[column] = BINDINGS.get(key);
+                } else {
+                    unknown.add(header);
+                }
+            }
+
+            if (dateColumn < 0) {
+                throw new BusinessException("La colonne dateSaisie est obligatoire");
+            }
+            if (!unknown.isEmpty()) {
+                throw new BusinessException("Colonnes inconnues: " + String.join(", ", unknown));
+            }
+        }
+
+        private String columnName(int column) {
+            if (column == dateColumn) {
+                return "dateSaisie";
+            }
+            return column < bindings.length && bindings[column] != null
+                    ? bindings[column].property() : "colonne " + (column + 1);
+        }
+
+        private boolean reject(int line, String column, String message) {
+            if (line != lastRejectedLine) {
+                result.setRejetees(result.getRejetees() + 1);
+                lastRejectedLine = line;
+            }
+            List<OffreDroguesImportResultDto.RowErrorDto> erreurs = result.getErreurs();
+            if (erreurs.size() < MAX_REPORTED_ERRORS) {
+                erreurs.add(new OffreDroguesImportResultDto.RowErrorDto(line, column, message));
+            } else {
+                result.setErreursTronquees(true);
+            }
+            return false;
+        }
+    }
+
+    private static String cell(List<String> cells, int column) {
+        return column < cells.size() && cells.get(column) != null ? cells.get(column).trim() : "";
+    }
+
+    private static LocalDate parseDate(String raw) {
+        if (raw.isBlank()) {
+            return null;
+        }
+        if (raw.matches("\\d+(\\.0+)?")) {
+            // Numéro de série de date Excel
+            return EXCEL_EPOCH.plusDays(Long.parseLong(raw.split("\\.")[0]));
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(raw, format);
+            } catch (DateTimeParseException ignored) {
+                // format suivant
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String header) {
+        return header.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static Map<String, ColumnBinding> buildBindings() {
+        Map<String, ColumnBinding> bindings = new HashMap<>();
+        for (PropertyDescriptor request : BeanUtils.getPropertyDescriptors(CreateOffreDroguesRequest.class)) {
+            String name = request.getName();
+            if ("class".equals(name) || "dateSaisie".equals(name)) {
+                continue;
+            }
+            PropertyDescriptor target = BeanUtils.getPropertyDescriptor(OffreDrogues.class, name);
+            if (target != null && target.getWriteMethod() != null) {
+                bindings.put(normalize(name), new ColumnBinding(name, target.getWriteMethod(), target.getPropertyType()));
+            }
+        }
+        return Map.copyOf(bindings);
+    }
+
+    /**
+     * Colonne numérique du fichier liée au setter de l'entité
+     */
+    private record ColumnBinding(String property, Method setter, Class<?> type) {
+
+        void set(OffreDrogues target, String raw) {
+            double value;
+            try {
+                value = Double.parseDouble(raw.replace(',', '.').replace(" ", ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valeur numérique invalide: " + raw);
+            }
+            if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("La valeur doit être positive: " + raw);
+            }
+            if (property.endsWith("Pourcentage") && value > 100) {
+                throw new IllegalArgumentException("Le pourcentage doit être compris entre 0 et 100: " + raw);
+            }
+
+            Object converted;
+            if (type == Integer.class) {
+                if (value != Math.rint(value) || value > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Un nombre entier est attendu: " + raw);
+                }
+                converted = (int) value;
+            } else {
+                converted = value;
+            }
+
+            try {
+                setter.invoke(target, converted);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package tn.gov.ms.sidra.service;
+
+import tn.gov.ms.sidra.dto.offredrogues.SeriesMetric;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Valeurs d'une saisie relevées dans sa transaction, évaluées par le détecteur d'anomalies
+ * après le commit. {@code update} indique si elles doivent être intégrées à l'état des séries
+ * (nouvelle saisie) ou seulement évaluées (saisie corrigée).
+ */
+public record OffreDroguesObservedEvent(Long offreDroguesId, Long utilisateurId, Long structureId, String structureNom,
+                                        LocalDate dateSaisie, Map<SeriesMetric, Double> valeurs, boolean update) {
+}
@@ -0,0 +1,144 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.dto.offredrogues.DailySubstancesTotalDto;
+import tn.gov.ms.sidra.entity.OffreDrogues;
+import tn.gov.ms.sidra.repository.OffreDroguesRepository;
+import tn.gov.ms.sidra.repository.OffreDroguesRollupJourRepository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintient les agrégats journaliers (jour, structure, gouvernorat) des quantités saisies.
+ * Les mises à jour rejoignent la transaction de la saisie : l'agrégat et la saisie sont validés ensemble.
+ * Chaque variation publie un {@link OffreDroguesChangedEvent} pour les caches dérivés.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OffreDroguesRollupService {
+
+    private final OffreDroguesRollupJourRepository rollupRepository;
+    private final OffreDroguesRepository offreDroguesRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Ajoute une saisie aux agrégats
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(OffreDrogues offreDrogues) {
+        apply(offreDrogues, 1);
+    }
+
+    /**
+     * Ajoute un lot de saisies : les deltas sont pré-sommés par (jour, structure, gouvernorat)
+     * pour n'exécuter qu'une mise à jour par agrégat touché
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(List<OffreDrogues> offresDrogues) {
+        Map<RollupKey, double[]> deltas = new HashMap<>();
+        for (OffreDrogues o : offresDrogues) {
+            double[] delta = deltas.computeIfAbsent(
+                    new RollupKey(o.getDateSaisie(), structureId(o), gouvernoratId(o)), key -> new double[8]);
+            delta[0] += 1;
+            delta[1] += value(o.getCannabis());
+            delta[2] += value(o.getComprimesTableauA());
+            delta[3] += value(o.getEcstasyComprime());
+            delta[4] += value(o.getEcstasyPoudre());
+            delta[5] += value(o.getSubutex());
+            delta[6] += value(o.getCocaine());
+            delta[7] += value(o.getHeroine());
+        }
+
+        deltas.forEach((key, delta) -> rollupRepository.upsertDelta(key.jour(), key.structureId(), key.gouvernoratId(),
+                (int) delta[0], delta[1], (long) delta[2], (long) delta[3], delta[4], (long) delta[5], delta[6], delta[7]));
+
+        offresDrogues.forEach(o -> publishChange(o, true));
+    }
+
+    /**
+     * Retire une saisie des agrégats (avant modification ou suppression)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(OffreDrogues offreDrogues) {
+        apply(offreDrogues, -1);
+        rollupRepository.deleteIfEmpty(offreDrogues.getDateSaisie(), structureId(offreDrogues), gouvernoratId(offreDrogues));
+    }
+
+    /**
+     * Totaux journaliers sur une période, toutes structures confondues ou pour une structure
+     */
+    @Transactional(readOnly = true)
+    public List<DailySubstancesTotalDto> getDailyTotals(LocalDate debut, LocalDate fin, Long structureId) {
+        return structureId == null
+                ? rollupRepository.sumByJour(debut, fin)
+                : rollupRepository.sumByJourForStructure(structureId, debut, fin);
+    }
+
+    /**
+     * Construit les agrégats au premier démarrage si des saisies existent déjà
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (rollupRepository.count() == 0 && offreDroguesRepository.count() > 0) {
+            int rows = rollupRepository.rebuildFromOffreDrogues();
+            log.info("✅ {} agrégat(s) journalier(s) d'offre de drogues construits", rows);
+        }
+    }
+
+    private void apply(OffreDrogues o, int sign) {
+        rollupRepository.upsertDelta(
+                o.getDateSaisie(),
+                structureId(o),
+                gouvernoratId(o),
+                sign,
+                sign * value(o.getCannabis()),
+                sign * value(o.getComprimesTableauA()),
+                sign * value(o.getEcstasyComprime()),
+                sign * value(o.getEcstasyPoudre()),
+                sign * value(o.getSubutex()),
+                sign * value(o.getCocaine()),
+                sign * value(o.getHeroine()));
+
+        publishChange(o, sign > 0);
+    }
+
+    private void publishChange(OffreDrogues o, boolean present) {
+        eventPublisher.publishEvent(new OffreDroguesChangedEvent(
+                o.getUtilisateur() != null ? o.getUtilisateur().getId() : null,
+                o.getStructure() != null ? o.getStructure().getId() : null,
+                o.getDateSaisie(),
+                present));
+    }
+
+    private record RollupKey(LocalDate jour, long structureId, long gouvernoratId) {
+    }
+
+    private static long structureId(OffreDrogues o) {
+        return o.getStructure() != null ? o.getStructure().getId() : 0L;
+    }
+
+    private static long gouvernoratId(OffreDrogues o) {
+        return o.getStructure() != null && o.getStructure().getGouvernorat() != null
+                ? o.getStructure().getGouvernorat().getId() : 0L;
+    }
+
+    private static double value(Double d) {
+        return d != null ? d : 0d;
+    }
+
+    private static long value(Integer i) {
+        return i != null ? i : 0L;
+    }
+}
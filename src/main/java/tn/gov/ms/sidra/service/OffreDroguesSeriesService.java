@@ -0,0 +1,219 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.gov.ms.sidra.dto.offredrogues.ColumnarSnapshotStatsDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesAggregateDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesComparisonDto;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesSeriesDto;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesGranularity;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesGroupBy;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesMetric;
+import tn.gov.ms.sidra.dto.offredrogues.SociodemographicAggregateDto;
+import tn.gov.ms.sidra.dto.offredrogues.SociodemographicBreakdown;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.entity.UserRole;
+import tn.gov.ms.sidra.exception.BusinessException;
+import tn.gov.ms.sidra.repository.OffreDroguesSeriesRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Séries temporelles d'offre de drogues agrégées par PostgreSQL, et totaux par groupe
+ * calculés sur la copie mémoire en colonnes ({@link OffreDroguesColumnarStore}).
+ * Les séries portant uniquement sur des périodes closes sont mises en cache ; une saisie
+ * ajoutée, modifiée ou supprimée invalide les séries dont l'intervalle contient sa date.
+ */
+@Service
+@Slf4j
+public class OffreDroguesSeriesService {
+
+    private static final int MAX_COMPARED_PERIODS = 520;
+
+    private final OffreDroguesSeriesRepository offreDroguesSeriesRepository;
+    private final OffreDroguesColumnarStore offreDroguesColumnarStore;
+    private final Map<SeriesKey, OffreDroguesSeriesDto> closedSeries;
+
+    public OffreDroguesSeriesService(OffreDroguesSeriesRepository offreDroguesSeriesRepository,
+                                     OffreDroguesColumnarStore offreDroguesColumnarStore,
+                                     @Value("${offre-drogues.series.cache.max-entries:500}") int maxEntries) {
+        this.offreDroguesSeriesRepository = offreDroguesSeriesRepository;
+        this.offreDroguesColumnarStore = offreDroguesColumnarStore;
+        this.closedSeries = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SeriesKey, OffreDroguesSeriesDto> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Calcule une série selon la granularité, le regroupement et les mesures demandés
+     */
+    @Transactional(readOnly = true)
+    public OffreDroguesSeriesDto getSeries(String granularity, String groupBy, LocalDate from, LocalDate to,
+                                           List<String> metrics, User currentUser) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BusinessException("La période demandée est invalide");
+        }
+
+        SeriesGranularity seriesGranularity = parse(SeriesGranularity.class, granularity, SeriesGranularity.MONTH);
+        SeriesGroupBy seriesGroupBy = parse(SeriesGroupBy.class, groupBy, SeriesGroupBy.NONE);
+        List<SeriesMetric> seriesMetrics = parseMetrics(metrics);
+
+        Long utilisateurId = scopeUtilisateur(currentUser);
+        Long structureId = scopeStructure(currentUser);
+
+        SeriesKey key = new SeriesKey(utilisateurId, structureId, seriesGranularity, seriesGroupBy, seriesMetrics, from, to);
+        boolean closed = to.isBefore(seriesGranularity.truncate(LocalDate.now()));
+        if (closed) {
+            OffreDroguesSeriesDto cached = closedSeries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        OffreDroguesSeriesDto series = offreDroguesSeriesRepository.aggregate(
+                seriesGranularity, seriesGroupBy, seriesMetrics, from, to, utilisateurId, structureId);
+        if (closed) {
+            closedSeries.put(key, series);
+        }
+        return series;
+    }
+
+    /**
+     * Totaux par groupe sur une période, calculés en mémoire sans accès à la base (copie fusionnée périodiquement)
+     */
+    public OffreDroguesAggregateDto getTotals(String groupBy, LocalDate from, LocalDate to, List<String> metrics,
+                                              User currentUser) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BusinessException("La période demandée est invalide");
+        }
+
+        return offreDroguesColumnarStore.aggregate(from, to,
+                parse(SeriesGroupBy.class, groupBy, SeriesGroupBy.NONE), parseMetrics(metrics),
+                scopeUtilisateur(currentUser), scopeStructure(currentUser));
+    }
+
+    /**
+     * Compare chaque période de l'intervalle à la précédente pour toutes les mesures demandées
+     */
+    @Transactional(readOnly = true)
+    public OffreDroguesComparisonDto getComparison(String granularity, LocalDate from, LocalDate to,
+                                                   List<String> metrics, User currentUser) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BusinessException("La période demandée est invalide");
+        }
+
+        SeriesGranularity seriesGranularity = parse(SeriesGranularity.class, granularity, SeriesGranularity.MONTH);
+        if (seriesGranularity.shift(seriesGranularity.truncate(from), MAX_COMPARED_PERIODS).isBefore(to)) {
+            throw new BusinessException("La comparaison est limitée à " + MAX_COMPARED_PERIODS + " périodes");
+        }
+
+        return offreDroguesSeriesRepository.compare(seriesGranularity, parseMetrics(metrics), from, to,
+                scopeUtilisateur(currentUser), scopeStructure(currentUser));
+    }
+
+    /**
+     * Répartitions sociodémographiques par période et par groupe, avec pourcentages pondérés par les effectifs
+     */
+    @Transactional(readOnly = true)
+    public SociodemographicAggregateDto getSociodemographics(String granularity, String groupBy, LocalDate from,
+                                                             LocalDate to, List<String> breakdowns, User currentUser) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BusinessException("La période demandée est invalide");
+        }
+
+        SeriesGranularity seriesGranularity = parse(SeriesGranularity.class, granularity, SeriesGranularity.MONTH);
+        if (seriesGranularity.shift(seriesGranularity.truncate(from), MAX_COMPARED_PERIODS).isBefore(to)) {
+            throw new BusinessException("L'agrégation est limitée à " + MAX_COMPARED_PERIODS + " périodes");
+        }
+
+        return offreDroguesSeriesRepository.sociodemographics(seriesGranularity,
+                parse(SeriesGroupBy.class, groupBy, SeriesGroupBy.GOUVERNORAT), parseBreakdowns(breakdowns),
+                from, to, scopeUtilisateur(currentUser), scopeStructure(currentUser));
+    }
+
+    /**
+     * Taille et empreinte mémoire de la copie en colonnes
+     */
+    public ColumnarSnapshotStatsDto getSnapshotStats() {
+        return offreDroguesColumnarStore.getStats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOffreDroguesChanged(OffreDroguesChangedEvent event) {
+        LocalDate date = event.dateSaisie();
+        synchronized (closedSeries) {
+            closedSeries.keySet().removeIf(key -> !date.isBefore(key.from()) && !date.isAfter(key.to()));
+        }
+    }
+
+    private Long scopeUtilisateur(User currentUser) {
+        return currentUser.getRole() == UserRole.EXTERNE ? currentUser.getId() : null;
+    }
+
+    private Long scopeStructure(User currentUser) {
+        return currentUser.getRole() == UserRole.ADMIN_STRUCTURE ? currentUser.getStructure().getId() : null;
+    }
+
+    private List<SociodemographicBreakdown> parseBreakdowns(List<String> breakdowns) {
+        if (breakdowns == null || breakdowns.isEmpty()) {
+            return List.of(SociodemographicBreakdown.values());
+        }
+
+        List<SociodemographicBreakdown> parsed = new ArrayList<>();
+        for (String value : breakdowns) {
+            SociodemographicBreakdown breakdown = SociodemographicBreakdown.fromKey(value.trim());
+            if (breakdown == null) {
+                throw new BusinessException("Répartition inconnue: " + value);
+            }
+            if (!parsed.contains(breakdown)) {
+                parsed.add(breakdown);
+            }
+        }
+        return parsed;
+    }
+
+    private List<SeriesMetric> parseMetrics(List<String> metrics) {
+        if (metrics == null || metrics.isEmpty()) {
+            return List.of(SeriesMetric.values());
+        }
+
+        List<SeriesMetric> parsed = new ArrayList<>();
+        for (String value : metrics) {
+            SeriesMetric metric = SeriesMetric.fromKey(value.trim());
+            if (metric == null) {
+                throw new BusinessException("Mesure inconnue: " + value);
+            }
+            if (!parsed.contains(metric)) {
+                parsed.add(metric);
+            }
+        }
+        return List.copyOf(parsed);
+    }
+
+    private <E extends Enum<E>> E parse(Class<E> type, String value, E defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Paramètre invalide: " + value);
+        }
+    }
+
+    private record SeriesKey(Long utilisateurId, Long structureId, SeriesGranularity granularity,
+                             SeriesGroupBy groupBy, List<SeriesMetric> metrics, LocalDate from, LocalDate to) {
+    }
+}
@@ -2,27 +2,37 @@ package tn.gov.ms.sidra.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.dto.offredrogues.CreateOffreDroguesBatchRequest;
 import tn.gov.ms.sidra.dto.offredrogues.CreateOffreDroguesRequest;
+import tn.gov.ms.sidra.dto.offredrogues.DailySubstancesTotalDto;
 import tn.gov.ms.sidra.dto.offredrogues.MonthlySubstancesDto;
 import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesDto;
 import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesListDto;
 import tn.gov.ms.sidra.dto.offredrogues.UpdateOffreDroguesRequest;
 import tn.gov.ms.sidra.entity.OffreDrogues;
+import tn.gov.ms.sidra.entity.Structure;
 import tn.gov.ms.sidra.entity.User;
 import tn.gov.ms.sidra.entity.UserRole;
 import tn.gov.ms.sidra.exception.BusinessException;
 import tn.gov.ms.sidra.mapper.OffreDroguesMapper;
+import tn.gov.ms.sidra.repository.OffreDroguesBatchRepository;
 import tn.gov.ms.sidra.repository.OffreDroguesRepository;
 import tn.gov.ms.sidra.repository.StructureRepository;
 
 import java.time.YearMonth;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,38 +40,37 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OffreDroguesService {
 
+    // Nombre maximal de jours saisis en une seule requête
+    private static final int MAX_BATCH_SIZE = 366;
+
     private final OffreDroguesRepository offreDroguesRepository;
+    private final OffreDroguesBatchRepository offreDroguesBatchRepository;
     private final StructureRepository structureRepository;
     private final OffreDroguesMapper offreDroguesMapper;
+    private final OffreDroguesRollupService offreDroguesRollupService;
+    private final OffreDroguesAnomalyDetector offreDroguesAnomalyDetector;
 
     /**
-     * Récupère toutes les données d'offre de drogues selon le rôle de l'utilisateur
+     * Récupère une page des données d'offre de drogues selon le rôle de l'utilisateur
      */
     @Transactional(readOnly = true)
-    public List<OffreDroguesListDto> getAllOffresDrogues(User currentUser) {
+    public Page<OffreDroguesListDto> getAllOffresDrogues(User currentUser, Pageable pageable) {
         log.info("Récupération des données d'offre de drogues pour l'utilisateur: {}", currentUser.getEmail());
 
-        List<OffreDrogues> offresDrogues;
-
         if (currentUser.getRole() == UserRole.SUPER_ADMIN || currentUser.getRole() == UserRole.UTILISATEUR || currentUser.getRole() == UserRole.ADMIN_STRUCTURE ) {
             // SUPER_ADMIN voit toutes les données
-            offresDrogues = offreDroguesRepository.findAllByOrderByDateSaisieDesc();
+            return offreDroguesRepository.findList(pageable);
         }
 //        else if (currentUser.getRole() == UserRole.ADMIN_STRUCTURE) {
 //            // ADMIN_STRUCTURE voit les données de sa structure
-//            offresDrogues = offreDroguesRepository.findByStructureIdOrderByDateSaisieDesc(
-//                    currentUser.getStructure().getId());
+//            return offreDroguesRepository.findListByStructure(currentUser.getStructure().getId(), pageable);
 //        }
         else if (currentUser.getRole() == UserRole.EXTERNE) {
             // EXTERNE voit seulement ses propres données
-            offresDrogues = offreDroguesRepository.findByUtilisateurOrderByDateSaisieDesc(currentUser);
-        } else {
-            throw new BusinessException("Vous n'avez pas les permissions pour consulter ces données");
+            return offreDroguesRepository.findListByUtilisateur(currentUser.getId(), pageable);
         }
 
-        return offresDrogues.stream()
-                .map(offreDroguesMapper::toListDto)
-                .collect(Collectors.toList());
+        throw new BusinessException("Vous n'avez pas les permissions pour consulter ces données");
     }
 
     /**
@@ -111,12 +120,69 @@ public class OffreDroguesService {
 
         OffreDrogues savedOffreDrogues = offreDroguesRepository.save(offreDrogues);
         log.info("Données d'offre de drogues créées avec succès avec l'ID: {}", savedOffreDrogues.getId());
+        offreDroguesRollupService.add(savedOffreDrogues);
+        offreDroguesAnomalyDetector.observe(savedOffreDrogues);
 
         // Recharger l'entité avec toutes les relations pour éviter LazyInitializationException
         return offreDroguesMapper.toDto(offreDroguesRepository.findByIdWithDetails(savedOffreDrogues.getId())
                 .orElseThrow(() -> new BusinessException("Erreur lors de la récupération des données créées")));
     }
 
+    /**
+     * Crée en une fois les saisies de plusieurs jours : doublons vérifiés par une seule requête,
+     * insertion par lots JDBC et DTO construits à partir des entités en mémoire
+     */
+    @Transactional
+    public List<OffreDroguesDto> createOffresDroguesBatch(CreateOffreDroguesBatchRequest request, User currentUser) {
+        List<CreateOffreDroguesRequest> saisies = request.getSaisies();
+        log.info("Création de {} saisie(s) d'offre de drogues par l'utilisateur: {}", saisies.size(), currentUser.getEmail());
+
+        if (currentUser.getRole() != UserRole.EXTERNE) {
+            throw new BusinessException("Seuls les utilisateurs externes peuvent saisir des données d'offre de drogues");
+        }
+        if (saisies.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("Au plus " + MAX_BATCH_SIZE + " saisies peuvent être créées en une fois");
+        }
+
+        // Vérifier l'unicité des dates dans la requête puis par rapport aux saisies existantes
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        for (CreateOffreDroguesRequest saisie : saisies) {
+            if (!dates.add(saisie.getDateSaisie())) {
+                throw new BusinessException("La date " + saisie.getDateSaisie() + " est saisie plusieurs fois");
+            }
+        }
+        LocalDate debut = dates.first();
+        LocalDate fin = dates.last();
+        List<LocalDate> existing = offreDroguesRepository.findDatesByUtilisateurAndPeriod(currentUser.getId(), debut, fin)
+                .stream().filter(dates::contains).sorted().toList();
+        if (!existing.isEmpty()) {
+            throw new BusinessException("Une saisie existe déjà pour les dates: " + existing.stream()
+                    .map(LocalDate::toString).collect(Collectors.joining(", ")));
+        }
+
+        Structure structure = currentUser.getStructure() != null
+                ? structureRepository.findById(currentUser.getStructure().getId()).orElse(null)
+                : null;
+        LocalDateTime now = LocalDateTime.now();
+        List<OffreDrogues> offresDrogues = new ArrayList<>(saisies.size());
+        for (CreateOffreDroguesRequest saisie : saisies) {
+            OffreDrogues offreDrogues = offreDroguesMapper.toEntity(saisie);
+            offreDrogues.setUtilisateur(currentUser);
+            offreDrogues.setStructure(structure);
+            offreDrogues.setDateCreation(now);
+            offreDrogues.setDateModification(now);
+            offresDrogues.add(offreDrogues);
+        }
+        offresDrogues.sort(Comparator.comparing(OffreDrogues::getDateSaisie));
+
+        offreDroguesBatchRepository.insertAll(offresDrogues);
+        offreDroguesRollupService.addAll(offresDrogues);
+        offresDrogues.forEach(offreDroguesAnomalyDetector::observe);
+        log.info("{} saisie(s) d'offre de drogues créées du {} au {}", offresDrogues.size(), debut, fin);
+
+        return offresDrogues.stream().map(offreDroguesMapper::toDto).collect(Collectors.toList());
+    }
+
     /**
      * Met à jour une donnée d'offre de drogues existante
      */
@@ -137,8 +203,11 @@ public class OffreDroguesService {
             throw new BusinessException("Une autre saisie existe déjà pour cette date");
         }
 
-        // Mettre à jour l'entité
+        // Mettre à jour l'entité en retirant puis réappliquant ses valeurs dans les agrégats journaliers
+        offreDroguesRollupService.remove(existingOffreDrogues);
         offreDroguesMapper.updateEntity(request, existingOffreDrogues);
+        offreDroguesRollupService.add(existingOffreDrogues);
+        offreDroguesAnomalyDetector.score(existingOffreDrogues);
 
         OffreDrogues updatedOffreDrogues = offreDroguesRepository.save(existingOffreDrogues);
         log.info("Données d'offre de drogues mises à jour avec succès: {}", updatedOffreDrogues.getId());
@@ -162,48 +231,43 @@ public class OffreDroguesService {
         // Vérifier les permissions de suppression
         validateDeletePermissions(offreDrogues, currentUser);
 
+        offreDroguesRollupService.remove(offreDrogues);
         offreDroguesRepository.delete(offreDrogues);
         log.info("Données d'offre de drogues supprimées avec succès: {}", id);
     }
 
     /**
-     * Récupère les données d'offre de drogues par période
+     * Récupère une page des données d'offre de drogues par période
      */
     @Transactional(readOnly = true)
-    public List<OffreDroguesListDto> getOffresDroguesByPeriod(LocalDate startDate, LocalDate endDate, User currentUser) {
+    public Page<OffreDroguesListDto> getOffresDroguesByPeriod(LocalDate startDate, LocalDate endDate, User currentUser,
+                                                              Pageable pageable) {
         log.info("Récupération des données d'offre de drogues pour la période {} - {} par l'utilisateur: {}",
                 startDate, endDate, currentUser.getEmail());
 
-        List<OffreDrogues> offresDrogues;
-
         if (currentUser.getRole() == UserRole.EXTERNE) {
-            offresDrogues = offreDroguesRepository.findByUtilisateurAndDateSaisieBetween(
-                    currentUser, startDate, endDate);
+            return offreDroguesRepository.findListByUtilisateurAndPeriod(currentUser.getId(), startDate, endDate, pageable);
         } else if (currentUser.getRole() == UserRole.ADMIN_STRUCTURE) {
             // Filtrer par structure pour les admin structure
-            offresDrogues = offreDroguesRepository.findByDateSaisieBetween(startDate, endDate)
-                    .stream()
-                    .filter(o -> o.getStructure() != null &&
-                            o.getStructure().getId().equals(currentUser.getStructure().getId()))
-                    .collect(Collectors.toList());
-        } else {
-            offresDrogues = offreDroguesRepository.findByDateSaisieBetween(startDate, endDate);
+            return offreDroguesRepository.findListByStructureAndPeriod(
+                    currentUser.getStructure().getId(), startDate, endDate, pageable);
         }
-
-        return offresDrogues.stream()
-                .map(offreDroguesMapper::toListDto)
-                .collect(Collectors.toList());
+        return offreDroguesRepository.findListByPeriod(startDate, endDate, pageable);
     }
 
     /**
-     * Récupère la dernière donnée d'offre de drogues avant une date spécifique
+     * Récupère la dernière donnée d'offre de drogues avant une date spécifique,
+     * saisie par le même utilisateur que la donnée courante
      */
     @Transactional(readOnly = true)
     public OffreDroguesDto getLastEntryBefore(LocalDate date, Long currentId, User currentUser) {
         log.info("Récupération de la dernière donnée d'offre de drogues avant la date: {} (excluant ID: {})",
                 date, currentId);
 
-        List<OffreDrogues> entries = offreDroguesRepository.findLastEntryBefore(date, currentId);
+        Long utilisateurId = offreDroguesRepository.findUtilisateurIdById(currentId)
+                .orElse(currentUser.getId());
+        List<OffreDrogues> entries = offreDroguesRepository.findLastEntryBefore(
+                utilisateurId, date, currentId, PageRequest.of(0, 1));
 
         if (entries.isEmpty()) {
             return null;
@@ -249,24 +313,6 @@ public class OffreDroguesService {
         LocalDate firstDay = yearMonth.atDay(1);
         LocalDate lastDay = yearMonth.atEndOfMonth();
 
-        // Récupérer les données pour ce mois
-        List<OffreDrogues> monthlyData;
-
-        if (currentUser.getRole() == UserRole.EXTERNE) {
-            monthlyData = offreDroguesRepository.findByUtilisateurAndDateSaisieBetween(
-                    currentUser, firstDay, lastDay);
-        } else {
-            monthlyData = offreDroguesRepository.findByDateSaisieBetween(firstDay, lastDay);
-
-            // Filtrer par structure pour les admin structure
-            if (currentUser.getRole() == UserRole.ADMIN_STRUCTURE) {
-                monthlyData = monthlyData.stream()
-                        .filter(o -> o.getStructure() != null &&
-                                o.getStructure().getId().equals(currentUser.getStructure().getId()))
-                        .collect(Collectors.toList());
-            }
-        }
-
         // Organiser les données par jour
         Map<Integer, MonthlySubstancesDto> dailyData = new HashMap<>();
 
@@ -277,20 +323,32 @@ public class OffreDroguesService {
             dailyData.put(day, dto);
         }
 
-        // Remplir avec les données réelles
-        for (OffreDrogues offreDrogues : monthlyData) {
-            int day = offreDrogues.getDateSaisie().getDayOfMonth();
-            MonthlySubstancesDto dto = dailyData.get(day);
-
-            if (dto != null) {
-                // Additionner les valeurs si plusieurs saisies le même jour
-                dto.setCannabis(addValues(dto.getCannabis(), offreDrogues.getCannabis()));
-                dto.setComprimesTableauA(addValues(dto.getComprimesTableauA(), offreDrogues.getComprimesTableauA()));
-                dto.setEcstasyComprime(addValues(dto.getEcstasyComprime(), offreDrogues.getEcstasyComprime()));
-                dto.setEcstasyPoudre(addValues(dto.getEcstasyPoudre(), offreDrogues.getEcstasyPoudre()));
-                dto.setSubutex(addValues(dto.getSubutex(), offreDrogues.getSubutex()));
-                dto.setCocaine(addValues(dto.getCocaine(), offreDrogues.getCocaine()));
-                dto.setHeroine(addValues(dto.getHeroine(), offreDrogues.getHeroine()));
+        if (currentUser.getRole() == UserRole.EXTERNE) {
+            // Une seule saisie par jour et par utilisateur : au plus 31 lignes
+            for (OffreDrogues offreDrogues : offreDroguesRepository.findByUtilisateurAndDateSaisieBetween(
+                    currentUser, firstDay, lastDay)) {
+                MonthlySubstancesDto dto = dailyData.get(offreDrogues.getDateSaisie().getDayOfMonth());
+                dto.setCannabis(offreDrogues.getCannabis());
+                dto.setComprimesTableauA(offreDrogues.getComprimesTableauA());
+                dto.setEcstasyComprime(offreDrogues.getEcstasyComprime());
+                dto.setEcstasyPoudre(offreDrogues.getEcstasyPoudre());
+                dto.setSubutex(offreDrogues.getSubutex());
+                dto.setCocaine(offreDrogues.getCocaine());
+                dto.setHeroine(offreDrogues.getHeroine());
+            }
+        } else {
+            // Lire les agrégats journaliers (au plus 31 lignes pré-sommées)
+            Long structureId = currentUser.getRole() == UserRole.ADMIN_STRUCTURE
+                    ? currentUser.getStructure().getId() : null;
+            for (DailySubstancesTotalDto total : offreDroguesRollupService.getDailyTotals(firstDay, lastDay, structureId)) {
+                MonthlySubstancesDto dto = dailyData.get(total.getJour().getDayOfMonth());
+                dto.setCannabis(total.getCannabis());
+                dto.setComprimesTableauA(toInteger(total.getComprimesTableauA()));
+                dto.setEcstasyComprime(toInteger(total.getEcstasyComprime()));
+                dto.setEcstasyPoudre(total.getEcstasyPoudre());
+                dto.setSubutex(toInteger(total.getSubutex()));
+                dto.setCocaine(total.getCocaine());
+                dto.setHeroine(total.getHeroine());
             }
         }
 
@@ -300,21 +358,8 @@ public class OffreDroguesService {
                 .collect(Collectors.toList());
     }
 
-    /**
-     * Additionne deux valeurs numériques, en gérant les nulls
-     */
-    private <T extends Number> T addValues(T a, T b) {
-        if (a == null && b == null) return null;
-        if (a == null) return b;
-        if (b == null) return a;
-
-        if (a instanceof Double) {
-            return (T) Double.valueOf(((Double) a) + ((Double) b));
-        } else if (a instanceof Integer) {
-            return (T) Integer.valueOf(((Integer) a) + ((Integer) b));
-        }
-
-        return a;
+    private Integer toInteger(Long value) {
+        return value != null ? Math.toIntExact(value) : null;
     }
 
     /**
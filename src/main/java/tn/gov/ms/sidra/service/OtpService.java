@@ -3,25 +3,22 @@ package tn.gov.ms.sidra.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import tn.gov.ms.sidra.entity.OtpCode;
-import tn.gov.ms.sidra.entity.OtpEtat;
 import tn.gov.ms.sidra.entity.User;
 import tn.gov.ms.sidra.exception.BusinessException;
-import tn.gov.ms.sidra.repository.OtpCodeRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OtpService {
 
-    private final OtpCodeRepository otpCodeRepository;
+    private final OtpStore otpStore;
     private final SmsService smsService;
 
     @Value("${otp.expiration:300000}") // 5 minutes par défaut
@@ -30,148 +27,106 @@ public class OtpService {
     @Value("${otp.max-attempts:3}")
     private int maxAttempts;
 
+    @Value("${otp.resend-max:5}")
+    private int resendMax;
+
+    @Value("${otp.resend-window:3600000}") // 1 heure par défaut
+    private long resendWindow;
+
     private final SecureRandom secureRandom = new SecureRandom();
 
     /**
-     * Génère et stocke un nouveau code OTP pour un utilisateur
+     * Génère et stocke un nouveau code OTP pour un utilisateur (les codes existants sont invalidés)
      */
-    @Transactional
-    public OtpCode generateAndStoreOtp(User user, String ipAddress) {
+    public void generateAndStoreOtp(User user, String ipAddress) {
         log.info("Génération d'un nouveau code OTP pour l'utilisateur: {}", user.getEmail());
 
-        // Invalider tous les codes OTP existants pour cet utilisateur
-        invalidateExistingOtpCodes(user);
-
         // Générer un nouveau code OTP
         String otpCode = generateOtpCode();
-        
+
         // Calculer la date d'expiration
         LocalDateTime expirationDate = LocalDateTime.now().plusSeconds(otpExpiration / 1000);
 
-        // Créer et sauvegarder le nouveau code OTP
-        OtpCode otpEntity = new OtpCode();
-        otpEntity.setUser(user);
-        otpEntity.setCode(otpCode);
-        otpEntity.setDateExpiration(expirationDate);
-        otpEntity.setEtat(OtpEtat.VALIDE);
-        otpEntity.setNombreTentatives(0);
-        otpEntity.setAdresseIp(ipAddress);
+        otpStore.issue(user, otpCode, expirationDate, ipAddress);
 
-        OtpCode savedOtp = otpCodeRepository.save(otpEntity);
-
-        // Envoyer le code OTP par SMS de manière asynchrone
+        // Mettre le code OTP en file d'envoi SMS (expédié après validation de la transaction)
         sendOtpBySms(user, otpCode);
 
         log.info("Code OTP généré et stocké avec succès pour l'utilisateur: {}", user.getEmail());
-        return savedOtp;
     }
 
     /**
      * Vérifie un code OTP
      */
-    @Transactional
     public boolean verifyOtp(User user, String code) {
         log.info("Vérification du code OTP pour l'utilisateur: {}", user.getEmail());
 
-        // Nettoyer les codes expirés
-        cleanupExpiredCodes();
-
-        // Rechercher le code OTP valide
-        Optional<OtpCode> otpOptional = otpCodeRepository
-                .findFirstByUserAndEtatOrderByDateCreationDesc(user, OtpEtat.VALIDE);
-
-        if (otpOptional.isEmpty()) {
-            log.warn("Aucun code OTP valide trouvé pour l'utilisateur: {}", user.getEmail());
-            return false;
+        OtpStore.Verification verification = otpStore.verify(user, code, maxAttempts);
+        switch (verification.statut()) {
+            case ACCEPTE:
+                log.info("Code OTP vérifié avec succès pour l'utilisateur: {}", user.getEmail());
+                return true;
+            case ABSENT:
+                log.warn("Aucun code OTP valide trouvé pour l'utilisateur: {}", user.getEmail());
+                return false;
+            case EXPIRE:
+                log.warn("Code OTP expiré pour l'utilisateur: {}", user.getEmail());
+                return false;
+            case BLOQUE:
+                log.warn("Code OTP bloqué après {} tentatives pour l'utilisateur: {}",
+                        maxAttempts, user.getEmail());
+                throw new BusinessException("Code OTP bloqué après trop de tentatives");
+            default:
+                log.warn("Code OTP invalide pour l'utilisateur: {} (tentative {}/{})",
+                        user.getEmail(), verification.tentatives(), maxAttempts);
+                return false;
         }
-
-        OtpCode otpCode = otpOptional.get();
-
-        // Vérifier si le code est expiré
-        if (otpCode.isExpired()) {
-            otpCode.setEtat(OtpEtat.EXPIRE);
-            otpCodeRepository.save(otpCode);
-            log.warn("Code OTP expiré pour l'utilisateur: {}", user.getEmail());
-            return false;
-        }
-
-        // Vérifier le nombre de tentatives
-        if (otpCode.getNombreTentatives() >= maxAttempts) {
-            otpCode.setEtat(OtpEtat.BLOQUE);
-            otpCodeRepository.save(otpCode);
-            log.warn("Code OTP bloqué après {} tentatives pour l'utilisateur: {}", 
-                    maxAttempts, user.getEmail());
-            throw new BusinessException("Code OTP bloqué après trop de tentatives");
-        }
-
-        // Incrémenter le nombre de tentatives
-        otpCode.setNombreTentatives(otpCode.getNombreTentatives() + 1);
-
-        // Vérifier le code
-        if (!otpCode.getCode().equals(code)) {
-            otpCodeRepository.save(otpCode);
-            log.warn("Code OTP invalide pour l'utilisateur: {} (tentative {}/{})", 
-                    user.getEmail(), otpCode.getNombreTentatives(), maxAttempts);
-            return false;
-        }
-
-        // Code valide - marquer comme utilisé
-        otpCode.setEtat(OtpEtat.UTILISE);
-        otpCodeRepository.save(otpCode);
-
-        log.info("Code OTP vérifié avec succès pour l'utilisateur: {}", user.getEmail());
-        return true;
     }
 
     /**
      * Renvoie un nouveau code OTP
      */
-    @Transactional
-    public OtpCode resendOtp(User user, String ipAddress) {
+    public void resendOtp(User user, String ipAddress) {
         log.info("Renvoi d'un nouveau code OTP pour l'utilisateur: {}", user.getEmail());
 
-        // Vérifier la limite de génération de codes (par exemple, max 3 codes par heure)
-        long recentCodesCount = otpCodeRepository.countByUserAndDateCreationAfter(
-                user, LocalDateTime.now().minusHours(1));
+        // Vérifier la limite de génération de codes sur la fenêtre glissante
+        long recentCodesCount = otpStore.countIssuedSince(user,
+                LocalDateTime.now().minusNanos(resendWindow * 1_000_000));
 
-        if (recentCodesCount >= 5) {
+        if (recentCodesCount >= resendMax) {
             throw new BusinessException("Trop de demandes de codes OTP. Veuillez patienter.");
         }
 
-        return generateAndStoreOtp(user, ipAddress);
+        generateAndStoreOtp(user, ipAddress);
     }
 
     /**
-     * Invalide tous les codes OTP existants pour un utilisateur
+     * Clôture périodique des codes OTP expirés, en dehors des vérifications
      */
-    @Transactional
-    public void invalidateExistingOtpCodes(User user) {
-        otpCodeRepository.updateEtatByUserAndEtat(user, OtpEtat.VALIDE, OtpEtat.EXPIRE);
-        log.debug("Codes OTP existants invalidés pour l'utilisateur: {}", user.getEmail());
+    @Scheduled(fixedDelayString = "${otp.cleanup-interval:60000}")
+    public void purgeExpiredCodes() {
+        int expired = otpStore.purgeExpired(LocalDateTime.now());
+        if (expired > 0) {
+            log.debug("{} code(s) OTP expiré(s) clôturé(s)", expired);
+        }
     }
 
     /**
-     * Nettoie les codes OTP expirés
+     * Obtient le nombre de tentatives restantes pour un utilisateur
      */
-    @Transactional
-    public void cleanupExpiredCodes() {
-        otpCodeRepository.expireOldCodes(LocalDateTime.now());
-        log.debug("Nettoyage des codes OTP expirés effectué");
+    public int getRemainingAttempts(User user) {
+        return otpStore.getRemainingAttempts(user, maxAttempts);
     }
 
     /**
-     * Obtient le nombre de tentatives restantes pour un utilisateur
+     * Comparaison en temps constant du code attendu et du code proposé
      */
-    public int getRemainingAttempts(User user) {
-        Optional<OtpCode> otpOptional = otpCodeRepository
-                .findFirstByUserAndEtatOrderByDateCreationDesc(user, OtpEtat.VALIDE);
-
-        if (otpOptional.isEmpty()) {
-            return maxAttempts;
+    static boolean codesMatch(String expected, String candidate) {
+        if (expected == null || candidate == null) {
+            return false;
         }
-
-        OtpCode otpCode = otpOptional.get();
-        return Math.max(0, maxAttempts - otpCode.getNombreTentatives());
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                candidate.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -183,24 +138,15 @@ public class OtpService {
     }
 
     /**
-     * Envoie le code OTP par SMS de manière asynchrone
+     * Met le code OTP en file d'envoi SMS, dans la même transaction que la demande
      */
-    @Async
-    protected void sendOtpBySms(User user, String otpCode) {
-        try {
-            String message = String.format(
-                    "SIDRA: Votre code de vérification est %s. Ce code expire dans 5 minutes. Ne le partagez avec personne.",
-                    otpCode
-            );
-
-            // TODO: Remplacer par votre implémentation d'envoi SMS
-            // Exemple d'appel à votre API SMS
-            smsService.sendSms(user.getTelephone(), message);
-
-            log.info("Code OTP envoyé par SMS à l'utilisateur: {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Erreur lors de l'envoi du SMS OTP pour l'utilisateur: {}", user.getEmail(), e);
-            // Ne pas faire échouer la transaction principale en cas d'erreur SMS
-        }
+    private void sendOtpBySms(User user, String otpCode) {
+        String message = String.format(
+                "SIDRA: Votre code de vérification est %s. Ce code expire dans %d minutes. Ne le partagez avec personne.",
+                otpCode, Math.max(1, otpExpiration / 60000)
+        );
+
+        smsService.sendSms(user.getTelephone(), message);
+        log.info("Code OTP mis en file d'envoi SMS pour l'utilisateur: {}", user.getEmail());
     }
-}
\ No newline at end of file
+}
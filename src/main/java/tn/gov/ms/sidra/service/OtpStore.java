@@ -0,0 +1,49 @@
+package tn.gov.ms.sidra.service;
+
+import tn.gov.ms.sidra.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stockage des codes OTP en cours : émission, vérification avec comptage des tentatives et fenêtre
+ * d'émission par utilisateur. Implémentation JPA (table otp_codes, par défaut) ou en mémoire avec
+ * durée de vie (otp.store=memory), choisie par configuration.
+ */
+public interface OtpStore {
+
+    enum Statut {
+        ACCEPTE,
+        REFUSE,
+        EXPIRE,
+        ABSENT,
+        BLOQUE
+    }
+
+    /**
+     * Résultat d'une vérification et nombre de tentatives consommées sur le code
+     */
+    record Verification(Statut statut, int tentatives) {
+    }
+
+    /**
+     * Enregistre un nouveau code pour l'utilisateur ; les codes encore valides sont invalidés
+     */
+    void issue(User user, String code, LocalDateTime dateExpiration, String ipAddress);
+
+    /**
+     * Vérifie le code proposé contre le dernier code valide de l'utilisateur
+     */
+    Verification verify(User user, String code, int maxAttempts);
+
+    int getRemainingAttempts(User user, int maxAttempts);
+
+    /**
+     * Nombre de codes émis pour l'utilisateur depuis la date donnée
+     */
+    long countIssuedSince(User user, LocalDateTime since);
+
+    /**
+     * Clôture les codes expirés ; renvoie le nombre de codes traités
+     */
+    int purgeExpired(LocalDateTime now);
+}
@@ -0,0 +1,7 @@
+package tn.gov.ms.sidra.service;
+
+/**
+ * Événement publié lorsqu'une demande d'accès change de statut (approbation, rejet, annulation, expiration)
+ */
+public record PatientAccessChangedEvent(Long requestorId, Long patientId) {
+}
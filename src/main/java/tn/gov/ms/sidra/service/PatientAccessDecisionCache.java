@@ -0,0 +1,117 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.gov.ms.sidra.entity.Patient;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.repository.PatientAccessRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache mémoire des décisions d'accès aux patients hors structure, par (utilisateur, patient).
+ * Les décisions positives expirent à la date d'expiration de l'autorisation, les négatives
+ * après un court délai. Les entrées sont invalidées après commit d'un changement de statut.
+ * <p>
+ * Chaque invalidation incrémente une époque ; une décision lue en base n'est mise en cache que si
+ * aucune invalidation n'a eu lieu pendant la lecture, pour qu'une lecture antérieure au commit
+ * ne réinsère pas une décision périmée.
+ */
+@Component
+@Slf4j
+public class PatientAccessDecisionCache {
+
+    private final PatientAccessRepository patientAccessRepository;
+    private final long negativeTtl;
+    private final long maxTtl;
+    private final int maxEntries;
+
+    private final Map<Key, Decision> decisions = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    public PatientAccessDecisionCache(PatientAccessRepository patientAccessRepository,
+                                      @Value("${patient-access.cache.negative-ttl:30000}") long negativeTtl,
+                                      @Value("${patient-access.cache.max-ttl:600000}") long maxTtl,
+                                      @Value("${patient-access.cache.max-entries:50000}") int maxEntries) {
+        this.patientAccessRepository = patientAccessRepository;
+        this.negativeTtl = negativeTtl;
+        this.maxTtl = maxTtl;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Indique si l'utilisateur dispose d'une autorisation approuvée sur le patient
+     */
+    public boolean hasAccess(Patient patient, User user) {
+        Key key = new Key(user.getId(), patient.getId());
+        long now = System.currentTimeMillis();
+
+        Decision cached = decisions.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.granted();
+        }
+
+        long readEpoch = epoch.get();
+        List<LocalDateTime> expirations = patientAccessRepository.findApprovedExpirations(patient.getId(), user.getId());
+        Decision decision = expirations.isEmpty()
+                ? new Decision(false, now + negativeTtl)
+                : new Decision(true, positiveExpiry(expirations, now));
+
+        if (decisions.size() >= maxEntries) {
+            evictExpired(now);
+        }
+        // L'époque est incrémentée avant la suppression : compute voit soit l'époque changée,
+        // soit une entrée que la suppression retirera ensuite
+        decisions.compute(key, (k, current) -> epoch.get() == readEpoch ? decision : current);
+        return decision.granted();
+    }
+
+    /**
+     * Invalide la décision mise en cache pour un couple (utilisateur, patient)
+     */
+    public void invalidate(Long userId, Long patientId) {
+        epoch.incrementAndGet();
+        decisions.remove(new Key(userId, patientId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientAccessChanged(PatientAccessChangedEvent event) {
+        log.debug("Invalidation du cache d'accès - utilisateur: {}, patient: {}", event.requestorId(), event.patientId());
+        invalidate(event.requestorId(), event.patientId());
+    }
+
+    private long positiveExpiry(List<LocalDateTime> expirations, long now) {
+        long expiresAt = now + maxTtl;
+        for (LocalDateTime expiration : expirations) {
+            if (expiration == null) {
+                return expiresAt;
+            }
+        }
+        long latest = expirations.stream()
+                .mapToLong(e -> e.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .max()
+                .orElse(expiresAt);
+        return Math.min(latest, expiresAt);
+    }
+
+    private void evictExpired(long now) {
+        decisions.values().removeIf(decision -> decision.expiresAt() <= now);
+        if (decisions.size() >= maxEntries) {
+            log.warn("Cache des décisions d'accès plein ({} entrées), réinitialisation", decisions.size());
+            decisions.clear();
+        }
+    }
+
+    private record Key(Long userId, Long patientId) {
+    }
+
+    private record Decision(boolean granted, long expiresAt) {
+    }
+}
@@ -0,0 +1,157 @@
+package tn.gov.ms.sidra.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.dto.patientaccess.ExpiringAccessDto;
+import tn.gov.ms.sidra.entity.PatientAccess;
+import tn.gov.ms.sidra.repository.PatientAccessRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fait expirer les autorisations d'accès approuvées une fois leur date d'expiration atteinte.
+ * Les échéances proches sont tenues dans une roue temporelle en mémoire ; un balayage indexé
+ * périodique y charge celles qui entrent dans l'horizon de la roue.
+ */
+@Service
+@Slf4j
+public class PatientAccessExpiryService {
+
+    private static final String STATUS_CONSTRAINT = "patient_access_status_check";
+
+    private final PatientAccessRepository patientAccessRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpiryTimerWheel timerWheel;
+    private final int batchSize;
+
+    public PatientAccessExpiryService(PatientAccessRepository patientAccessRepository,
+                                      ApplicationEventPublisher eventPublisher,
+                                      JdbcTemplate jdbcTemplate,
+                                      @Value("${patient-access.expiry.tick:60000}") long tickMs,
+                                      @Value("${patient-access.expiry.wheel-size:512}") int wheelSize,
+                                      @Value("${patient-access.expiry.batch-size:500}") int batchSize) {
+        this.patientAccessRepository = patientAccessRepository;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.timerWheel = new ExpiryTimerWheel(tickMs, wheelSize, System.currentTimeMillis());
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Les tables créées avant le statut EXPIRED portent la contrainte CHECK générée par Hibernate
+     * sur les seules valeurs d'alors, que ddl-auto=update ne modifie pas. Elle est recréée avec
+     * toutes les valeurs de l'énumération avant le premier balayage ; sans effet si elle est à jour.
+     */
+    @PostConstruct
+    public void ensureStatusConstraint() {
+        List<String> definitions = jdbcTemplate.queryForList(
+                "SELECT pg_get_constraintdef(c.oid) FROM pg_constraint c " +
+                        "WHERE c.conrelid = 'patient_access'::regclass AND c.conname = ?",
+                String.class, STATUS_CONSTRAINT);
+        boolean upToDate = definitions.stream().allMatch(definition ->
+                Arrays.stream(PatientAccess.PatientAccessStatus.values())
+                        .allMatch(status -> definition.contains("'" + status.name() + "'")));
+        if (upToDate) {
+            return;
+        }
+
+        String values = Arrays.stream(PatientAccess.PatientAccessStatus.values())
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE patient_access DROP CONSTRAINT IF EXISTS " + STATUS_CONSTRAINT);
+        jdbcTemplate.execute("ALTER TABLE patient_access ADD CONSTRAINT " + STATUS_CONSTRAINT +
+                " CHECK (status IN (" + values + "))");
+        log.info("✅ Contrainte {} mise à jour: {}", STATUS_CONSTRAINT, values);
+    }
+
+    /**
+     * Programme l'expiration d'une autorisation qui vient d'être approuvée
+     */
+    public void schedule(Long accessId, LocalDateTime dateExpiration) {
+        if (dateExpiration != null) {
+            timerWheel.schedule(accessId, toEpochMilli(dateExpiration));
+        }
+    }
+
+    /**
+     * Avance la roue et fait expirer les autorisations arrivées à échéance
+     */
+    @Scheduled(fixedDelayString = "${patient-access.expiry.tick:60000}")
+    @Transactional
+    public void tick() {
+        List<Long> due = timerWheel.advance(System.currentTimeMillis());
+        if (!due.isEmpty()) {
+            expire(due);
+        }
+    }
+
+    /**
+     * Balayage indexé des autorisations approuvées expirant avant la fin de l'horizon de la roue
+     */
+    @Scheduled(fixedDelayString = "${patient-access.expiry.sweep-interval:900000}")
+    @Transactional
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        LocalDateTime horizon = LocalDateTime.ofInstant(Instant.ofEpochMilli(now + timerWheel.horizonMs()), ZoneId.systemDefault());
+
+        List<ExpiringAccessDto> expiring = patientAccessRepository.findApprovedExpiringBefore(horizon);
+        List<Long> due = new ArrayList<>();
+        for (ExpiringAccessDto access : expiring) {
+            long deadline = toEpochMilli(access.getDateExpiration());
+            if (deadline <= now || !timerWheel.schedule(access.getId(), deadline)) {
+                due.add(access.getId());
+            }
+        }
+
+        log.debug("Balayage des expirations d'accès: {} à échéance, {} programmées dans la roue",
+                due.size(), timerWheel.size());
+        if (!due.isEmpty()) {
+            expire(due);
+        }
+    }
+
+    private void expire(List<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+
+            // Relire l'état courant : seules les autorisations encore approuvées et échues sont expirées
+            List<ExpiringAccessDto> expired = patientAccessRepository.findApprovedExpiredByIds(batch, now);
+            if (expired.isEmpty()) {
+                continue;
+            }
+
+            List<Long> expiredIds = expired.stream().map(ExpiringAccessDto::getId).toList();
+            patientAccessRepository.updateStatus(expiredIds, PatientAccess.PatientAccessStatus.APPROVED,
+                    PatientAccess.PatientAccessStatus.EXPIRED, now);
+            log.info("{} autorisation(s) d'accès expirée(s)", expiredIds.size());
+
+            for (ExpiringAccessDto access : expired) {
+                eventPublisher.publishEvent(new PatientAccessChangedEvent(access.getRequestorId(), access.getPatientId()));
+                eventPublisher.publishEvent(new UserNotificationEvent(access.getRequestorId(), "ACCESS_EXPIRED", Map.of(
+                        "requestId", access.getId(),
+                        "patientId", access.getPatientId(),
+                        "patientCode", access.getPatientCode()
+                )));
+            }
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
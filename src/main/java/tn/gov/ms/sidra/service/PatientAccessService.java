@@ -2,21 +2,34 @@ package tn.gov.ms.sidra.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tn.gov.ms.sidra.dto.patientaccess.AccessRequestDto;
+import tn.gov.ms.sidra.dto.patientaccess.AccessStatusDto;
+import tn.gov.ms.sidra.dto.patientaccess.BulkAccessRequestResultDto;
 import tn.gov.ms.sidra.entity.Patient;
 import tn.gov.ms.sidra.entity.PatientAccess;
 import tn.gov.ms.sidra.entity.User;
 import tn.gov.ms.sidra.exception.BusinessException;
+import tn.gov.ms.sidra.repository.PatientAccessBatchRepository;
 import tn.gov.ms.sidra.repository.PatientAccessRepository;
 import tn.gov.ms.sidra.repository.PatientRepository;
 import tn.gov.ms.sidra.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,10 +37,16 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PatientAccessService {
 
+    private static final int MAX_STATUS_LOOKUP = 500;
+
     private final PatientAccessRepository patientAccessRepository;
+    private final PatientAccessBatchRepository patientAccessBatchRepository;
     private final PatientRepository patientRepository;
     private final UserRepository userRepository;
-    private final WebSocketService webSocketService;
+    private final PatientAccessDecisionCache patientAccessDecisionCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PatientAccessExpiryService patientAccessExpiryService;
+    private final StructureSharingService structureSharingService;
 
     /**
      * Demande l'accès à un patient
@@ -72,41 +91,145 @@ public class PatientAccessService {
         log.info("Demande d'accès créée avec l'ID: {}", savedRequest.getId());
 
         // Notifier le propriétaire du patient
-        webSocketService.notifyUser(owner.getId(), "NEW_ACCESS_REQUEST", Map.of(
+        eventPublisher.publishEvent(new UserNotificationEvent(owner.getId(), "NEW_ACCESS_REQUEST", Map.of(
                 "requestId", savedRequest.getId(),
                 "patientId", patient.getId(),
                 "patientCode", patient.getCodePatient(),
                 "requestorName", requestor.getPrenom() + " " + requestor.getNom(),
                 "requestorStructure", requestor.getStructure().getNom()
-        ));
+        )));
 
         return mapToDto(savedRequest);
     }
 
     /**
-     * Récupère les demandes d'accès envoyées par un utilisateur
+     * Demande l'accès à plusieurs patients en une seule opération.
+     * Les patients, les demandes existantes et les propriétaires sont résolus en trois requêtes,
+     * les demandes sont insérées en batch et chaque propriétaire reçoit une seule notification.
+     */
+    @Transactional
+    public BulkAccessRequestResultDto requestAccessBulk(List<Long> patientIds, User requestor) {
+        log.info("Demande d'accès groupée à {} patient(s) par l'utilisateur: {}", patientIds.size(), requestor.getEmail());
+
+        BulkAccessRequestResultDto result = new BulkAccessRequestResultDto();
+        Set<Long> requestedIds = new LinkedHashSet<>(patientIds);
+        Long requestorStructureId = requestor.getStructure().getId();
+
+        Map<Long, Patient> patients = patientRepository.findAllWithStructureByIdIn(requestedIds).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        Set<Long> alreadyRequested = new HashSet<>(patientAccessRepository.findPatientIdsWithStatus(
+                requestor.getId(), requestedIds,
+                List.of(PatientAccess.PatientAccessStatus.PENDING, PatientAccess.PatientAccessStatus.APPROVED)));
+
+        // Filtrer les patients éligibles
+        List<Patient> eligible = new ArrayList<>();
+        for (Long patientId : requestedIds) {
+            Patient patient = patients.get(patientId);
+            if (patient == null) {
+                result.getSkipped().add(new BulkAccessRequestResultDto.SkippedPatientDto(patientId, "Patient non trouvé"));
+            } else if (patient.getStructure().getId().equals(requestorStructureId)) {
+                result.getSkipped().add(new BulkAccessRequestResultDto.SkippedPatientDto(patientId, "Patient de votre structure"));
+            } else if (alreadyRequested.contains(patientId)) {
+                result.getSkipped().add(new BulkAccessRequestResultDto.SkippedPatientDto(patientId, "Demande déjà en cours ou accès déjà accordé"));
+            } else {
+                eligible.add(patient);
+            }
+        }
+
+        // Résoudre les propriétaires (premier utilisateur de chaque structure) en une requête
+        Set<Long> structureIds = eligible.stream().map(p -> p.getStructure().getId()).collect(Collectors.toSet());
+        Map<Long, User> ownersByStructure = structureIds.isEmpty() ? Map.of() :
+                userRepository.findFirstUserOfStructures(structureIds).stream()
+                        .collect(Collectors.toMap(u -> u.getStructure().getId(), Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PatientAccess> requests = new ArrayList<>();
+        for (Patient patient : eligible) {
+            User owner = ownersByStructure.get(patient.getStructure().getId());
+            if (owner == null) {
+                result.getSkipped().add(new BulkAccessRequestResultDto.SkippedPatientDto(patient.getId(), "Propriétaire du patient non trouvé"));
+                continue;
+            }
+            PatientAccess accessRequest = new PatientAccess();
+            accessRequest.setPatient(patient);
+            accessRequest.setRequestor(requestor);
+            accessRequest.setOwner(owner);
+            accessRequest.setStatus(PatientAccess.PatientAccessStatus.PENDING);
+            accessRequest.setDateCreation(now);
+            accessRequest.setDateModification(now);
+            requests.add(accessRequest);
+        }
+
+        patientAccessBatchRepository.insertAll(requests);
+        log.info("{} demande(s) d'accès créée(s), {} patient(s) ignoré(s)", requests.size(), result.getSkipped().size());
+
+        // Une notification agrégée par propriétaire
+        Map<Long, List<PatientAccess>> requestsByOwner = new LinkedHashMap<>();
+        for (PatientAccess request : requests) {
+            result.getCreated().add(new BulkAccessRequestResultDto.CreatedRequestDto(
+                    request.getId(), request.getPatient().getId(), request.getPatient().getCodePatient(), request.getOwner().getId()));
+            requestsByOwner.computeIfAbsent(request.getOwner().getId(), id -> new ArrayList<>()).add(request);
+        }
+        requestsByOwner.forEach((ownerId, ownerRequests) -> eventPublisher.publishEvent(new UserNotificationEvent(ownerId, "NEW_ACCESS_REQUESTS", Map.of(
+                "count", ownerRequests.size(),
+                "requestIds", ownerRequests.stream().map(PatientAccess::getId).toList(),
+                "patientCodes", ownerRequests.stream().map(r -> r.getPatient().getCodePatient()).toList(),
+                "requestorName", requestor.getPrenom() + " " + requestor.getNom(),
+                "requestorStructure", requestor.getStructure().getNom()
+        ))));
+
+        return result;
+    }
+
+    /**
+     * Récupère les demandes d'accès envoyées par un utilisateur (paginé, filtrable par statut)
+     */
+    @Transactional(readOnly = true)
+    public Page<AccessRequestDto> getRequestsByUser(User user, String status, Pageable pageable) {
+        log.info("Récupération des demandes d'accès envoyées par l'utilisateur: {}, statut: {}", user.getEmail(), status);
+
+        return patientAccessRepository.findInboxByRequestor(user.getId(), parseStatus(status), pageable)
+                .map(this::mapToDto);
+    }
+
+    /**
+     * Récupère les demandes d'accès reçues par un utilisateur (paginé, filtrable par statut)
      */
     @Transactional(readOnly = true)
-    public List<AccessRequestDto> getRequestsByUser(User user) {
-        log.info("Récupération des demandes d'accès envoyées par l'utilisateur: {}", user.getEmail());
+    public Page<AccessRequestDto> getReceivedRequests(User user, String status, Pageable pageable) {
+        log.info("Récupération des demandes d'accès reçues par l'utilisateur: {}, statut: {}", user.getEmail(), status);
 
-        List<PatientAccess> requests = patientAccessRepository.findByRequestorOrderByDateCreationDesc(user);
-        return requests.stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return patientAccessRepository.findInboxByOwner(user.getId(), parseStatus(status), pageable)
+                .map(this::mapToDto);
     }
 
     /**
-     * Récupère les demandes d'accès reçues par un utilisateur
+     * Statut de la dernière demande d'accès de l'utilisateur pour chacun des patients donnés
+     * (les patients sans demande sont absents du résultat)
      */
     @Transactional(readOnly = true)
-    public List<AccessRequestDto> getReceivedRequests(User user) {
-        log.info("Récupération des demandes d'accès reçues par l'utilisateur: {}", user.getEmail());
+    public Map<Long, String> getAccessStatuses(User user, Collection<Long> patientIds) {
+        if (patientIds.isEmpty()) {
+            return Map.of();
+        }
+        if (patientIds.size() > MAX_STATUS_LOOKUP) {
+            throw new BusinessException("Trop de patients demandés (maximum " + MAX_STATUS_LOOKUP + ")");
+        }
+
+        // Triées par date de création : la demande la plus récente l'emporte
+        Map<Long, String> statuses = new HashMap<>();
+        for (AccessStatusDto access : patientAccessRepository.findStatusesByRequestor(user.getId(), new HashSet<>(patientIds))) {
+            statuses.put(access.getPatientId(), access.getStatus().name());
+        }
+        return statuses;
+    }
 
-        List<PatientAccess> requests = patientAccessRepository.findByOwnerOrderByDateCreationDesc(user);
-        return requests.stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+    /**
+     * Compte les demandes d'accès en attente reçues par un utilisateur (badge)
+     */
+    @Transactional(readOnly = true)
+    public long countPendingReceivedRequests(User user) {
+        return patientAccessRepository.countPendingByOwnerId(user.getId());
     }
 
     /**
@@ -137,13 +260,16 @@ public class PatientAccessService {
 
         PatientAccess updatedRequest = patientAccessRepository.save(request);
         log.info("Demande d'accès approuvée: {}", updatedRequest.getId());
+        patientAccessExpiryService.schedule(updatedRequest.getId(), updatedRequest.getDateExpiration());
+        eventPublisher.publishEvent(new PatientAccessChangedEvent(
+                request.getRequestor().getId(), request.getPatient().getId()));
 
         // Notifier le demandeur
-        webSocketService.notifyUser(request.getRequestor().getId(), "ACCESS_REQUEST_APPROVED", Map.of(
+        eventPublisher.publishEvent(new UserNotificationEvent(request.getRequestor().getId(), "ACCESS_REQUEST_APPROVED", Map.of(
                 "requestId", updatedRequest.getId(),
                 "patientId", request.getPatient().getId(),
                 "patientCode", request.getPatient().getCodePatient()
-        ));
+        )));
 
         return mapToDto(updatedRequest);
     }
@@ -174,13 +300,15 @@ public class PatientAccessService {
 
         PatientAccess updatedRequest = patientAccessRepository.save(request);
         log.info("Demande d'accès rejetée: {}", updatedRequest.getId());
+        eventPublisher.publishEvent(new PatientAccessChangedEvent(
+                request.getRequestor().getId(), request.getPatient().getId()));
 
         // Notifier le demandeur
-        webSocketService.notifyUser(request.getRequestor().getId(), "ACCESS_REQUEST_REJECTED", Map.of(
+        eventPublisher.publishEvent(new UserNotificationEvent(request.getRequestor().getId(), "ACCESS_REQUEST_REJECTED", Map.of(
                 "requestId", updatedRequest.getId(),
                 "patientId", request.getPatient().getId(),
                 "patientCode", request.getPatient().getCodePatient()
-        ));
+        )));
 
         return mapToDto(updatedRequest);
     }
@@ -211,14 +339,16 @@ public class PatientAccessService {
 
         PatientAccess updatedRequest = patientAccessRepository.save(request);
         log.info("Demande d'accès annulée: {}", updatedRequest.getId());
+        eventPublisher.publishEvent(new PatientAccessChangedEvent(
+                request.getRequestor().getId(), request.getPatient().getId()));
 
         // Notifier le propriétaire
-        webSocketService.notifyUser(request.getOwner().getId(), "ACCESS_REQUEST_CANCELLED", Map.of(
+        eventPublisher.publishEvent(new UserNotificationEvent(request.getOwner().getId(), "ACCESS_REQUEST_CANCELLED", Map.of(
                 "requestId", updatedRequest.getId(),
                 "patientId", request.getPatient().getId(),
                 "patientCode", request.getPatient().getCodePatient(),
                 "requestorName", request.getRequestor().getPrenom() + " " + request.getRequestor().getNom()
-        ));
+        )));
 
         return mapToDto(updatedRequest);
     }
@@ -245,8 +375,15 @@ public class PatientAccessService {
             return result;
         }
 
+        // Vérifier si une convention de partage couvre la structure du patient
+        if (structureSharingService.isShared(patient.getStructure().getId(), currentUser.getStructure().getId())) {
+            result.put("hasAccess", true);
+            result.put("accessType", "AGREEMENT");
+            return result;
+        }
+
         // Vérifier si l'utilisateur a une demande d'accès approuvée
-        boolean hasAccess = patientAccessRepository.hasAccess(patient, currentUser);
+        boolean hasAccess = patientAccessDecisionCache.hasAccess(patient, currentUser);
         result.put("hasAccess", hasAccess);
         
         if (hasAccess) {
@@ -265,6 +402,20 @@ public class PatientAccessService {
         return result;
     }
 
+    /**
+     * Convertit le statut demandé en énumération (null si absent)
+     */
+    private PatientAccess.PatientAccessStatus parseStatus(String status) {
+        if (status == null || status.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return PatientAccess.PatientAccessStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Statut de demande d'accès invalide: " + status);
+        }
+    }
+
     /**
      * Convertit une entité PatientAccess en DTO
      */
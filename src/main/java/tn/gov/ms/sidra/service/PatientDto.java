@@ -2,11 +2,15 @@ package tn.gov.ms.sidra.service;
 
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.gov.ms.sidra.entity.TypeStructure;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class PatientDto {
     private Long id;
     private String nom;
@@ -18,6 +22,21 @@ public class PatientDto {
     private StructureDto structure;
     private List<FormulaireBrefDto> formulaires;
 
+    /**
+     * Constructeur de projection JPQL pour la recherche externe (informations limitées)
+     */
+    public PatientDto(Long id, String codePatient, String genre, LocalDate dateNaissance,
+                      Long structureId, String structureNom, TypeStructure structureType) {
+        this.id = id;
+        this.codePatient = codePatient;
+        this.genre = genre;
+        this.dateNaissance = dateNaissance;
+        this.structure = new StructureDto();
+        this.structure.setId(structureId);
+        this.structure.setNom(structureNom);
+        this.structure.setType(structureType != null ? structureType.getLabel() : null);
+    }
+
     @Data
     public static class StructureDto {
         private Long id;
@@ -2,6 +2,9 @@ package tn.gov.ms.sidra.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,11 +14,13 @@ import tn.gov.ms.sidra.entity.User;
 import tn.gov.ms.sidra.entity.UserRole;
 import tn.gov.ms.sidra.exception.BusinessException;
 import tn.gov.ms.sidra.mapper.PatientMapper;
+import tn.gov.ms.sidra.repository.FormulaireRepository;
 import tn.gov.ms.sidra.repository.PatientRepository;
 import tn.gov.ms.sidra.repository.StructureRepository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +30,9 @@ public class PatientService {
 
     private final PatientRepository patientRepository;
     private final StructureRepository structureRepository;
+    private final PatientAccessDecisionCache patientAccessDecisionCache;
+    private final StructureSharingService structureSharingService;
+    private final FormulaireRepository formulaireRepository;
     private final PatientMapper patientMapper;
 
     /**
@@ -55,66 +63,27 @@ public class PatientService {
     }
 
     /**
-     * Recherche des patients dans d'autres structures (accès limité)
+     * Recherche des patients dans d'autres structures (accès limité, paginé)
      */
     @Transactional(readOnly = true)
-    public List<PatientDto> searchPatientsExternal(String codePatient, Long structureId, User currentUser) {
-        log.info("Recherche externe de patients - utilisateur: {}, code: {}, structureId: {}", 
-                currentUser.getEmail(), codePatient, structureId);
+    public Page<PatientDto> searchPatientsExternal(String codePatient, Long structureId, User currentUser, Pageable pageable) {
+        log.info("Recherche externe de patients - utilisateur: {}, code: {}, structureId: {}, page: {}",
+                currentUser.getEmail(), codePatient, structureId, pageable);
 
-        List<Patient> patients = new ArrayList<>();
+        // Les patients de la structure de l'utilisateur sont exclus directement dans la requête
+        Long excludedStructureId = currentUser.getStructure().getId();
 
-        // Recherche par code patient
+        // Recherche par code patient (éventuellement restreinte à une structure)
         if (codePatient != null && !codePatient.trim().isEmpty()) {
-            Optional<Patient> patientOpt = patientRepository.findByCodePatient(codePatient.trim());
-            patientOpt.ifPresent(patients::add);
+            return patientRepository.findLimitedByCodePatient(codePatient.trim(), structureId, excludedStructureId, pageable);
         }
 
         // Recherche par structure
         if (structureId != null) {
-            List<Patient> structurePatients = patientRepository.findByStructureId(structureId);
-            
-            // Si on a déjà trouvé un patient par code, filtrer pour ne garder que celui-ci s'il est dans la structure
-            if (!patients.isEmpty() && patients.get(0).getStructure().getId().equals(structureId)) {
-                // On garde le patient déjà trouvé
-            } else if (!patients.isEmpty()) {
-                // Le patient trouvé par code n'est pas dans la structure demandée
-                patients.clear();
-            } else {
-                // Ajouter tous les patients de la structure
-                patients.addAll(structurePatients);
-            }
+            return patientRepository.findLimitedByStructureId(structureId, excludedStructureId, pageable);
         }
 
-        // Filtrer pour exclure les patients de la structure de l'utilisateur
-        patients = patients.stream()
-                .filter(p -> !p.getStructure().getId().equals(currentUser.getStructure().getId()))
-                .collect(Collectors.toList());
-
-        // Convertir en DTO avec informations limitées
-        return patients.stream()
-                .map(this::mapToLimitedDto)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Convertit un patient en DTO avec informations limitées
-     */
-    private PatientDto mapToLimitedDto(Patient patient) {
-        PatientDto dto = new PatientDto();
-        dto.setId(patient.getId());
-        dto.setCodePatient(patient.getCodePatient());
-        dto.setGenre(patient.getGenre());
-        dto.setDateNaissance(patient.getDateNaissance());
-        
-        // Informations sur la structure
-        PatientDto.StructureDto structureDto = new PatientDto.StructureDto();
-        structureDto.setId(patient.getStructure().getId());
-        structureDto.setNom(patient.getStructure().getNom());
-        structureDto.setType(patient.getStructure().getType().getLabel());
-        dto.setStructure(structureDto);
-        
-        return dto;
+        return Page.empty(pageable);
     }
 
     /**
@@ -133,6 +102,23 @@ public class PatientService {
         return patientMapper.toDto(patient);
     }
 
+    /**
+     * Récupère les champs stables du dernier formulaire d'un patient pour pré-remplir une nouvelle visite
+     */
+    @Transactional(readOnly = true)
+    public Optional<FormulairePrefillDto> getPrefill(Long patientId, User currentUser) {
+        log.info("Pré-remplissage depuis la dernière visite du patient ID: {} par l'utilisateur: {}",
+                patientId, currentUser.getEmail());
+
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new BusinessException("Patient non trouvé avec l'ID: " + patientId));
+
+        // Vérifier les permissions
+        validateReadPermissions(patient, currentUser);
+
+        return formulaireRepository.findPrefillByPatientId(patientId, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
     /**
      * Recherche des patients par nom, prénom ou code
      */
@@ -166,8 +152,9 @@ public class PatientService {
         Patient originalPatient = patientRepository.findById(originalPatientId)
                 .orElseThrow(() -> new BusinessException("Patient original non trouvé"));
 
-        // Vérifier l'accès
-        boolean hasAccess = patientAccessRepository.hasAccess(originalPatient, currentUser);
+        // Vérifier l'accès (convention de partage ou demande approuvée)
+        boolean hasAccess = structureSharingService.isShared(originalPatient.getStructure().getId(), currentUser.getStructure().getId())
+                || patientAccessDecisionCache.hasAccess(originalPatient, currentUser);
         if (!hasAccess) {
             throw new BusinessException("Vous n'avez pas accès à ce patient");
         }
@@ -272,8 +259,13 @@ public class PatientService {
                 return;
             }
             
+            // Vérifier si une convention de partage couvre la structure du patient
+            if (structureSharingService.isShared(patient.getStructure().getId(), currentUser.getStructure().getId())) {
+                return;
+            }
+
             // Vérifier si l'admin a une demande d'accès approuvée
-            boolean hasAccess = patientAccessRepository.hasAccess(patient, currentUser);
+            boolean hasAccess = patientAccessDecisionCache.hasAccess(patient, currentUser);
             if (hasAccess) {
                 return;
             }
@@ -287,8 +279,13 @@ public class PatientService {
                 return;
             }
             
+            // Vérifier si une convention de partage couvre la structure du patient
+            if (structureSharingService.isShared(patient.getStructure().getId(), currentUser.getStructure().getId())) {
+                return;
+            }
+
             // Vérifier si l'utilisateur a une demande d'accès approuvée
-            boolean hasAccess = patientAccessRepository.hasAccess(patient, currentUser);
+            boolean hasAccess = patientAccessDecisionCache.hasAccess(patient, currentUser);
             if (hasAccess) {
                 return;
             }
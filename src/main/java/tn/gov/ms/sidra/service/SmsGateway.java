@@ -0,0 +1,29 @@
+package tn.gov.ms.sidra.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fournisseur d'envoi de SMS utilisé par SmsOutboxDispatcher (sms.gateway=http ou stub)
+ */
+public interface SmsGateway {
+
+    /**
+     * SMS à transmettre au fournisseur ; id est celui de la ligne sms_outbox
+     */
+    record SmsMessage(Long id, String telephone, String texte) {
+    }
+
+    /**
+     * Envoie un lot de SMS, en une ou plusieurs requêtes selon le fournisseur ; renvoie l'erreur de chaque
+     * SMS non envoyé, indexée par id (vide si tout est parti)
+     */
+    Map<Long, String> sendBatch(List<SmsMessage> messages);
+
+    /**
+     * Durée maximale de l'envoi d'un SMS du lot, délais réseau compris ; 0 si elle n'est pas bornée par le fournisseur
+     */
+    default long maxSendMillisPerMessage() {
+        return 0;
+    }
+}
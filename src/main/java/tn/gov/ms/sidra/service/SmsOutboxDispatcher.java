@@ -0,0 +1,264 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.gov.ms.sidra.entity.SmsOutbox;
+import tn.gov.ms.sidra.repository.SmsOutboxRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Expédition des SMS de sms_outbox hors des transactions métier. Un coordinateur prend des lots de SMS dus
+ * (FOR UPDATE SKIP LOCKED, avec un bail en cas d'arrêt brutal) et les confie à un pool borné de threads
+ * d'envoi ; les SMS du lot sont transmis au fournisseur (une requête HTTP par SMS avec HttpSmsGateway)
+ * puis leur état de livraison est enregistré. Le bail couvre au moins l'envoi au pire d'un lot et l'attente
+ * d'un lot dans la file des threads, pour qu'un lot lent ne soit pas repris et envoyé deux fois.
+ * Les échecs sont retentés avec un délai exponentiel jusqu'au nombre maximal de tentatives.
+ */
+@Component
+@Slf4j
+public class SmsOutboxDispatcher implements DisposableBean {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final long LEASE_MARGIN_MILLIS = 30_000;
+
+    private final SmsOutboxRepository smsOutboxRepository;
+    private final SmsGateway smsGateway;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final long leaseMillis;
+    private final int retentionDays;
+
+    private final ThreadPoolExecutor coordinator;
+    private final ThreadPoolExecutor workers;
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+    public SmsOutboxDispatcher(SmsOutboxRepository smsOutboxRepository,
+                               SmsGateway smsGateway,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${sms.outbox.batch-size:20}") int batchSize,
+                               @Value("${sms.outbox.workers:2}") int workerCount,
+                               @Value("${sms.outbox.max-attempts:5}") int maxAttempts,
+                               @Value("${sms.outbox.backoff:5000}") long backoffMillis,
+                               @Value("${sms.outbox.max-backoff:600000}") long maxBackoffMillis,
+                               @Value("${sms.outbox.lease:120000}") long leaseMillis,
+                               @Value("${sms.outbox.retention-days:30}") int retentionDays) {
+        this.smsOutboxRepository = smsOutboxRepository;
+        this.smsGateway = smsGateway;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.leaseMillis = effectiveLease(leaseMillis, this.batchSize, smsGateway.maxSendMillisPerMessage());
+        if (this.leaseMillis > leaseMillis) {
+            log.info("Bail des SMS porté de {} ms à {} ms pour couvrir l'envoi d'un lot de {} SMS",
+                    leaseMillis, this.leaseMillis, this.batchSize);
+        }
+        this.retentionDays = retentionDays;
+
+        int threads = Math.max(1, workerCount);
+        this.coordinator = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> daemon(runnable, "sms-outbox-coordinator"));
+        AtomicInteger counter = new AtomicInteger();
+        // File de la taille du pool : au plus deux lots par thread pris d'avance
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads),
+                runnable -> daemon(runnable, "sms-outbox-" + counter.incrementAndGet()));
+    }
+
+    /**
+     * Un SMS vient d'être validé en base : lancer l'expédition sans attendre le prochain passage
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSmsQueued(SmsQueuedEvent event) {
+        wakeUp();
+    }
+
+    /**
+     * Passage périodique pour les SMS à retenter et ceux dont le bail a expiré
+     */
+    @Scheduled(fixedDelayString = "${sms.outbox.poll-interval:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Supprime les SMS terminés (envoyés ou abandonnés) au-delà de la durée de conservation
+     */
+    @Scheduled(fixedDelayString = "${sms.outbox.purge-interval:3600000}")
+    public void purgeFinished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                smsOutboxRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("{} SMS terminé(s) supprimé(s) de la file d'envoi", deleted);
+        }
+    }
+
+    private void wakeUp() {
+        // Au plus un passage en attente : les réveils rapprochés sont regroupés
+        if (wakeRequested.compareAndSet(false, true)) {
+            coordinator.execute(() -> {
+                wakeRequested.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            while (workers.getQueue().remainingCapacity() > 0) {
+                List<Claimed> batch = claimBatch();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                workers.execute(() -> deliver(batch));
+            }
+        } catch (RuntimeException e) {
+            log.error("Erreur lors de la prise en charge des SMS en attente: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<Claimed> claimBatch() {
+        List<Claimed> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<SmsOutbox> due = smsOutboxRepository.lockDue(now, batchSize);
+            if (due.isEmpty()) {
+                return List.of();
+            }
+            smsOutboxRepository.claim(due.stream().map(SmsOutbox::getId).toList(),
+                    now.plusNanos(leaseMillis * 1_000_000));
+            return due.stream()
+                    .map(sms -> new Claimed(new SmsGateway.SmsMessage(sms.getId(), sms.getTelephone(), sms.getMessage()),
+                            sms.getNombreTentatives()))
+                    .toList();
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    private void deliver(List<Claimed> batch) {
+        List<SmsGateway.SmsMessage> messages = batch.stream().map(Claimed::message).toList();
+        Map<Long, String> failures;
+        try {
+            failures = smsGateway.sendBatch(messages);
+        } catch (RuntimeException e) {
+            log.warn("Échec de l'envoi d'un lot de {} SMS: {}", messages.size(), e.getMessage());
+            failures = new HashMap<>();
+            for (SmsGateway.SmsMessage message : messages) {
+                failures.put(message.id(), e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        }
+
+        try {
+            recordResults(batch, failures);
+        } catch (RuntimeException e) {
+            // Les SMS restent « en cours » et seront repris à l'expiration du bail
+            log.error("Erreur lors de l'enregistrement de l'état des SMS: {}", e.getMessage(), e);
+        }
+
+        if (batch.size() == batchSize) {
+            wakeUp();
+        }
+    }
+
+    private void recordResults(List<Claimed> batch, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sent = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Claimed claimed : batch) {
+                Long id = claimed.message().id();
+                if (!failures.containsKey(id)) {
+                    sent.add(id);
+                    continue;
+                }
+                String error = failures.get(id);
+                int attempts = claimed.attempts() + 1;
+                String truncated = truncate(error);
+                if (attempts >= maxAttempts) {
+                    smsOutboxRepository.markAbandoned(id, attempts, truncated);
+                    log.error("SMS {} abandonné après {} tentatives: {}", id, attempts, error);
+                } else {
+                    smsOutboxRepository.markRetry(id, attempts, now.plusNanos(backoff(attempts) * 1_000_000), truncated);
+                }
+            }
+            if (!sent.isEmpty()) {
+                smsOutboxRepository.markSent(sent, now);
+            }
+        });
+        log.debug("Lot de SMS traité: {} envoyé(s), {} en échec", sent.size(), failures.size());
+    }
+
+    /**
+     * Bail effectif : au moins deux lots envoyés au pire (celui en cours sur un thread et un lot pris d'avance
+     * dans la file), une requête par SMS, plus une marge pour l'enregistrement des résultats
+     */
+    static long effectiveLease(long configuredMillis, int batchSize, long maxSendMillisPerMessage) {
+        if (maxSendMillisPerMessage <= 0) {
+            return configuredMillis;
+        }
+        return Math.max(configuredMillis, 2L * batchSize * maxSendMillisPerMessage + LEASE_MARGIN_MILLIS);
+    }
+
+    long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    /**
+     * Délai avant la tentative suivante : doublé à chaque échec, plafonné, avec ±20 % d'aléa
+     */
+    long backoff(int attempts) {
+        long delay = backoffMillis << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, maxBackoffMillis);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (delay * jitter);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        coordinator.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * SMS pris en charge et nombre de tentatives déjà effectuées
+     */
+    private record Claimed(SmsGateway.SmsMessage message, int attempts) {
+    }
+}
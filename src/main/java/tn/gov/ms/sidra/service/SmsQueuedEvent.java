@@ -0,0 +1,7 @@
+package tn.gov.ms.sidra.service;
+
+/**
+ * Publié lorsqu'un SMS est ajouté à sms_outbox ; traité après validation de la transaction
+ */
+public record SmsQueuedEvent(Long smsId) {
+}
@@ -2,127 +2,42 @@ package tn.gov.ms.sidra.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.entity.SmsEtat;
+import tn.gov.ms.sidra.entity.SmsOutbox;
+import tn.gov.ms.sidra.repository.SmsOutboxRepository;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SmsService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-
-     private String smsApiUrl;
-
-     private String smsApiKey;
-
-     private String smsSender;
+    private final SmsOutboxRepository smsOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Envoie un SMS via l'API SMS
-     * 
-     * TODO: REMPLACER CETTE MÉTHODE PAR VOTRE IMPLÉMENTATION D'API SMS
-     * 
-     * Cette méthode doit être adaptée selon votre fournisseur SMS :
-     * - Twilio
-     * - AWS SNS
-     * - Vonage (Nexmo)
-     * - Infobip
-     * - Ou tout autre fournisseur SMS tunisien/local
+     * Ajoute un SMS à la file d'envoi (sms_outbox), dans la transaction de l'appelant.
+     * L'envoi au fournisseur est fait après validation par SmsOutboxDispatcher, avec reprises en cas d'échec :
+     * une passerelle lente ou indisponible ne bloque jamais la requête.
      */
+    @Transactional
     public void sendSms(String phoneNumber, String message) {
-        try {
-            log.info("Envoi SMS vers le numéro: {}", phoneNumber);
-
-//                 String url = String.format("http://10.172.20.7/rdvtestcovid/dmicim11/send_sms.php?gsm=%s&msg=%s",phoneNumber, message);
-//                restTemplate.getForObject(url, String.class);
-//
-            // ========================================
-            // TODO: IMPLÉMENTATION DE VOTRE API SMS
-            // ========================================
-            
-            // Exemple générique - À ADAPTER selon votre fournisseur
-//            HttpHeaders headers = new HttpHeaders();
-//            headers.setContentType(MediaType.APPLICATION_JSON);
-//            headers.setBearerAuth(smsApiKey); // ou headers.set("Authorization", "Bearer " + smsApiKey);
-//
-//            Map<String, Object> requestBody = new HashMap<>();
-//            requestBody.put("to", phoneNumber);
-//            requestBody.put("from", smsSender);
-//            requestBody.put("text", message);
-//
-//            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-//
-//            ResponseEntity<String> response = restTemplate.postForEntity(smsApiUrl, request, String.class);
-//
-//            if (response.getStatusCode() == HttpStatus.OK) {
-//                log.info("SMS envoyé avec succès vers: {}", phoneNumber);
-//            } else {
-//                log.error("Erreur lors de l'envoi SMS. Code de réponse: {}", response.getStatusCode());
-//                throw new RuntimeException("Erreur lors de l'envoi du SMS");
-//            }
-            log.info("SMS envoyé avec succès vers: {}", phoneNumber);
-
-            // ========================================
-            // EXEMPLES D'IMPLÉMENTATIONS SPÉCIFIQUES
-            // ========================================
-
-            /*
-            // EXEMPLE TWILIO:
-            Twilio.init(accountSid, authToken);
-            Message message = Message.creator(
-                new PhoneNumber(phoneNumber),
-                new PhoneNumber(smsSender),
-                message)
-                .create();
-            */
-
-            /*
-            // EXEMPLE AWS SNS:
-            AmazonSNS snsClient = AmazonSNSClientBuilder.standard()
-                .withRegion(Regions.EU_WEST_1)
-                .build();
-            
-            PublishRequest request = new PublishRequest()
-                .withPhoneNumber(phoneNumber)
-                .withMessage(message);
-            
-            snsClient.publish(request);
-            */
+        if (phoneNumber == null || phoneNumber.isBlank()) {
+            log.warn("SMS non mis en file : numéro de téléphone manquant");
+            return;
+        }
 
-            /*
-            // EXEMPLE INFOBIP:
-            ApiClient client = ApiClient.forApiKey(ApiKey.from(smsApiKey))
-                .withBaseUrl(BaseUrl.from(smsApiUrl))
-                .build();
-            
-            SmsApi smsApi = new SmsApi(client);
-            
-            SmsDestination destination = new SmsDestination()
-                .to(phoneNumber);
-            
-            SmsTextualMessage smsMessage = new SmsTextualMessage()
-                .from(smsSender)
-                .text(message)
-                .destinations(List.of(destination));
-            
-            SmsAdvancedTextualRequest request = new SmsAdvancedTextualRequest()
-                .messages(List.of(smsMessage));
-            
-            smsApi.sendSmsMessage(request);
-            */
+        SmsOutbox sms = new SmsOutbox();
+        sms.setTelephone(phoneNumber.trim());
+        sms.setMessage(message);
+        sms.setEtat(SmsEtat.EN_ATTENTE);
+        sms.setNombreTentatives(0);
+        SmsOutbox saved = smsOutboxRepository.save(sms);
 
-        } catch (Exception e) {
-            log.error("Erreur lors de l'envoi du SMS vers {}: {}", phoneNumber, e.getMessage(), e);
-            throw new RuntimeException("Erreur lors de l'envoi du SMS", e);
-        }
+        eventPublisher.publishEvent(new SmsQueuedEvent(saved.getId()));
+        log.info("SMS {} mis en file d'envoi vers le numéro: {}", saved.getId(), phoneNumber);
     }
 
     /**
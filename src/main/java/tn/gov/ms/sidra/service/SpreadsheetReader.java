@@ -0,0 +1,422 @@
+package tn.gov.ms.sidra.service;
+
+import tn.gov.ms.sidra.exception.BusinessException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lecture en flux de feuilles CSV et XLSX, ligne par ligne, sans charger le fichier en mémoire.
+ * Le XLSX est lu directement dans l'archive (chaînes partagées puis première feuille) avec un
+ * analyseur StAX ; seules les chaînes partagées sont conservées en mémoire.
+ */
+final class SpreadsheetReader {
+
+    private static final long MAX_XML_ENTRY_SIZE = 512L * 1024 * 1024;
+
+    @FunctionalInterface
+    interface RowHandler {
+        /**
+         * Reçoit une ligne du fichier (numérotée à partir de 1) et ses cellules, vides comprises
+         */
+        void row(int lineNumber, List<String> cells);
+
+        /**
+         * Signale une cellule illisible, avant la ligne qui la contient (où elle est vide) ;
+         * par défaut le fichier entier est refusé
+         */
+        default void invalidCell(int lineNumber, int column, String message) {
+            throw new BusinessException("Ligne " + lineNumber + ", colonne " + (column + 1) + ": " + message);
+        }
+    }
+
+    private SpreadsheetReader() {
+    }
+
+    /**
+     * Lit un CSV UTF-8 ; le séparateur (';' ou ',') est déduit de la première ligne
+     */
+    static void readCsv(InputStream input, RowHandler handler) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+
+            char separator = 0;
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            StringBuilder firstLine = new StringBuilder();
+            boolean quoted = false;
+            boolean rowHasContent = false;
+            int lineNumber = 1;
+            int rowStart = 1;
+            int c;
+
+            while ((c = reader.read()) != -1) {
+                char ch = (char) c;
+                if (separator == 0) {
+                    // Première ligne : déterminer le séparateur avant de découper
+                    if (ch != '\n') {
+                        firstLine.append(ch);
+                        continue;
+                    }
+                    separator = firstLine.indexOf(";") >= 0 ? ';' : ',';
+                    splitCsvLine(firstLine.toString(), separator, cells);
+                    handler.row(1, cells);
+                    cells = new ArrayList<>();
+                    lineNumber = 2;
+                    rowStart = 2;
+                    continue;
+                }
+
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            cell.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            lineNumber++;
+                        }
+                        cell.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                    rowHasContent = true;
+                } else if (ch == separator) {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                    rowHasContent = true;
+                } else if (ch == '\n') {
+                    String last = stripCarriageReturn(cell);
+                    if (rowHasContent || !last.isEmpty()) {
+                        cells.add(last);
+                        handler.row(rowStart, cells);
+                        cells = new ArrayList<>();
+                    }
+                    cell.setLength(0);
+                    rowHasContent = false;
+                    lineNumber++;
+                    rowStart = lineNumber;
+                } else {
+                    cell.append(ch);
+                }
+            }
+
+            if (separator == 0) {
+                if (firstLine.length() > 0) {
+                    splitCsvLine(firstLine.toString(), firstLine.indexOf(";") >= 0 ? ';' : ',', cells);
+                    handler.row(1, cells);
+                }
+            } else if (rowHasContent || !stripCarriageReturn(cell).isEmpty()) {
+                cells.add(stripCarriageReturn(cell));
+                handler.row(rowStart, cells);
+            }
+        }
+    }
+
+    /**
+     * Lit la première feuille d'un classeur XLSX
+     */
+    static void readXlsx(File file, RowHandler handler) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            List<String> sharedStrings = new ArrayList<>();
+            ZipEntry sharedStringsEntry = zip.getEntry("xl/sharedStrings.xml");
+            if (sharedStringsEntry != null) {
+                checkSize(sharedStringsEntry);
+                try (InputStream input = new LimitedInputStream(zip.getInputStream(sharedStringsEntry))) {
+                    readSharedStrings(input, sharedStrings);
+                }
+            }
+
+            ZipEntry sheet = firstSheet(zip);
+            checkSize(sheet);
+            try (InputStream input = new LimitedInputStream(zip.getInputStream(sheet))) {
+                readSheet(input, sharedStrings, handler);
+            }
+        } catch (XMLStreamException e) {
+            throw new BusinessException("Fichier XLSX illisible: " + e.getMessage());
+        }
+    }
+
+    private static ZipEntry firstSheet(ZipFile zip) {
+        ZipEntry sheet = zip.getEntry("xl/worksheets/sheet1.xml");
+        if (sheet != null) {
+            return sheet;
+        }
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.getName().startsWith("xl/worksheets/") && entry.getName().endsWith(".xml")) {
+                return entry;
+            }
+        }
+        throw new BusinessException("Le classeur ne contient aucune feuille");
+    }
+
+    private static void readSharedStrings(InputStream input, List<String> sharedStrings) throws XMLStreamException {
+        XMLStreamReader xml = xmlInputFactory().createXMLStreamReader(input);
+        try {
+            StringBuilder text = null;
+            boolean inText = false;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("si".equals(name)) {
+                        text = new StringBuilder();
+                    } else if ("t".equals(name)) {
+                        inText = true;
+                    } else if ("rPh".equals(name)) {
+                        // Indications phonétiques : ignorées
+                        skipElement(xml);
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS && inText && text != null) {
+                    text.append(xml.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("t".equals(name)) {
+                        inText = false;
+                    } else if ("si".equals(name) && text != null) {
+                        sharedStrings.add(text.toString());
+                        text = null;
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    private static void readSheet(InputStream input, List<String> sharedStrings, RowHandler handler)
+            throws XMLStreamException {
+        XMLStreamReader xml = xmlInputFactory().createXMLStreamReader(input);
+        try {
+            List<String> cells = null;
+            int rowNumber = 0;
+            int column = 0;
+            String cellType = null;
+            StringBuilder value = new StringBuilder();
+            boolean inValue = false;
+            boolean rowHasInvalidCell = false;
+
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("row".equals(name)) {
+                        String r = xml.getAttributeValue(null, "r");
+                        rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                        cells = new ArrayList<>();
+                        column = 0;
+                        rowHasInvalidCell = false;
+                    } else if ("c".equals(name) && cells != null) {
+                        String reference = xml.getAttributeValue(null, "r");
+                        column = reference != null ? columnIndex(reference) : cells.size();
+                        cellType = xml.getAttributeValue(null, "t");
+                        value.setLength(0);
+                    } else if ("v".equals(name) || "t".equals(name)) {
+                        inValue = true;
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS && inValue) {
+                    value.append(xml.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("v".equals(name) || "t".equals(name)) {
+                        inValue = false;
+                    } else if ("c".equals(name) && cells != null) {
+                        while (cells.size() < column) {
+                            cells.add("");
+                        }
+                        String cell = cellValue(cellType, value.toString(), sharedStrings);
+                        if (cell == null) {
+                            handler.invalidCell(rowNumber, cells.size(),
+                                    "Référence de chaîne partagée invalide: " + value.toString().trim());
+                            cell = "";
+                            rowHasInvalidCell = true;
+                        }
+                        cells.add(cell);
+                    } else if ("row".equals(name) && cells != null) {
+                        if (rowHasInvalidCell || cells.stream().anyMatch(cell -> !cell.isBlank())) {
+                            handler.row(rowNumber, cells);
+                        }
+                        cells = null;
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * Valeur texte d'une cellule, ou null si elle désigne une chaîne partagée inexistante
+     */
+    private static String cellValue(String type, String raw, List<String> sharedStrings) {
+        if ("s".equals(type)) {
+            int index;
+            try {
+                index = Integer.parseInt(raw.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            return index >= 0 && index < sharedStrings.size() ? sharedStrings.get(index) : null;
+        }
+        if ("b".equals(type)) {
+            return "1".equals(raw) ? "true" : "false";
+        }
+        return raw;
+    }
+
+    /**
+     * Indice (à partir de 0) de la colonne d'une référence de cellule, par exemple « AB12 » → 27
+     */
+    private static int columnIndex(String reference) {
+        int index = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char ch = reference.charAt(i);
+            if (ch < 'A' || ch > 'Z') {
+                break;
+            }
+            index = index * 26 + (ch - 'A' + 1);
+        }
+        return index - 1;
+    }
+
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLInputFactory xmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Refus immédiat sur la taille déclarée ; {@link LimitedInputStream} contrôle la taille réelle
+     */
+    private static void checkSize(ZipEntry entry) {
+        if (entry.getSize() > MAX_XML_ENTRY_SIZE) {
+            throw new BusinessException("Le classeur est trop volumineux");
+        }
+    }
+
+    private static void splitCsvLine(String line, char separator, List<String> cells) {
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == separator) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(ch);
+            }
+        }
+        cells.add(stripCarriageReturn(cell));
+    }
+
+    private static String stripCarriageReturn(StringBuilder cell) {
+        int length = cell.length();
+        return length > 0 && cell.charAt(length - 1) == '\r' ? cell.substring(0, length - 1) : cell.toString();
+    }
+
+    /**
+     * Compte les octets décompressés réellement lus : la taille déclarée dans l'archive
+     * peut être fausse (ou absente) et ne protège pas d'une bombe de décompression
+     */
+    static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in) {
+            this(in, MAX_XML_ENTRY_SIZE);
+        }
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long bytes) {
+            count += bytes;
+            if (count > limit) {
+                throw new BusinessException("Le classeur est trop volumineux");
+            }
+        }
+    }
+}
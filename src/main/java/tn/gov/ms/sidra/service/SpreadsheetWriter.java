@@ -0,0 +1,193 @@
+package tn.gov.ms.sidra.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Écriture en flux d'un classeur XLSX à une feuille, ligne par ligne, directement dans le flux de sortie.
+ * Les parties fixes du classeur sont écrites à l'ouverture ; les cellules texte sont en ligne
+ * (pas de table de chaînes partagées), seule la mémoire tampon d'écriture est donc conservée.
+ */
+final class SpreadsheetWriter implements Closeable {
+
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int STYLE_HEADER = 1;
+    private static final int STYLE_DATE = 2;
+
+    private final ZipOutputStream zip;
+    private final Writer sheet;
+    private int rowNumber;
+    private boolean rowOpen;
+
+    SpreadsheetWriter(OutputStream output, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(output, StandardCharsets.UTF_8);
+        this.sheet = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        writeEntry("[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" +
+                "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>" +
+                "</Types>");
+        writeEntry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+        writeEntry("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" " +
+                "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+                "<sheets><sheet name=\"" + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+        writeEntry("xl/_rels/workbook.xml.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>" +
+                "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>" +
+                "</Relationships>");
+        // Styles : 0 par défaut, 1 en-tête en gras, 2 date (format intégré 14)
+        writeEntry("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">" +
+                "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>" +
+                "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>" +
+                "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>" +
+                "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" +
+                "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>" +
+                "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" +
+                "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>" +
+                "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>" +
+                "</styleSheet>");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        sheet.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">" +
+                "<sheetViews><sheetView workbookViewId=\"0\"><pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>" +
+                "</sheetView></sheetViews><sheetData>");
+    }
+
+    /**
+     * Écrit la ligne d'en-tête (en gras, figée à l'affichage)
+     */
+    void header(List<String> titles) throws IOException {
+        startRow();
+        for (String title : titles) {
+            sheet.write("<c t=\"inlineStr\" s=\"" + STYLE_HEADER + "\"><is><t>");
+            sheet.write(escape(title));
+            sheet.write("</t></is></c>");
+        }
+        endRow();
+    }
+
+    void startRow() throws IOException {
+        if (rowOpen) {
+            endRow();
+        }
+        rowNumber++;
+        sheet.write("<row r=\"");
+        sheet.write(Integer.toString(rowNumber));
+        sheet.write("\">");
+        rowOpen = true;
+    }
+
+    void endRow() throws IOException {
+        sheet.write("</row>");
+        rowOpen = false;
+    }
+
+    void text(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            blank();
+            return;
+        }
+        sheet.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+        sheet.write(escape(value));
+        sheet.write("</t></is></c>");
+    }
+
+    void number(long value) throws IOException {
+        sheet.write("<c><v>");
+        sheet.write(Long.toString(value));
+        sheet.write("</v></c>");
+    }
+
+    void number(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            blank();
+            return;
+        }
+        sheet.write("<c><v>");
+        sheet.write(value == Math.rint(value) && Math.abs(value) < 1e15
+                ? Long.toString((long) value) : Double.toString(value));
+        sheet.write("</v></c>");
+    }
+
+    /**
+     * Date au format numéro de série Excel, affichée avec le format de date court
+     */
+    void date(LocalDate value) throws IOException {
+        if (value == null) {
+            blank();
+            return;
+        }
+        sheet.write("<c s=\"" + STYLE_DATE + "\"><v>");
+        sheet.write(Long.toString(ChronoUnit.DAYS.between(EXCEL_EPOCH, value)));
+        sheet.write("</v></c>");
+    }
+
+    void blank() throws IOException {
+        sheet.write("<c/>");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rowOpen) {
+            endRow();
+        }
+        sheet.write("</sheetData></worksheet>");
+        sheet.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Échappe le texte XML et retire les caractères de contrôle interdits en XML 1.0
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            String replacement = switch (ch) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> ch < 0x20 && ch != '\t' && ch != '\n' && ch != '\r' ? "" : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                escaped.append(replacement != null ? replacement : String.valueOf(ch));
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+}
@@ -0,0 +1,7 @@
+package tn.gov.ms.sidra.service;
+
+/**
+ * Événement publié lorsqu'une convention de partage entre structures est créée ou révoquée
+ */
+public record StructureSharingChangedEvent(Long agreementId) {
+}
@@ -0,0 +1,178 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.gov.ms.sidra.dto.sharing.CreateStructureSharingRequest;
+import tn.gov.ms.sidra.dto.sharing.StructureSharingAgreementDto;
+import tn.gov.ms.sidra.entity.Structure;
+import tn.gov.ms.sidra.entity.StructureSharingAgreement;
+import tn.gov.ms.sidra.exception.BusinessException;
+import tn.gov.ms.sidra.repository.StructureRepository;
+import tn.gov.ms.sidra.repository.StructureSharingAgreementRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Conventions de partage entre structures. Les conventions actives sont tenues en mémoire
+ * (structure bénéficiaire → structure propriétaire → périodes) et reconstruites après chaque modification.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StructureSharingService {
+
+    private final StructureSharingAgreementRepository agreementRepository;
+    private final StructureRepository structureRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Map<Long, Map<Long, List<Window>>> agreements = Map.of();
+
+    /**
+     * Indique si les patients de la structure propriétaire sont partagés avec la structure bénéficiaire à ce jour
+     */
+    public boolean isShared(Long structureProprietaireId, Long structureBeneficiaireId) {
+        if (structureProprietaireId == null || structureBeneficiaireId == null) {
+            return false;
+        }
+        Map<Long, List<Window>> partners = agreements.get(structureBeneficiaireId);
+        if (partners == null) {
+            return false;
+        }
+        List<Window> windows = partners.get(structureProprietaireId);
+        if (windows == null) {
+            return false;
+        }
+        LocalDate today = LocalDate.now();
+        for (Window window : windows) {
+            if (window.contains(today)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Récupère toutes les conventions actives
+     */
+    @Transactional(readOnly = true)
+    public List<StructureSharingAgreementDto> getActiveAgreements() {
+        log.info("Récupération des conventions de partage actives");
+
+        return agreementRepository.findAllActiveWithStructures().stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Crée une convention de partage (et sa réciproque si demandé)
+     */
+    @Transactional
+    public List<StructureSharingAgreementDto> createAgreement(CreateStructureSharingRequest request) {
+        log.info("Création d'une convention de partage: {} -> {}",
+                request.getStructureProprietaireId(), request.getStructureBeneficiaireId());
+
+        if (request.getStructureProprietaireId().equals(request.getStructureBeneficiaireId())) {
+            throw new BusinessException("Une structure ne peut pas partager ses patients avec elle-même");
+        }
+        if (request.getDateDebut() != null && request.getDateFin() != null
+                && request.getDateFin().isBefore(request.getDateDebut())) {
+            throw new BusinessException("La date de fin doit être postérieure à la date de début");
+        }
+
+        Structure proprietaire = structureRepository.findById(request.getStructureProprietaireId())
+                .orElseThrow(() -> new BusinessException("Structure non trouvée avec l'ID: " + request.getStructureProprietaireId()));
+        Structure beneficiaire = structureRepository.findById(request.getStructureBeneficiaireId())
+                .orElseThrow(() -> new BusinessException("Structure non trouvée avec l'ID: " + request.getStructureBeneficiaireId()));
+
+        List<StructureSharingAgreementDto> created = new ArrayList<>();
+        created.add(mapToDto(save(proprietaire, beneficiaire, request)));
+        if (request.isReciproque()) {
+            created.add(mapToDto(save(beneficiaire, proprietaire, request)));
+        }
+        return created;
+    }
+
+    /**
+     * Révoque une convention de partage
+     */
+    @Transactional
+    public void revokeAgreement(Long id) {
+        log.info("Révocation de la convention de partage ID: {}", id);
+
+        StructureSharingAgreement agreement = agreementRepository.findById(id)
+                .orElseThrow(() -> new BusinessException("Convention de partage non trouvée avec l'ID: " + id));
+        agreement.setActif(false);
+        agreementRepository.save(agreement);
+
+        eventPublisher.publishEvent(new StructureSharingChangedEvent(id));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSharingChanged(StructureSharingChangedEvent event) {
+        reload();
+    }
+
+    /**
+     * Reconstruit l'index mémoire des conventions actives
+     */
+    public void reload() {
+        Map<Long, Map<Long, List<Window>>> snapshot = new HashMap<>();
+        List<StructureSharingAgreement> active = agreementRepository.findAllActiveWithStructures();
+        for (StructureSharingAgreement agreement : active) {
+            snapshot.computeIfAbsent(agreement.getStructureBeneficiaire().getId(), id -> new HashMap<>())
+                    .computeIfAbsent(agreement.getStructureProprietaire().getId(), id -> new ArrayList<>())
+                    .add(new Window(agreement.getDateDebut(), agreement.getDateFin()));
+        }
+        agreements = snapshot;
+        log.info("{} convention(s) de partage entre structures chargée(s)", active.size());
+    }
+
+    private StructureSharingAgreement save(Structure proprietaire, Structure beneficiaire, CreateStructureSharingRequest request) {
+        StructureSharingAgreement agreement = new StructureSharingAgreement();
+        agreement.setStructureProprietaire(proprietaire);
+        agreement.setStructureBeneficiaire(beneficiaire);
+        agreement.setDateDebut(request.getDateDebut());
+        agreement.setDateFin(request.getDateFin());
+        agreement.setActif(true);
+
+        StructureSharingAgreement saved = agreementRepository.save(agreement);
+        eventPublisher.publishEvent(new StructureSharingChangedEvent(saved.getId()));
+        return saved;
+    }
+
+    private StructureSharingAgreementDto mapToDto(StructureSharingAgreement agreement) {
+        StructureSharingAgreementDto dto = new StructureSharingAgreementDto();
+        dto.setId(agreement.getId());
+        dto.setStructureProprietaireId(agreement.getStructureProprietaire().getId());
+        dto.setStructureProprietaireNom(agreement.getStructureProprietaire().getNom());
+        dto.setStructureBeneficiaireId(agreement.getStructureBeneficiaire().getId());
+        dto.setStructureBeneficiaireNom(agreement.getStructureBeneficiaire().getNom());
+        dto.setDateDebut(agreement.getDateDebut());
+        dto.setDateFin(agreement.getDateFin());
+        dto.setActif(agreement.getActif());
+        dto.setDateCreation(agreement.getDateCreation());
+        return dto;
+    }
+
+    private record Window(LocalDate debut, LocalDate fin) {
+        boolean contains(LocalDate date) {
+            return (debut == null || !date.isBefore(debut)) && (fin == null || !date.isAfter(fin));
+        }
+    }
+}
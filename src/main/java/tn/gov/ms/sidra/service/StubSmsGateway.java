@@ -0,0 +1,61 @@
+package tn.gov.ms.sidra.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fournisseur local sans réseau (par défaut) : journalise les SMS et garde les derniers en mémoire
+ * pour les tests ; un délai peut être simulé pour reproduire une passerelle lente
+ */
+@Component
+@ConditionalOnProperty(name = "sms.gateway", havingValue = "stub", matchIfMissing = true)
+@Slf4j
+public class StubSmsGateway implements SmsGateway {
+
+    private static final int MAX_KEPT_MESSAGES = 100;
+
+    private final Deque<SmsMessage> sentMessages = new ArrayDeque<>();
+    private final long delayMillis;
+
+    public StubSmsGateway(@Value("${sms.stub.delay:0}") long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public Map<Long, String> sendBatch(List<SmsMessage> messages) {
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (sentMessages) {
+            for (SmsMessage message : messages) {
+                log.info("SMS (simulé) vers le numéro: {}", message.telephone());
+                sentMessages.addLast(message);
+                if (sentMessages.size() > MAX_KEPT_MESSAGES) {
+                    sentMessages.removeFirst();
+                }
+            }
+        }
+        return Map.of();
+    }
+
+    /**
+     * Derniers SMS « envoyés », du plus ancien au plus récent
+     */
+    public List<SmsMessage> getSentMessages() {
+        synchronized (sentMessages) {
+            return new ArrayList<>(sentMessages);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package tn.gov.ms.sidra.service;
+
+/**
+ * Événement publié lorsqu'un compte utilisateur est modifié, activé, désactivé ou supprimé
+ */
+public record UserChangedEvent(Long userId) {
+}
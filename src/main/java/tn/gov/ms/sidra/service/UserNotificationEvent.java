@@ -0,0 +1,7 @@
+package tn.gov.ms.sidra.service;
+
+/**
+ * Notification WebSocket destinée à un utilisateur, envoyée seulement après validation de la transaction
+ */
+public record UserNotificationEvent(Long userId, String type, Object data) {
+}
@@ -2,9 +2,11 @@ package tn.gov.ms.sidra.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tn.gov.ms.sidra.dto.auth.PasswordHashingStatsDto;
 import tn.gov.ms.sidra.dto.user.CreateUserRequest;
 import tn.gov.ms.sidra.dto.user.UpdateUserRequest;
 import tn.gov.ms.sidra.dto.user.UserDto;
@@ -18,7 +20,9 @@ import tn.gov.ms.sidra.exception.BusinessException;
 import tn.gov.ms.sidra.mapper.UserMapper;
 import tn.gov.ms.sidra.repository.StructureRepository;
 import tn.gov.ms.sidra.repository.UserRepository;
+import tn.gov.ms.sidra.security.PasswordHashingExecutor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,6 +35,8 @@ public class UserService {
     private final StructureRepository structureRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
     /**
      * Récupère tous les utilisateurs ou filtrés par structure
@@ -154,6 +160,7 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(existingUser);
+        eventPublisher.publishEvent(new UserChangedEvent(updatedUser.getId()));
         log.info("Utilisateur mis à jour avec succès: {}", updatedUser.getId());
 
         return userMapper.toDto(updatedUser);
@@ -193,6 +200,7 @@ public class UserService {
         user.setActif(true);
         
         User approvedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(approvedUser.getId()));
         log.info("Utilisateur approuvé avec succès: {}", approvedUser.getId());
         
         return userMapper.toDto(approvedUser);
@@ -215,6 +223,7 @@ public class UserService {
         
         // Supprimer l'utilisateur
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         log.info("Utilisateur rejeté et supprimé avec succès: {}", id);
     }
 
@@ -238,7 +247,9 @@ public class UserService {
 
         // Suppression logique
         userToDelete.setActif(false);
+        userToDelete.setSessionsRevoqueesAvant(LocalDateTime.now());
         userRepository.save(userToDelete);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
 
         log.info("Utilisateur supprimé logiquement avec succès: {}", id);
     }
@@ -262,12 +273,24 @@ public class UserService {
         }
 
         user.setActif(!user.getActif());
+        if (!user.getActif()) {
+            // Désactivation : toutes les sessions ouvertes sont révoquées
+            user.setSessionsRevoqueesAvant(LocalDateTime.now());
+        }
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
 
         log.info("Statut de l'utilisateur changé: {} -> {}", id, updatedUser.getActif());
         return userMapper.toDto(updatedUser);
     }
 
+    /**
+     * Récupère les statistiques du pool de hachage des mots de passe
+     */
+    public PasswordHashingStatsDto getPasswordHashingStats() {
+        return passwordHashingExecutor.getStats();
+    }
+
     /**
      * Récupère les statistiques des utilisateurs
      */
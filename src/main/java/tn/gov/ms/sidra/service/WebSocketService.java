@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,6 +31,14 @@ public class WebSocketService {
         messagingTemplate.convertAndSend("/topic/admin/notifications", notification);
     }
 
+    /**
+     * Envoie une notification utilisateur publiée pendant une transaction, une fois celle-ci validée
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserNotification(UserNotificationEvent event) {
+        notifyUser(event.userId(), event.type(), event.data());
+    }
+
     /**
      * Envoie une notification à un utilisateur spécifique
      */
@@ -0,0 +1,92 @@
+package tn.gov.ms.sidra.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginAttemptLimiterTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void accountIsBlockedAtLimitWhateverTheCaseOfTheEmail() {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(3, HOUR, 100, HOUR);
+
+        assertThat(limiter.recordFailure("10.0.0.1", "agent@sante.tn")).isEqualTo(1);
+        assertThat(limiter.recordFailure("10.0.0.2", " Agent@Sante.tn")).isEqualTo(2);
+        assertThat(limiter.blockedUntil("10.0.0.3", "agent@sante.tn")).isNull();
+
+        long before = System.currentTimeMillis();
+        assertThat(limiter.recordFailure("10.0.0.3", "AGENT@SANTE.TN")).isEqualTo(3);
+
+        LocalDateTime until = limiter.blockedUntil("10.0.0.4", "agent@sante.tn");
+        assertThat(until).isNotNull();
+        long untilMillis = until.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertThat(untilMillis).isGreaterThan(before + HOUR - 1000);
+        assertThat(limiter.blockedUntil("10.0.0.4", "autre@sante.tn")).isNull();
+    }
+
+    @Test
+    void windowSlidesOnceTheOldestFailureLeavesIt() throws InterruptedException {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(2, 200, 100, HOUR);
+
+        limiter.recordFailure("10.0.0.1", "agent@sante.tn");
+        Thread.sleep(120);
+        limiter.recordFailure("10.0.0.1", "agent@sante.tn");
+        assertThat(limiter.blockedUntil("10.0.0.1", "agent@sante.tn")).isNotNull();
+
+        // Le premier échec sort de la fenêtre, le second y reste
+        Thread.sleep(120);
+        assertThat(limiter.blockedUntil("10.0.0.1", "agent@sante.tn")).isNull();
+        assertThat(limiter.recordFailure("10.0.0.1", "agent@sante.tn")).isEqualTo(2);
+        assertThat(limiter.blockedUntil("10.0.0.1", "agent@sante.tn")).isNotNull();
+
+        Thread.sleep(250);
+        assertThat(limiter.blockedUntil("10.0.0.1", "agent@sante.tn")).isNull();
+        assertThat(limiter.recordFailure("10.0.0.1", "agent@sante.tn")).isEqualTo(1);
+    }
+
+    @Test
+    void addressIsBlockedAcrossAccountsWithItsOwnLimit() {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(3, HOUR, 5, HOUR);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.recordFailure("10.0.0.9", "compte" + i + "@sante.tn");
+        }
+        assertThat(limiter.blockedUntil("10.0.0.9", "nouveau@sante.tn")).isNull();
+
+        limiter.recordFailure("10.0.0.9", "compte4@sante.tn");
+
+        assertThat(limiter.blockedUntil("10.0.0.9", "nouveau@sante.tn")).isNotNull();
+        assertThat(limiter.blockedUntil("10.0.0.10", "nouveau@sante.tn")).isNull();
+    }
+
+    @Test
+    void successfulLoginResetsTheAccountButNotTheAddress() {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(2, HOUR, 2, HOUR);
+
+        limiter.recordFailure("10.0.0.1", "agent@sante.tn");
+        limiter.recordFailure("10.0.0.1", "agent@sante.tn");
+        limiter.reset("Agent@Sante.tn");
+
+        assertThat(limiter.blockedUntil("10.0.0.2", "agent@sante.tn")).isNull();
+        assertThat(limiter.blockedUntil("10.0.0.1", "autre@sante.tn")).isNotNull();
+    }
+
+    @Test
+    void idleWindowsAreEvictedAndMissingKeysAreIgnored() throws InterruptedException {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(1, 50, 1, 50);
+
+        limiter.recordFailure("10.0.0.1", "agent@sante.tn");
+        assertThat(limiter.blockedUntil("10.0.0.1", null)).isNotNull();
+        Thread.sleep(80);
+        limiter.evictIdle();
+
+        assertThat(limiter.blockedUntil("10.0.0.1", "agent@sante.tn")).isNull();
+        assertThat(limiter.recordFailure(null, " ")).isEqualTo(0);
+        assertThat(limiter.blockedUntil(null, null)).isNull();
+    }
+}
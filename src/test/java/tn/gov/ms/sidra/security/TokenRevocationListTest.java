@@ -0,0 +1,117 @@
+package tn.gov.ms.sidra.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.gov.ms.sidra.entity.RevokedToken;
+import tn.gov.ms.sidra.repository.RevokedTokenRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationListTest {
+
+    private static final long ONE_HOUR = 3_600_000L;
+
+    private final List<RevokedToken> stored = new CopyOnWriteArrayList<>();
+    private RevokedTokenRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = (RevokedTokenRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{RevokedTokenRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findUnexpired" -> List.copyOf(stored);
+                    case "deleteExpired" -> 0;
+                    default -> null;
+                });
+    }
+
+    @Test
+    void revocationsStoredBeforeStartupAreLoaded() {
+        stored.add(new RevokedToken(1L, "jti-stocke", 3L, LocalDateTime.now().plusHours(1), LocalDateTime.now()));
+        TokenRevocationList list = new TokenRevocationList(repository, 1 << 16);
+
+        list.load();
+
+        assertThat(list.isRevoked(token("jti-stocke", ONE_HOUR))).isTrue();
+        assertThat(list.isRevoked(token("jti-autre", ONE_HOUR))).isFalse();
+    }
+
+    @Test
+    void expiredRevocationsArePurged() throws InterruptedException {
+        TokenRevocationList list = new TokenRevocationList(repository, 1 << 16);
+        list.revoke(token("jti-court", 20));
+        list.revoke(token("jti-long", ONE_HOUR));
+        assertThat(list.isRevoked(token("jti-court", 20))).isTrue();
+
+        Thread.sleep(40);
+        list.purgeExpired();
+
+        assertThat(list.isRevoked(token("jti-court", 20))).isFalse();
+        assertThat(list.isRevoked(token("jti-long", ONE_HOUR))).isTrue();
+    }
+
+    @Test
+    void revocationsConcurrentWithFilterRebuildsAreNeverLost() throws Exception {
+        TokenRevocationList list = new TokenRevocationList(repository, 1 << 20);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger rebuilds = new AtomicInteger();
+        AtomicInteger missed = new AtomicInteger();
+
+        // Des tokens de courte durée expirent en continu : chaque purge reconstruit le filtre
+        Thread churn = new Thread(() -> {
+            int n = 0;
+            while (running.get()) {
+                list.revoke(token("court-" + n++, 1));
+                list.purgeExpired();
+                rebuilds.incrementAndGet();
+            }
+        });
+        churn.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    VerifiedToken token = token("long-" + thread + "-" + i, ONE_HOUR);
+                    list.revoke(token);
+                    if (!list.isRevoked(token)) {
+                        missed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        running.set(false);
+        churn.join();
+
+        assertThat(rebuilds.get()).isGreaterThan(0);
+        assertThat(missed.get()).isEqualTo(0);
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 5000; i++) {
+                assertThat(list.isRevoked(token("long-" + t + "-" + i, ONE_HOUR))).isTrue();
+            }
+        }
+    }
+
+    private static VerifiedToken token(String jti, long validityMillis) {
+        long now = System.currentTimeMillis();
+        return new VerifiedToken(jti, "agent@sante.tn", 3L, "ADMIN", 1L, now, now + validityMillis);
+    }
+}
@@ -0,0 +1,70 @@
+package tn.gov.ms.sidra.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.repository.UserRepository;
+import tn.gov.ms.sidra.service.UserChangedEvent;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSnapshotCacheTest {
+
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicBoolean actif = new AtomicBoolean(true);
+    private final AtomicReference<Runnable> duringRead = new AtomicReference<>(() -> { });
+    private UserSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if ("findByIdWithStructureFetched".equals(method.getName())) {
+                        reads.incrementAndGet();
+                        User user = new User();
+                        user.setId((Long) args[0]);
+                        user.setActif(actif.get());
+                        duringRead.getAndSet(() -> { }).run();
+                        return Optional.of(user);
+                    }
+                    return null;
+                });
+        cache = new UserSnapshotCache(repository, 60_000, 100);
+    }
+
+    @Test
+    void usersAreCachedUntilChanged() {
+        assertThat(cache.get(7L).getActif()).isTrue();
+        assertThat(cache.get(7L).getActif()).isTrue();
+        assertThat(reads.get()).isEqualTo(1);
+
+        actif.set(false);
+        cache.onUserChanged(new UserChangedEvent(7L));
+
+        assertThat(cache.get(7L).getActif()).isFalse();
+        assertThat(reads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void changeCommittedDuringAReadIsNotOverwrittenByTheStaleCopy() {
+        // La lecture voit encore le compte actif ; la désactivation est validée avant qu'elle ne se termine
+        duringRead.set(() -> {
+            actif.set(false);
+            cache.onUserChanged(new UserChangedEvent(7L));
+        });
+
+        assertThat(cache.get(7L).getActif()).isTrue();
+
+        assertThat(cache.get(7L).getActif()).isFalse();
+        assertThat(reads.get()).isEqualTo(2);
+        assertThat(cache.get(7L).getActif()).isFalse();
+        assertThat(reads.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,77 @@
+package tn.gov.ms.sidra.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpiryTimerWheelTest {
+
+    @Test
+    void deadlinesFireOnTheFirstTickAtOrAfterThemAndOnlyOnce() {
+        ExpiryTimerWheel wheel = new ExpiryTimerWheel(1_000, 8, 10_000);
+
+        assertThat(wheel.schedule(1L, 12_500)).isTrue();
+        assertThat(wheel.schedule(2L, 14_000)).isTrue();
+        assertThat(wheel.schedule(1L, 13_000)).isTrue();
+        assertThat(wheel.size()).isEqualTo(2);
+
+        // 12 500 est arrondi au tick 13 : jamais avant l'échéance
+        assertThat(wheel.advance(12_000)).isEmpty();
+        assertThat(wheel.advance(12_999)).isEmpty();
+        assertThat(wheel.advance(13_000)).containsExactly(1L);
+        assertThat(wheel.isScheduled(1L)).isFalse();
+        assertThat(wheel.advance(13_999)).isEmpty();
+        assertThat(wheel.advance(14_000)).containsExactly(2L);
+        assertThat(wheel.advance(20_000)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    @Test
+    void pastDeadlinesAndDeadlinesBeyondTheHorizonAreRefused() {
+        ExpiryTimerWheel wheel = new ExpiryTimerWheel(1_000, 8, 10_000);
+
+        assertThat(wheel.horizonMs()).isEqualTo(8_000L);
+        assertThat(wheel.schedule(1L, 9_000)).isFalse();
+        assertThat(wheel.schedule(2L, 10_000)).isFalse();
+        assertThat(wheel.schedule(3L, 18_000)).isTrue();
+        assertThat(wheel.schedule(4L, 18_001)).isFalse();
+
+        assertThat(wheel.advance(17_999)).isEmpty();
+        assertThat(wheel.advance(18_000)).containsExactly(3L);
+    }
+
+    @Test
+    void deadlinesSharingASlotOnDifferentTurnsWaitForTheirOwnTurn() {
+        ExpiryTimerWheel wheel = new ExpiryTimerWheel(1_000, 4, 0);
+
+        wheel.schedule(1L, 1_000);
+        wheel.advance(500);
+        wheel.schedule(2L, 2_000);
+        wheel.advance(1_000);
+        // Tick 5 : même créneau que le tick 1, un tour plus loin
+        assertThat(wheel.schedule(3L, 5_000)).isTrue();
+        wheel.schedule(4L, 1_500);
+
+        assertThat(wheel.advance(2_000)).containsExactly(2L, 4L);
+        assertThat(wheel.advance(4_999)).isEmpty();
+        assertThat(wheel.advance(5_000)).containsExactly(3L);
+    }
+
+    @Test
+    void advancingPastAFullTurnReleasesEverythingDue() {
+        ExpiryTimerWheel wheel = new ExpiryTimerWheel(1_000, 4, 0);
+        wheel.schedule(1L, 1_000);
+        wheel.schedule(2L, 2_000);
+        wheel.schedule(3L, 4_000);
+
+        assertThat(wheel.advance(60_000)).hasSize(3);
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    @Test
+    void wheelSizeMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new ExpiryTimerWheel(1_000, 6, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
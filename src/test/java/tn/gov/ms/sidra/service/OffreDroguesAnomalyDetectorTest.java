@@ -0,0 +1,131 @@
+package tn.gov.ms.sidra.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesAnomalyDto;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesMetric;
+import tn.gov.ms.sidra.repository.OffreDroguesDetecteurEtatRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffreDroguesAnomalyDetectorTest {
+
+    private final List<Object[]> upserts = new CopyOnWriteArrayList<>();
+    private final AtomicLong maxPersistedCount = new AtomicLong();
+    private final List<OffreDroguesAnomalyDto> notifications = new CopyOnWriteArrayList<>();
+    private OffreDroguesAnomalyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        OffreDroguesDetecteurEtatRepository repository = (OffreDroguesDetecteurEtatRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{OffreDroguesDetecteurEtatRepository.class},
+                (proxy, method, args) -> {
+                    if ("upsert".equals(method.getName())) {
+                        upserts.add(args);
+                        maxPersistedCount.accumulateAndGet((Long) args[2], Math::max);
+                    }
+                    return null;
+                });
+        WebSocketService webSocketService = new WebSocketService(null) {
+            @Override
+            public void notifyAdmins(String type, Object data) {
+                notifications.add((OffreDroguesAnomalyDto) data);
+            }
+        };
+        detector = new OffreDroguesAnomalyDetector(repository, webSocketService, event -> { },
+                new NoOpTransactionManager(), 0.1, 3.0, 10);
+    }
+
+    @Test
+    void spikeIsReportedOnlyAfterWarmup() {
+        for (int i = 0; i < 9; i++) {
+            detector.onObserved(observed(i, SeriesMetric.CANNABIS, 10.0 + (i % 3), true));
+        }
+        detector.onObserved(observed(9, SeriesMetric.CANNABIS, 100.0, true));
+        assertThat(notifications).isEmpty();
+
+        for (int i = 10; i < 30; i++) {
+            detector.onObserved(observed(i, SeriesMetric.CANNABIS, 10.0 + (i % 3), true));
+        }
+        detector.onObserved(observed(99, SeriesMetric.CANNABIS, 100.0, true));
+
+        assertThat(notifications).hasSize(1);
+        OffreDroguesAnomalyDto anomaly = notifications.get(0);
+        assertThat(anomaly.getOffreDroguesId()).isEqualTo(99L);
+        assertThat(anomaly.getSubstance()).isEqualTo("cannabis");
+        assertThat(anomaly.getScore()).isGreaterThan(3.0);
+    }
+
+    @Test
+    void correctedEntryIsScoredWithoutChangingOrPersistingState() {
+        for (int i = 0; i < 20; i++) {
+            detector.onObserved(observed(i, SeriesMetric.COCAINE, 5.0 + (i % 2), true));
+        }
+        int persisted = upserts.size();
+
+        detector.onObserved(observed(50, SeriesMetric.COCAINE, 80.0, false));
+        detector.onObserved(observed(50, SeriesMetric.COCAINE, 80.0, false));
+
+        assertThat(upserts).hasSize(persisted);
+        assertThat(notifications).hasSize(2);
+        assertThat(notifications.get(1).getMoyenne()).isEqualTo(notifications.get(0).getMoyenne());
+    }
+
+    @Test
+    void concurrentObservationsOfOneSeriesAreAllCountedAndPersisted() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    detector.onObserved(new OffreDroguesObservedEvent(1L, 1L, 8L, "Structure", null,
+                            Map.of(SeriesMetric.COCAINE, 5.0, SeriesMetric.HEROINE, 2.0), true));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(upserts).hasSize(8 * 500 * 2);
+        assertThat(maxPersistedCount.get()).isEqualTo(4000L);
+    }
+
+    private static OffreDroguesObservedEvent observed(long id, SeriesMetric substance, double value, boolean update) {
+        return new OffreDroguesObservedEvent(id, 1L, 7L, "Structure", null, Map.of(substance, value), update);
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package tn.gov.ms.sidra.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import tn.gov.ms.sidra.dto.offredrogues.OffreDroguesAggregateDto;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesGroupBy;
+import tn.gov.ms.sidra.dto.offredrogues.SeriesMetric;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffreDroguesColumnarStoreTest {
+
+    private static final List<SeriesMetric> STORED = Arrays.stream(SeriesMetric.values())
+            .filter(metric -> metric.getColumn() != null)
+            .toList();
+    private static final List<SeriesMetric> METRICS = List.of(SeriesMetric.SAISIES, SeriesMetric.CANNABIS,
+            SeriesMetric.SUBUTEX);
+    private static final LocalDate JANVIER = LocalDate.of(2025, 1, 1);
+
+    private final List<Saisie> table = new CopyOnWriteArrayList<>();
+    private OffreDroguesColumnarStore store;
+
+    @BeforeEach
+    void setUp() {
+        table.add(new Saisie(1L, JANVIER, 10L, 100L, "Brigade Nord", 1L, "Tunis", 1.5, 2));
+        table.add(new Saisie(2L, JANVIER.plusDays(1), 11L, 200L, "Brigade Sud", 2L, "Sfax", 2.0, 3));
+        table.add(new Saisie(3L, JANVIER.plusDays(1), 10L, 100L, "Brigade Nord", 1L, "Tunis", 0.5, 1));
+        table.add(new Saisie(4L, JANVIER.plusDays(20), 10L, 100L, "Brigade Nord", 1L, "Tunis", 4.0, 5));
+        store = new OffreDroguesColumnarStore(new InMemoryJdbcTemplate());
+        store.load();
+    }
+
+    @Test
+    void totalsCoverOnlyTheRequestedDaysAndFilters() {
+        OffreDroguesAggregateDto all = aggregate(JANVIER, JANVIER.plusDays(1), SeriesGroupBy.NONE, null, null);
+        assertThat(all.getValeurs().get("saisies")).containsExactly(3L);
+        assertThat(all.getValeurs().get("cannabis")).containsExactly(4.0);
+        assertThat(all.getValeurs().get("subutex")).containsExactly(6L);
+
+        OffreDroguesAggregateDto parUtilisateur = aggregate(JANVIER, JANVIER.plusDays(31), SeriesGroupBy.NONE, 10L, null);
+        assertThat(parUtilisateur.getValeurs().get("saisies")).containsExactly(3L);
+        assertThat(parUtilisateur.getValeurs().get("cannabis")).containsExactly(6.0);
+
+        OffreDroguesAggregateDto structureInconnue = aggregate(JANVIER, JANVIER.plusDays(31), SeriesGroupBy.NONE, null, 999L);
+        assertThat(structureInconnue.getValeurs().get("saisies")).isEmpty();
+    }
+
+    @Test
+    void totalsAreGroupedByStructureAndGouvernorat() {
+        OffreDroguesAggregateDto parStructure = aggregate(JANVIER, JANVIER.plusDays(31), SeriesGroupBy.STRUCTURE, null, null);
+        assertThat(parStructure.getGroupes()).containsExactly(100L, 200L);
+        assertThat(parStructure.getLibelles()).containsEntry(200L, "Brigade Sud");
+        assertThat(parStructure.getValeurs().get("subutex")).containsExactly(8L, 3L);
+
+        OffreDroguesAggregateDto parGouvernorat = aggregate(JANVIER, JANVIER, SeriesGroupBy.GOUVERNORAT, null, null);
+        assertThat(parGouvernorat.getGroupes()).containsExactly(1L);
+        assertThat(parGouvernorat.getLibelles()).containsEntry(1L, "Tunis");
+    }
+
+    @Test
+    void committedChangesAreServedOnlyOnceMerged() {
+        LocalDate jour = JANVIER.plusDays(1);
+        table.removeIf(saisie -> saisie.id() == 3L);
+        table.add(new Saisie(5L, jour, 10L, 100L, "Brigade Nord", 1L, "Tunis", 7.0, 0));
+        table.add(new Saisie(6L, JANVIER.plusDays(2), 12L, 300L, "Brigade Est", 3L, "Sousse", 1.0, 1));
+        store.onOffreDroguesChanged(new OffreDroguesChangedEvent(10L, 100L, jour, true));
+        store.onOffreDroguesChanged(new OffreDroguesChangedEvent(12L, 300L, JANVIER.plusDays(2), true));
+
+        // Avant la fusion, la copie publiée reste celle du chargement
+        OffreDroguesAggregateDto avant = aggregate(JANVIER, JANVIER.plusDays(31), SeriesGroupBy.NONE, null, null);
+        assertThat(avant.getValeurs().get("cannabis")).containsExactly(8.0);
+        assertThat(store.getStats().getPendingChanges()).isEqualTo(2);
+
+        store.mergePending();
+
+        OffreDroguesAggregateDto apres = aggregate(JANVIER, JANVIER.plusDays(31), SeriesGroupBy.STRUCTURE, null, null);
+        assertThat(apres.getGroupes()).containsExactly(100L, 200L, 300L);
+        assertThat(apres.getValeurs().get("saisies")).containsExactly(3L, 1L, 1L);
+        assertThat(apres.getValeurs().get("cannabis")).containsExactly(12.5, 2.0, 1.0);
+        assertThat(store.getStats().getRows()).isEqualTo(5);
+        assertThat(store.getStats().getPendingChanges()).isEqualTo(0);
+        assertThat(store.getStats().getMergedAt()).isNotNull();
+    }
+
+    private OffreDroguesAggregateDto aggregate(LocalDate from, LocalDate to, SeriesGroupBy groupBy,
+                                              Long utilisateurId, Long structureId) {
+        return store.aggregate(from, to, groupBy, METRICS, utilisateurId, structureId);
+    }
+
+    private record Saisie(long id, LocalDate date, long utilisateurId, Long structureId, String structureNom,
+                          Long gouvernoratId, String gouvernoratNom, double cannabis, int subutex) {
+    }
+
+    /**
+     * Table offre_drogues en mémoire, servie colonne par colonne dans l'ordre de la requête du store
+     */
+    private final class InMemoryJdbcTemplate extends JdbcTemplate {
+
+        @Override
+        public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+            stream(table.stream().sorted(Comparator.comparing(Saisie::date).thenComparingLong(Saisie::id)).toList(), rch);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            long utilisateurId = (Long) args[0];
+            LocalDate from = (LocalDate) args[1];
+            LocalDate to = (LocalDate) args[2];
+            stream(table.stream()
+                    .filter(saisie -> saisie.utilisateurId() == utilisateurId
+                            && !saisie.date().isBefore(from) && !saisie.date().isAfter(to))
+                    .toList(), rch);
+        }
+
+        private void stream(List<Saisie> rows, RowCallbackHandler rch) {
+            Saisie[] current = new Saisie[1];
+            boolean[] lastNull = new boolean[1];
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, methodArgs) -> {
+                        if ("wasNull".equals(method.getName())) {
+                            return lastNull[0];
+                        }
+                        Object value = column(current[0], (Integer) methodArgs[0]);
+                        lastNull[0] = value == null;
+                        return switch (method.getName()) {
+                            case "getLong" -> value != null ? ((Number) value).longValue() : 0L;
+                            case "getInt" -> value != null ? ((Number) value).intValue() : 0;
+                            case "getDouble" -> value != null ? ((Number) value).doubleValue() : 0.0;
+                            default -> value;
+                        };
+                    });
+            try {
+                for (Saisie row : rows) {
+                    current[0] = row;
+                    rch.processRow(rs);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private Object column(Saisie row, int index) {
+            return switch (index) {
+                case 1 -> row.id();
+                case 2 -> Date.valueOf(row.date());
+                case 3 -> row.utilisateurId();
+                case 4 -> row.structureId();
+                case 5 -> row.structureNom();
+                case 6 -> row.gouvernoratId();
+                case 7 -> row.gouvernoratNom();
+                default -> {
+                    Map<SeriesMetric, Number> valeurs = Map.of(SeriesMetric.CANNABIS, row.cannabis(),
+                            SeriesMetric.SUBUTEX, row.subutex());
+                    yield valeurs.getOrDefault(STORED.get(index - 8), 0);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package tn.gov.ms.sidra.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tn.gov.ms.sidra.entity.Patient;
+import tn.gov.ms.sidra.entity.User;
+import tn.gov.ms.sidra.repository.PatientAccessRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientAccessDecisionCacheTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicReference<List<LocalDateTime>> approved = new AtomicReference<>(List.of());
+    private final AtomicReference<Runnable> duringQuery = new AtomicReference<>(() -> { });
+    private PatientAccessDecisionCache cache;
+    private Patient patient;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        PatientAccessRepository repository = (PatientAccessRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{PatientAccessRepository.class},
+                (proxy, method, args) -> {
+                    if ("findApprovedExpirations".equals(method.getName())) {
+                        queries.incrementAndGet();
+                        List<LocalDateTime> result = approved.get();
+                        duringQuery.getAndSet(() -> { }).run();
+                        return result;
+                    }
+                    return null;
+                });
+        cache = new PatientAccessDecisionCache(repository, 30_000, 600_000, 1000);
+        patient = new Patient();
+        patient.setId(5L);
+        user = new User();
+        user.setId(9L);
+    }
+
+    @Test
+    void decisionsAreCachedUntilInvalidated() {
+        approved.set(List.of(LocalDateTime.now().plusDays(1)));
+
+        assertThat(cache.hasAccess(patient, user)).isTrue();
+        assertThat(cache.hasAccess(patient, user)).isTrue();
+        assertThat(queries.get()).isEqualTo(1);
+
+        approved.set(List.of());
+        cache.onPatientAccessChanged(new PatientAccessChangedEvent(9L, 5L));
+
+        assertThat(cache.hasAccess(patient, user)).isFalse();
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidationDuringAReadIsNotOverwrittenByTheStaleDecision() {
+        // La lecture voit encore l'autorisation ; le rejet est validé avant qu'elle ne se termine
+        approved.set(List.of(LocalDateTime.now().plusDays(1)));
+        duringQuery.set(() -> {
+            approved.set(List.of());
+            cache.onPatientAccessChanged(new PatientAccessChangedEvent(9L, 5L));
+        });
+
+        assertThat(cache.hasAccess(patient, user)).isTrue();
+
+        assertThat(cache.hasAccess(patient, user)).isFalse();
+        assertThat(queries.get()).isEqualTo(2);
+        assertThat(cache.hasAccess(patient, user)).isFalse();
+        assertThat(queries.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,177 @@
+package tn.gov.ms.sidra.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import tn.gov.ms.sidra.entity.SmsEtat;
+import tn.gov.ms.sidra.entity.SmsOutbox;
+import tn.gov.ms.sidra.repository.SmsOutboxRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmsOutboxDispatcherTest {
+
+    private final List<SmsOutbox> due = new CopyOnWriteArrayList<>();
+    private final AtomicReference<LocalDateTime> leaseUntil = new AtomicReference<>();
+    private final List<Object[]> retries = new CopyOnWriteArrayList<>();
+    private final List<Object[]> abandoned = new CopyOnWriteArrayList<>();
+    private final List<Long> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch recorded = new CountDownLatch(1);
+    private SmsOutboxRepository repository;
+    private SmsOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        repository = (SmsOutboxRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{SmsOutboxRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "lockDue" -> {
+                        List<SmsOutbox> batch = new ArrayList<>(due);
+                        due.clear();
+                        yield batch;
+                    }
+                    case "claim" -> {
+                        leaseUntil.set((LocalDateTime) args[1]);
+                        yield ((Collection<?>) args[0]).size();
+                    }
+                    case "markRetry" -> {
+                        retries.add(args);
+                        yield 1;
+                    }
+                    case "markAbandoned" -> {
+                        abandoned.add(args);
+                        yield 1;
+                    }
+                    case "markSent" -> {
+                        for (Object id : (Collection<?>) args[0]) {
+                            sent.add((Long) id);
+                        }
+                        recorded.countDown();
+                        yield sent.size();
+                    }
+                    default -> null;
+                });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+    }
+
+    @Test
+    void leaseCoversTwoBatchesSentOneRequestPerMessage() {
+        assertThat(SmsOutboxDispatcher.effectiveLease(120_000, 20, 7_000)).isEqualTo(310_000L);
+        assertThat(SmsOutboxDispatcher.effectiveLease(600_000, 20, 7_000)).isEqualTo(600_000L);
+        assertThat(SmsOutboxDispatcher.effectiveLease(120_000, 20, 0)).isEqualTo(120_000L);
+
+        dispatcher = dispatcher(gateway(Map.of(), 7_000), 20, 5, 120_000);
+        assertThat(dispatcher.getLeaseMillis()).isEqualTo(310_000L);
+    }
+
+    @Test
+    void backoffDoublesWithinJitterUntilCapped() {
+        dispatcher = dispatcher(gateway(Map.of(), 0), 20, 5, 120_000);
+
+        for (int attempts = 1; attempts <= 8; attempts++) {
+            long expected = Math.min(1_000L << (attempts - 1), 10_000L);
+            for (int i = 0; i < 200; i++) {
+                long delay = dispatcher.backoff(attempts);
+                assertThat(delay >= expected * 0.8 && delay <= expected * 1.2).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void claimedBatchIsLeasedThenSentRetriedOrAbandoned() throws InterruptedException {
+        due.add(row(1L, 0));
+        due.add(row(2L, 0));
+        due.add(row(3L, 2));
+        dispatcher = dispatcher(gateway(Map.of(2L, "délai dépassé", 3L, "numéro invalide"), 1_000), 5, 3, 1_000);
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.poll();
+        assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+        LocalDateTime after = LocalDateTime.now();
+
+        // Bail : 2 lots x 5 SMS x 1 s + 30 s de marge, au-delà du bail configuré
+        long leaseFromBefore = Duration.between(before, leaseUntil.get()).toMillis();
+        long leaseFromAfter = Duration.between(after, leaseUntil.get()).toMillis();
+        assertThat(leaseFromBefore >= 40_000 && leaseFromAfter <= 40_000).isTrue();
+
+        assertThat(sent).containsExactly(1L);
+        assertThat(retries).hasSize(1);
+        assertThat(retries.get(0)[0]).isEqualTo(2L);
+        assertThat(retries.get(0)[1]).isEqualTo(1);
+        long retryIn = Duration.between(before, (LocalDateTime) retries.get(0)[2]).toMillis();
+        assertThat(retryIn >= 800 && retryIn <= 1_200 + Duration.between(before, after).toMillis()).isTrue();
+        assertThat(retries.get(0)[3]).isEqualTo("délai dépassé");
+        assertThat(abandoned).hasSize(1);
+        assertThat(abandoned.get(0)[0]).isEqualTo(3L);
+        assertThat(abandoned.get(0)[1]).isEqualTo(3);
+    }
+
+    private SmsOutboxDispatcher dispatcher(SmsGateway gateway, int batchSize, int maxAttempts, long leaseMillis) {
+        return new SmsOutboxDispatcher(repository, gateway, new NoOpTransactionManager(),
+                batchSize, 1, maxAttempts, 1_000, 10_000, leaseMillis, 30);
+    }
+
+    private static SmsGateway gateway(Map<Long, String> failures, long maxSendMillisPerMessage) {
+        return new SmsGateway() {
+            @Override
+            public Map<Long, String> sendBatch(List<SmsMessage> messages) {
+                return failures;
+            }
+
+            @Override
+            public long maxSendMillisPerMessage() {
+                return maxSendMillisPerMessage;
+            }
+        };
+    }
+
+    private static SmsOutbox row(Long id, int attempts) {
+        SmsOutbox sms = new SmsOutbox();
+        sms.setId(id);
+        sms.setTelephone("+21620000000");
+        sms.setMessage("Code: 123456");
+        sms.setEtat(SmsEtat.EN_ATTENTE);
+        sms.setNombreTentatives(attempts);
+        return sms;
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package tn.gov.ms.sidra.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.gov.ms.sidra.exception.BusinessException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpreadsheetReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void xlsxWrittenBySpreadsheetWriterIsReadBackCellByCell() throws IOException {
+        File file = tempDir.resolve("export.xlsx").toFile();
+        LocalDate date = LocalDate.of(2025, 3, 14);
+        try (OutputStream output = new FileOutputStream(file);
+             SpreadsheetWriter writer = new SpreadsheetWriter(output, "Offre & drogues")) {
+            writer.header(List.of("dateSaisie", "structure", "cannabis", "cocaine"));
+            writer.startRow();
+            writer.date(date);
+            writer.text("Brigade <Nord> & \"Sud\"");
+            writer.number(12L);
+            writer.number(2.5);
+            writer.startRow();
+            writer.date(date.plusDays(1));
+            writer.blank();
+            writer.number(0L);
+            writer.text("  espaces conservés ");
+        }
+
+        List<Integer> lines = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        SpreadsheetReader.readXlsx(file, (line, cells) -> {
+            lines.add(line);
+            rows.add(cells);
+        });
+
+        String serial = Long.toString(ChronoUnit.DAYS.between(LocalDate.of(1899, 12, 30), date));
+        assertThat(lines).containsExactly(1, 2, 3);
+        assertThat(rows.get(0)).containsExactly("dateSaisie", "structure", "cannabis", "cocaine");
+        assertThat(rows.get(1)).containsExactly(serial, "Brigade <Nord> & \"Sud\"", "12", "2.5");
+        assertThat(rows.get(2)).containsExactly(Long.toString(Long.parseLong(serial) + 1), "", "0",
+                "  espaces conservés ");
+    }
+
+    @Test
+    void csvSeparatorIsDetectedAndQuotedCellsMaySpanLines() throws IOException {
+        String csv = "\uFEFFdateSaisie;commentaire;cannabis\r\n"
+                + "2025-01-02;\"sur deux\nlignes; avec \"\"guillemets\"\"\";3,5\r\n"
+                + "\r\n"
+                + "2025-01-03;;4\n";
+
+        List<Integer> lines = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        SpreadsheetReader.readCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), (line, cells) -> {
+            lines.add(line);
+            rows.add(cells);
+        });
+
+        assertThat(lines).containsExactly(1, 2, 5);
+        assertThat(rows.get(0)).containsExactly("dateSaisie", "commentaire", "cannabis");
+        assertThat(rows.get(1)).containsExactly("2025-01-02", "sur deux\nlignes; avec \"guillemets\"", "3,5");
+        assertThat(rows.get(2)).containsExactly("2025-01-03", "", "4");
+    }
+
+    @Test
+    void badSharedStringReferenceIsReportedAsCellErrorAndRowIsStillDelivered() throws IOException {
+        File file = workbook("<sst><si><t>dateSaisie</t></si></sst>",
+                "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c></row>"
+                        + "<row r=\"2\"><c r=\"A2\" t=\"s\"><v>abc</v></c><c r=\"B2\"><v>7</v></c></row>"
+                        + "<row r=\"3\"><c r=\"A3\" t=\"s\"><v>42</v></c></row>");
+
+        List<String> errors = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        SpreadsheetReader.readXlsx(file, new SpreadsheetReader.RowHandler() {
+            @Override
+            public void row(int lineNumber, List<String> cells) {
+                rows.add(cells);
+            }
+
+            @Override
+            public void invalidCell(int lineNumber, int column, String message) {
+                errors.add(lineNumber + ":" + column + ":" + message);
+            }
+        });
+
+        assertThat(errors).containsExactly(
+                "2:0:Référence de chaîne partagée invalide: abc",
+                "3:0:Référence de chaîne partagée invalide: 42");
+        assertThat(rows).containsExactly(List.of("dateSaisie"), List.of("", "7"), List.of(""));
+    }
+
+    @Test
+    void badSharedStringReferenceRejectsFileByDefault() throws IOException {
+        File file = workbook("<sst><si><t>x</t></si></sst>",
+                "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>-1</v></c></row>");
+
+        assertThatThrownBy(() -> SpreadsheetReader.readXlsx(file, (line, cells) -> { }))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("Ligne 1, colonne 1");
+    }
+
+    @Test
+    void limitIsEnforcedOnBytesActuallyRead() throws IOException {
+        byte[] content = new byte[1000];
+        try (InputStream limited = new SpreadsheetReader.LimitedInputStream(new ByteArrayInputStream(content), 1000)) {
+            assertThat(limited.readAllBytes()).hasSize(1000);
+        }
+
+        InputStream tooLarge = new SpreadsheetReader.LimitedInputStream(new ByteArrayInputStream(content), 999);
+        assertThatThrownBy(tooLarge::readAllBytes)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Le classeur est trop volumineux");
+    }
+
+    private File workbook(String sharedStrings, String rows) throws IOException {
+        File file = tempDir.resolve("classeur.xlsx").toFile();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+            zip.write(sharedStrings.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            zip.write(("<worksheet><sheetData>" + rows + "</sheetData></worksheet>").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return file;
+    }
+}